@@ -21,9 +21,12 @@
 package pcgen.base.util;
 
 import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TreeSet;
 
 /**
@@ -43,6 +46,11 @@ import java.util.TreeSet;
  * The Collection will have a total weight of 3+2+1=6. The call
  * {@code get(4)} will return Item 2.
  * <p>
+ * The running total of the weights is built the first time the size or a
+ * random value is requested and kept until the WeightedCollection is changed,
+ * so repeated random selections take O(log n) time rather than a walk of the
+ * whole WeightedCollection.
+ * <p>
  * 
  * @author boomer70 and Tom Parker (thpr@users.sourceforge.net)
  * @param <E>
@@ -57,6 +65,19 @@ public class WeightedCollection<E> extends AbstractCollection<E>
 	 */
 	private Collection<WeightedItem<E>> theData;
 
+	/**
+	 * The items of theData, in iteration order, once the running total of
+	 * their weights has been built. Null if theData has changed since.
+	 */
+	private List<WeightedItem<E>> sampleItems;
+
+	/**
+	 * The running total of the weights of sampleItems: entry i is the sum of
+	 * the weights of items 0 to i. Null if theData has changed since it was
+	 * built.
+	 */
+	private int[] cumulativeWeight;
+
 	/**
 	 * Default constructor. Creates an empty collection.
 	 */
@@ -131,12 +152,8 @@ public class WeightedCollection<E> extends AbstractCollection<E>
 	@Override
 	public int size()
 	{
-		int total = 0;
-		for (WeightedItem<E> item : theData)
-		{
-			total += item.getWeight();
-		}
-		return total;
+		int[] cumulative = getCumulativeWeight();
+		return cumulative.length == 0 ? 0 : cumulative[cumulative.length - 1];
 	}
 
 	/**
@@ -189,6 +206,7 @@ public class WeightedCollection<E> extends AbstractCollection<E>
 			return false;
 		}
 		// Lets see if we can find this element
+		int position = 0;
 		for (WeightedItem<E> item : theData)
 		{
 			E wiElement = item.getElement();
@@ -196,9 +214,20 @@ public class WeightedCollection<E> extends AbstractCollection<E>
 					&& wiElement.equals(element))
 			{
 				item.addWeight(weight);
+				if (cumulativeWeight != null)
+				{
+					// Cheaper than rebuilding, as NPC generation adds weight
+					// to a selection between random selections
+					for (int i = position; i < cumulativeWeight.length; i++)
+					{
+						cumulativeWeight[i] += weight;
+					}
+				}
 				return true;
 			}
+			position++;
 		}
+		invalidate();
 		return theData.add(new WeightedItem<>(element, weight));
 	}
 
@@ -225,24 +254,84 @@ public class WeightedCollection<E> extends AbstractCollection<E>
 	 */
 	public E getRandomValue()
 	{
-		int index = RandomUtil.getRandomInt(size());
-		int total = 0;
-		for (WeightedItem<E> item : theData)
+		int[] cumulative = getCumulativeWeight();
+		int total =
+				cumulative.length == 0 ? 0 : cumulative[cumulative.length - 1];
+		return getValueAt(RandomUtil.getRandomInt(total));
+	}
+
+	/**
+	 * Returns the element selected by the given index into the total weight
+	 * of this WeightedCollection: the first element whose running total of
+	 * weights is greater than the index. An element of weight 0 is therefore
+	 * never selected.
+	 * 
+	 * @param index
+	 *            The index into the total weight, from 0 (inclusive) to size()
+	 *            (exclusive)
+	 * @return The element selected by the index.
+	 */
+	E getValueAt(int index)
+	{
+		int[] cumulative = getCumulativeWeight();
+		/*
+		 * An item of weight 0 repeats the running total of the item before
+		 * it, so the search moves left over equal totals
+		 */
+		int low = 0;
+		int high = cumulative.length;
+		while (low < high)
 		{
-			total += item.getWeight();
-			if (total > index)
+			int mid = (low + high) >>> 1;
+			if (cumulative[mid] > index)
 			{
-				/*
-				 * NOTE The return statement can't be 100% covered with a Sun
-				 * compiler for code coverage stats.
-				 */
-				return item.getElement();
+				high = mid;
+			}
+			else
+			{
+				low = mid + 1;
 			}
 		}
-		/*
-		 * This can occur if the list is empty.
-		 */
-		throw new IndexOutOfBoundsException(index + " >= " + total);
+		if (low == cumulative.length)
+		{
+			int total = (low == 0) ? 0 : cumulative[low - 1];
+			throw new IndexOutOfBoundsException(index + " >= " + total);
+		}
+		return sampleItems.get(low).getElement();
+	}
+
+	/**
+	 * Returns the running total of the weights of the items in this
+	 * WeightedCollection, building it if theData has changed since it was last
+	 * built.
+	 * 
+	 * @return The running total of the weights, in iteration order
+	 */
+	private int[] getCumulativeWeight()
+	{
+		if (cumulativeWeight == null)
+		{
+			List<WeightedItem<E>> items = new ArrayList<>(theData);
+			int[] cumulative = new int[items.size()];
+			int total = 0;
+			for (int i = 0; i < cumulative.length; i++)
+			{
+				total += items.get(i).getWeight();
+				cumulative[i] = total;
+			}
+			sampleItems = items;
+			cumulativeWeight = cumulative;
+		}
+		return cumulativeWeight;
+	}
+
+	/**
+	 * Discards the running total of the weights, as theData has changed.
+	 */
+	private void invalidate()
+	{
+		sampleItems = null;
+		cumulativeWeight = null;
 	}
 
 	/**
@@ -359,6 +448,7 @@ public class WeightedCollection<E> extends AbstractCollection<E>
 					&& wiElement.equals(element))
 			{
 				it.remove();
+				invalidate();
 				return true;
 			}
 		}
@@ -387,6 +477,7 @@ public class WeightedCollection<E> extends AbstractCollection<E>
 	public void clear()
 	{
 		theData.clear();
+		invalidate();
 	}
 
 	/**
@@ -624,6 +715,7 @@ public class WeightedCollection<E> extends AbstractCollection<E>
 		public void remove()
 		{
 			iter.remove();
+			invalidate();
 			currentEntry = null;
 		}
 	}
@@ -673,6 +765,7 @@ public class WeightedCollection<E> extends AbstractCollection<E>
 		public void remove()
 		{
 			realIterator.remove();
+			invalidate();
 		}
 	}
 
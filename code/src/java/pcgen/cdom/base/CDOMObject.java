@@ -44,6 +44,7 @@ import pcgen.cdom.enumeration.ListKey;
 import pcgen.cdom.enumeration.MapKey;
 import pcgen.cdom.enumeration.ObjectKey;
 import pcgen.cdom.enumeration.StringKey;
+import pcgen.cdom.enumeration.Type;
 import pcgen.cdom.enumeration.VariableKey;
 import pcgen.cdom.util.FactSetKeyMapToList;
 import pcgen.cdom.util.ListKeyMapToList;
@@ -1044,6 +1045,53 @@ public abstract class CDOMObject extends ConcretePrereqObject implements
 	@Override
 	public abstract boolean isType(String type);
 
+	/**
+	 * Returns the Types an object must have in its TYPE list for the given
+	 * type string to match it. The type string may hold several types
+	 * separated by periods, and may be preceded by TYPE= or TYPE. (or by !,
+	 * which is ignored).
+	 * 
+	 * @param typeString
+	 *            The type string to be matched, e.g. TYPE=Weapon.Martial
+	 * @return The Types required by the type string, or null if the type
+	 *         string matches no object
+	 */
+	public static List<Type> getRequiredTypes(String typeString)
+	{
+		if (typeString.isEmpty())
+		{
+			return null;
+		}
+		final String myType;
+		if (typeString.charAt(0) == '!')
+		{
+			myType = typeString.substring(1);
+		}
+		else if (typeString.startsWith("TYPE=") || typeString.startsWith("TYPE."))	//$NON-NLS-1$ //$NON-NLS-2$
+		{
+			myType = typeString.substring(5);
+		}
+		else
+		{
+			myType = typeString;
+		}
+		return Type.getConstantList(myType);
+	}
+
+	/**
+	 * Returns the types isType checks for this object, if isType is exactly a
+	 * check that the object has all of the types returned by getRequiredTypes.
+	 * If so, type checks for many objects may be made against an index of
+	 * these types instead of calling isType on each object.
+	 * 
+	 * @return The types checked by isType, or null if isType does more than
+	 *         check a list of types
+	 */
+	public Collection<Type> getIndexableTypes()
+	{
+		return null;
+	}
+
 	public <T extends CDOMObject> boolean hasObjectOnList(
 			CDOMReference<? extends CDOMList<T>> list, T element)
 	{
@@ -18,6 +18,7 @@
 package pcgen.cdom.enumeration;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import pcgen.base.enumeration.TypeSafeConstant;
 import pcgen.cdom.base.PCGenIdentifier;
@@ -35,7 +36,7 @@ public final class CharID implements TypeSafeConstant, PCGenIdentifier
 	/**
 	 * This is used to provide a unique ordinal to each constant in this class
 	 */
-	private static int ordinalCount = 0;
+	private static final AtomicInteger ORDINAL_COUNT = new AtomicInteger();
 
 	/**
 	 * The ordinal of this Constant
@@ -62,7 +63,7 @@ public final class CharID implements TypeSafeConstant, PCGenIdentifier
 		{
 			throw new IllegalArgumentException("DataSetID cannot be null");
 		}
-		ordinal = ordinalCount++;
+		ordinal = ORDINAL_COUNT.getAndIncrement();
 		datasetID = dsid;
 	}
 
@@ -83,7 +84,7 @@ public final class CharID implements TypeSafeConstant, PCGenIdentifier
 	public static CharID getID(DataSetID dsid)
 	{
 		CharID id = new CharID(dsid);
-		id.myFacetCache = AbstractStorageFacet.peekAtCache(id);
+		id.myFacetCache = AbstractStorageFacet.createCache(id);
 		return id;
 	}
 }
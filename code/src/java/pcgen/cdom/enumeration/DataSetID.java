@@ -18,6 +18,7 @@
 package pcgen.cdom.enumeration;
 
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import pcgen.base.enumeration.TypeSafeConstant;
 import pcgen.cdom.base.PCGenIdentifier;
@@ -35,7 +36,7 @@ public final class DataSetID implements TypeSafeConstant, PCGenIdentifier
 	/**
 	 * This is used to provide a unique ordinal to each constant in this class
 	 */
-	private static int ordinalCount = 0;
+	private static final AtomicInteger ORDINAL_COUNT = new AtomicInteger();
 
 	/**
 	 * The ordinal of this Constant
@@ -53,7 +54,7 @@ public final class DataSetID implements TypeSafeConstant, PCGenIdentifier
 
 	private DataSetID()
 	{
-		ordinal = ordinalCount++;
+		ordinal = ORDINAL_COUNT.getAndIncrement();
 	}
 
 	/**
@@ -68,7 +69,7 @@ public final class DataSetID implements TypeSafeConstant, PCGenIdentifier
 	public static DataSetID getID()
 	{
 		DataSetID id = new DataSetID();
-		id.myFacetCache = AbstractStorageFacet.peekAtCache(id);
+		id.myFacetCache = AbstractStorageFacet.createCache(id);
 		return id;
 	}
 }
@@ -17,11 +17,17 @@
  */
 package pcgen.cdom.enumeration;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import pcgen.base.enumeration.TypeSafeConstant;
-import pcgen.base.util.CaseInsensitiveMap;
 import pcgen.cdom.base.Constants;
 
 /**
@@ -34,9 +40,24 @@ import pcgen.cdom.base.Constants;
 public final class Type implements TypeSafeConstant, Comparable<Type>
 {
 	/**
-	 * This Map contains the mappings from Strings to the Type Safe Constant
+	 * This is used to provide a unique ordinal to each constant in this class.
+	 * It is declared ahead of the constants below so they are numbered too.
 	 */
-	private static CaseInsensitiveMap<Type> typeMap = new CaseInsensitiveMap<>();
+	private static final AtomicInteger ORDINAL_COUNT = new AtomicInteger();
+
+	/**
+	 * This Map contains the mappings from upper case Strings to the Type Safe
+	 * Constant. Constants may be created by files being loaded at the same
+	 * time, so it must be safe for concurrent use.
+	 */
+	private static final Map<String, Type> typeMap = new ConcurrentHashMap<>();
+
+	/**
+	 * This Map contains the mappings from period separated lists of names to
+	 * the Type Safe Constants they name
+	 */
+	private static final Map<String, List<Type>> typeListMap =
+			new ConcurrentHashMap<>();
 
 	public static final Type NATURAL = getConstant("Natural");
 
@@ -94,12 +115,6 @@ public final class Type implements TypeSafeConstant, Comparable<Type>
 
 	public static final Type ARMOR = getConstant("Armor");
 
-
-	/**
-	 * This is used to provide a unique ordinal to each constant in this class
-	 */
-	private static int ordinalCount = 0;
-
 	/**
 	 * The name of this Constant
 	 */
@@ -116,7 +131,7 @@ public final class Type implements TypeSafeConstant, Comparable<Type>
 		{
 			throw new IllegalArgumentException("Name for Type cannot be null");
 		}
-		ordinal = ordinalCount++;
+		ordinal = ORDINAL_COUNT.getAndIncrement();
 		fieldName = name;
 	}
 
@@ -163,13 +178,43 @@ public final class Type implements TypeSafeConstant, Comparable<Type>
 	 */
 	public static Type getConstant(String name)
 	{
-		Type type = typeMap.get(name);
-		if (type == null)
+		if (name == null)
 		{
-			type = new Type(name);
-			typeMap.put(name, type);
+			throw new IllegalArgumentException("Name for Type cannot be null");
 		}
-		return type;
+		return typeMap.computeIfAbsent(key(name), k -> new Type(name));
+	}
+
+	private static String key(String name)
+	{
+		return name.toUpperCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Returns the constants for the given period separated list of names (the
+	 * search for each constant is case insensitive). If a constant does not
+	 * already exist, a new Constant is created with the upper case name.
+	 * 
+	 * @param names
+	 *            The period separated names of the constants to be returned,
+	 *            e.g. Weapon.Martial
+	 * @return An unmodifiable List of the Constants for the given names
+	 */
+	public static List<Type> getConstantList(String names)
+	{
+		List<Type> list = typeListMap.get(names);
+		if (list == null)
+		{
+			List<Type> types = new ArrayList<>(2);
+			StringTokenizer tok = new StringTokenizer(names.toUpperCase(), ".");
+			while (tok.hasMoreTokens())
+			{
+				types.add(getConstant(tok.nextToken()));
+			}
+			list = Collections.unmodifiableList(types);
+			typeListMap.put(names, list);
+		}
+		return list;
 	}
 
 	/**
@@ -185,7 +230,7 @@ public final class Type implements TypeSafeConstant, Comparable<Type>
 	 */
 	public static Type valueOf(String name)
 	{
-		Type type = typeMap.get(name);
+		Type type = (name == null) ? null : typeMap.get(key(name));
 		if (type == null)
 		{
 			throw new IllegalArgumentException(name
@@ -199,7 +244,7 @@ public final class Type implements TypeSafeConstant, Comparable<Type>
 	 * 
 	 * This collection maintains a reference to the Constants in this Class, so
 	 * if a new Constant is created, the Collection returned by this method will
-	 * be modified. (Beware of ConcurrentModificationExceptions)
+	 * be modified. It may be iterated while Constants are being created.
 	 * 
 	 * @return a Collection of all of the Constants in this Class.
 	 */
@@ -221,6 +266,7 @@ public final class Type implements TypeSafeConstant, Comparable<Type>
 	public static void clearConstants()
 	{
 		typeMap.clear();
+		typeListMap.clear();
 	}
 
 	/*
@@ -17,8 +17,8 @@
  */
 package pcgen.cdom.facet;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import pcgen.cdom.helper.SpringHelper;
 
@@ -36,30 +36,51 @@ public final class FacetLibrary
 		//Do not instantiate
 	}
 
-	private static Map<Class<?>, Object> facets = new HashMap<>();
+	private static Map<Class<?>, Object> facets = new ConcurrentHashMap<>();
 
 	public static <T extends Object> T getFacet(Class<T> cl)
 	{
-		T facet = (T) facets.get(cl);
+		T facet = cl.cast(facets.get(cl));
 		if (facet == null)
 		{
-			// First check for the facet being defined by Spring
-			facet = SpringHelper.getBean(cl);
-			if (facet == null)
+			/*
+			 * Facets are only created once, even if requested from several
+			 * threads. Creating a facet may request other facets, so this
+			 * lock must allow re-entry from the same thread.
+			 */
+			synchronized (FacetLibrary.class)
 			{
-				// Fall back to the old hardcoded system
-				//System.err.println("Using Legacy Load for Facet: " + cl.getName());
-				try
+				facet = cl.cast(facets.get(cl));
+				if (facet == null)
 				{
-					facet = cl.newInstance();
-				}
-				catch (InstantiationException | IllegalAccessException e)
-				{
-					// TODO Auto-generated catch block
-					e.printStackTrace();
+					facet = createFacet(cl);
+					if (facet != null)
+					{
+						facets.put(cl, facet);
+					}
 				}
 			}
-			facets.put(cl, facet);
+		}
+		return facet;
+	}
+
+	private static <T extends Object> T createFacet(Class<T> cl)
+	{
+		// First check for the facet being defined by Spring
+		T facet = SpringHelper.getBean(cl);
+		if (facet == null)
+		{
+			// Fall back to the old hardcoded system
+			//System.err.println("Using Legacy Load for Facet: " + cl.getName());
+			try
+			{
+				facet = cl.newInstance();
+			}
+			catch (InstantiationException | IllegalAccessException e)
+			{
+				// TODO Auto-generated catch block
+				e.printStackTrace();
+			}
 		}
 		return facet;
 	}
@@ -19,14 +19,21 @@ package pcgen.cdom.facet;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.WeakHashMap;
 import pcgen.cdom.base.AssociatedPrereqObject;
 import pcgen.cdom.base.CDOMList;
 import pcgen.cdom.base.CDOMReference;
+import pcgen.cdom.base.Category;
 import pcgen.cdom.base.DataSetInitializedFacet;
 import pcgen.cdom.base.MasterListInterface;
 import pcgen.cdom.enumeration.AssociationKey;
 import pcgen.cdom.enumeration.DataSetID;
+import pcgen.cdom.enumeration.Nature;
 import pcgen.cdom.facet.base.AbstractListFacet;
 import pcgen.cdom.helper.AvailableSpell;
 import pcgen.cdom.list.ClassSpellList;
@@ -41,6 +48,10 @@ import pcgen.rules.context.LoadContext;
  * character class. Note this is a "global" facet in that it does not have
  * method that depend on CharID (they are not character specific).
  * 
+ * The AvailableSpell objects of each data set are indexed by spell list, by
+ * spell list and spell, and by spell list and level when the data set is
+ * initialized, so the lookups below do not scan the whole data set.
+ * 
  * @author Tom Parker &lt;thpr@users.sourceforge.net&gt;
  */
 public class MasterAvailableSpellFacet extends
@@ -49,6 +60,13 @@ public class MasterAvailableSpellFacet extends
 {
 	private DataSetInitializationFacet datasetInitializationFacet;
 
+	/**
+	 * The index of the AvailableSpell objects of each data set. Held weakly so
+	 * the index of an unloaded data set can be discarded.
+	 */
+	private final Map<DataSetID, SpellIndex> indexes =
+			Collections.synchronizedMap(new WeakHashMap<>());
+
 	/**
 	 * Initializes the global lists of ClassSkillLists. This method only needs
 	 * to be called once for each set of sources that are loaded.
@@ -94,6 +112,27 @@ public class MasterAvailableSpellFacet extends
 				}
 			}
 		}
+		indexes.put(dsID, new SpellIndex(getSet(dsID)));
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	protected void fireDataFacetChangeEvent(DataSetID dsID, AvailableSpell as,
+		int type, Category category, Nature nature)
+	{
+		indexes.remove(dsID);
+		super.fireDataFacetChangeEvent(dsID, as, type, category, nature);
+	}
+
+	private SpellIndex getIndex(DataSetID dsID)
+	{
+		SpellIndex index = indexes.get(dsID);
+		if (index == null)
+		{
+			index = new SpellIndex(getSet(dsID));
+			indexes.put(dsID, index);
+		}
+		return index;
 	}
 	
 	/**
@@ -104,17 +143,22 @@ public class MasterAvailableSpellFacet extends
 	 */
 	public List<AvailableSpell> getAllSpellsInList(CDOMList<Spell> spellList, DataSetID dsID)
 	{
-		List<AvailableSpell> spellsInList = new ArrayList<>();
-		Collection<AvailableSpell> spells = getSet(dsID);
-		for (AvailableSpell as : spells)
-		{
-			if (as.getSpelllist().equals(spellList))
-			{
-				spellsInList.add(as);
-			}
-		}
+		return copy(getIndex(dsID).byList.get(spellList));
+	}
 
-		return spellsInList;
+	/**
+	 * Retrieve a list of all spells at a particular level of a spell list.
+	 * @param spellList The list to be queried
+	 * @param dsID The owning data set
+	 * @param level The level of the spells to be found.
+	 * @return The list of available spells.
+	 */
+	public List<AvailableSpell> getSpellsInListAtLevel(
+		CDOMList<Spell> spellList, DataSetID dsID, int level)
+	{
+		Map<Integer, List<AvailableSpell>> levels =
+				getIndex(dsID).byLevel.get(spellList);
+		return copy(levels == null ? null : levels.get(level));
 	}
 	
 	/**
@@ -127,18 +171,14 @@ public class MasterAvailableSpellFacet extends
 	public List<AvailableSpell> getMatchingSpellsInList(
 		CDOMList<Spell> spellList, DataSetID dsID, Spell spell)
 	{
-		List<AvailableSpell> spellsInList = new ArrayList<>();
-		Collection<AvailableSpell> spells = getSet(dsID);
-		for (AvailableSpell as : spells)
-		{
-			if (as.getSpelllist().equals(spellList)
-				&& as.getSpell().equals(spell))
-			{
-				spellsInList.add(as);
-			}
-		}
+		Map<String, List<AvailableSpell>> spells =
+				getIndex(dsID).bySpell.get(spellList);
+		return copy(spells == null ? null : spells.get(SpellIndex.key(spell)));
+	}
 
-		return spellsInList;
+	private static List<AvailableSpell> copy(List<AvailableSpell> spells)
+	{
+		return spells == null ? new ArrayList<>() : new ArrayList<>(spells);
 	}
 
 	public void setDataSetInitializationFacet(
@@ -151,4 +191,41 @@ public class MasterAvailableSpellFacet extends
 	{
 		datasetInitializationFacet.addDataSetInitializedFacet(this);
 	}
+
+	/**
+	 * SpellIndex holds the AvailableSpell objects of a data set grouped by
+	 * spell list, then by spell or by level. Spells are grouped by key, as
+	 * Spell.equals ignores the case of the key.
+	 */
+	private static final class SpellIndex
+	{
+		private final Map<CDOMList<Spell>, List<AvailableSpell>> byList =
+				new HashMap<>();
+
+		private final Map<CDOMList<Spell>, Map<String, List<AvailableSpell>>> bySpell =
+				new HashMap<>();
+
+		private final Map<CDOMList<Spell>, Map<Integer, List<AvailableSpell>>> byLevel =
+				new HashMap<>();
+
+		private SpellIndex(Collection<AvailableSpell> spells)
+		{
+			for (AvailableSpell as : spells)
+			{
+				CDOMList<Spell> list = as.getSpelllist();
+				byList.computeIfAbsent(list, l -> new ArrayList<>()).add(as);
+				bySpell.computeIfAbsent(list, l -> new HashMap<>())
+					.computeIfAbsent(key(as.getSpell()), k -> new ArrayList<>())
+					.add(as);
+				byLevel.computeIfAbsent(list, l -> new HashMap<>())
+					.computeIfAbsent(as.getLevel(), k -> new ArrayList<>())
+					.add(as);
+			}
+		}
+
+		private static String key(Spell spell)
+		{
+			return spell.getKeyName().toUpperCase(Locale.ENGLISH);
+		}
+	}
 }
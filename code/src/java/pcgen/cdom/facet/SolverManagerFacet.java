@@ -17,12 +17,20 @@
  */
 package pcgen.cdom.facet;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 import pcgen.base.formula.base.ScopeInstance;
 import pcgen.base.formula.base.VarScoped;
 import pcgen.base.formula.base.VariableID;
 import pcgen.base.solver.AggressiveSolverManager;
+import pcgen.base.solver.Modifier;
 import pcgen.base.solver.ProcessStep;
 import pcgen.cdom.content.VarModifier;
 import pcgen.cdom.enumeration.CharID;
@@ -30,6 +38,15 @@ import pcgen.cdom.facet.base.AbstractItemFacet;
 
 /**
  * This stores the AggressiveSolverManager for each PlayerCharacter.
+ * 
+ * Solving can be deferred for a PlayerCharacter (see defer(CharID)). While
+ * solving is deferred, modifiers added and removed are held rather than being
+ * passed to the AggressiveSolverManager, which would otherwise solve every
+ * dependent variable as each one arrives. A modifier which is added and then
+ * removed again before solving resumes is never passed on at all. The held
+ * modifiers are passed on in order, giving the same results as if they had
+ * been passed on immediately, when solving resumes or when a result is needed
+ * (see flush(CharID)).
  */
 public class SolverManagerFacet extends
 		AbstractItemFacet<CharID, AggressiveSolverManager>
@@ -38,29 +55,104 @@ public class SolverManagerFacet extends
 
 	private ScopeFacet scopeFacet;
 
+	private final Map<CharID, DeferredModifiers> deferred =
+			new ConcurrentHashMap<>();
+
 	public <T> List<ProcessStep<T>> diagnose(CharID id, VariableID<T> varID)
 	{
+		flush(id);
 		return get(id).diagnose(varID);
 	}
 
 	public <T> void addModifier(CharID id, VarModifier<T> vm, VarScoped target,
 		Object source)
 	{
-		ScopeInstance scope = scopeFacet.get(id, vm.legalScope.getName(), target);
-		VariableID<T> varID =
-				(VariableID<T>) variableLibraryFacet.getVariableID(
-					id.getDatasetID(), scope, vm.varName);
-		get(id).addModifier(varID, vm.modifier, source);
+		VariableID<T> varID = getVariableID(id, vm, target);
+		DeferredModifiers pending = deferred.get(id);
+		if (pending == null)
+		{
+			get(id).addModifier(varID, vm.modifier, source);
+		}
+		else
+		{
+			pending.add(varID, vm.modifier, source);
+		}
 	}
 
 	public <T> void removeModifier(CharID id, VarModifier<T> vm,
 		VarScoped target, Object source)
+	{
+		VariableID<T> varID = getVariableID(id, vm, target);
+		DeferredModifiers pending = deferred.get(id);
+		if (pending == null)
+		{
+			get(id).removeModifier(varID, vm.modifier, source);
+		}
+		else
+		{
+			pending.remove(varID, vm.modifier, source);
+		}
+	}
+
+	private <T> VariableID<T> getVariableID(CharID id, VarModifier<T> vm,
+		VarScoped target)
 	{
 		ScopeInstance scope = scopeFacet.get(id, vm.legalScope.getName(), target);
-		VariableID<T> varID =
-				(VariableID<T>) variableLibraryFacet.getVariableID(
-					id.getDatasetID(), scope, vm.varName);
-		get(id).removeModifier(varID, vm.modifier, source);
+		return (VariableID<T>) variableLibraryFacet.getVariableID(
+			id.getDatasetID(), scope, vm.varName);
+	}
+
+	/**
+	 * Defers solving for the Player Character identified by the given CharID
+	 * until a matching call to resume(CharID). Calls may be nested, in which
+	 * case solving resumes when the outermost call is resumed.
+	 * 
+	 * @param id
+	 *            The CharID identifying the Player Character for which solving
+	 *            should be deferred
+	 */
+	public void defer(CharID id)
+	{
+		deferred.computeIfAbsent(id, k -> new DeferredModifiers()).depth++;
+	}
+
+	/**
+	 * Ends one call to defer(CharID) for the Player Character identified by
+	 * the given CharID. When the outermost call ends, any modifiers which were
+	 * held are passed to the AggressiveSolverManager and solving is no longer
+	 * deferred.
+	 * 
+	 * @param id
+	 *            The CharID identifying the Player Character for which solving
+	 *            should resume
+	 */
+	public void resume(CharID id)
+	{
+		DeferredModifiers pending = deferred.get(id);
+		if (pending != null && --pending.depth <= 0)
+		{
+			deferred.remove(id);
+			pending.applyTo(get(id));
+		}
+	}
+
+	/**
+	 * Passes any modifiers held for the Player Character identified by the
+	 * given CharID to the AggressiveSolverManager, so that the results of the
+	 * Player Character's variables are current. Solving remains deferred if it
+	 * was deferred.
+	 * 
+	 * @param id
+	 *            The CharID identifying the Player Character whose results
+	 *            are needed
+	 */
+	public void flush(CharID id)
+	{
+		DeferredModifiers pending = deferred.get(id);
+		if (pending != null)
+		{
+			pending.applyTo(get(id));
+		}
 	}
 
 	public void setVariableLibraryFacet(
@@ -74,4 +166,111 @@ public class SolverManagerFacet extends
 		this.scopeFacet = scopeFacet;
 	}
 
+	/**
+	 * The modifiers held for a Player Character while solving is deferred.
+	 */
+	private static final class DeferredModifiers
+	{
+		private int depth;
+
+		private List<Change> changes = new ArrayList<>();
+
+		/**
+		 * The held additions which have not been cancelled, so that a removal
+		 * can find the addition it cancels without searching every change.
+		 */
+		private Map<Change, Deque<Change>> additions = new HashMap<>();
+
+		private void add(VariableID<?> varID, Modifier<?> modifier,
+			Object source)
+		{
+			Change change = new Change(true, varID, modifier, source);
+			changes.add(change);
+			additions.computeIfAbsent(change, k -> new ArrayDeque<>()).push(
+				change);
+		}
+
+		private void remove(VariableID<?> varID, Modifier<?> modifier,
+			Object source)
+		{
+			Change change = new Change(false, varID, modifier, source);
+			Deque<Change> added = additions.get(change);
+			if (added == null)
+			{
+				changes.add(change);
+				return;
+			}
+			added.pop().cancelled = true;
+			if (added.isEmpty())
+			{
+				additions.remove(change);
+			}
+		}
+
+		private void applyTo(AggressiveSolverManager manager)
+		{
+			List<Change> toApply = changes;
+			changes = new ArrayList<>();
+			additions = new HashMap<>();
+			for (Change change : toApply)
+			{
+				if (!change.cancelled)
+				{
+					change.applyTo(manager);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A held addition or removal of a modifier. Changes are equal if they
+	 * refer to the same modifier, whether they add or remove it.
+	 */
+	private static final class Change
+	{
+		private final boolean isAddition;
+		private final VariableID varID;
+		private final Modifier modifier;
+		private final Object source;
+		private boolean cancelled;
+
+		private Change(boolean isAddition, VariableID<?> varID,
+			Modifier<?> modifier, Object source)
+		{
+			this.isAddition = isAddition;
+			this.varID = varID;
+			this.modifier = modifier;
+			this.source = source;
+		}
+
+		private void applyTo(AggressiveSolverManager manager)
+		{
+			if (isAddition)
+			{
+				manager.addModifier(varID, modifier, source);
+			}
+			else
+			{
+				manager.removeModifier(varID, modifier, source);
+			}
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(varID, modifier, source);
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Change))
+			{
+				return false;
+			}
+			Change other = (Change) o;
+			return varID.equals(other.varID) && modifier.equals(other.modifier)
+				&& Objects.equals(source, other.source);
+		}
+	}
 }
@@ -33,8 +33,14 @@ public class VariableStoreFacet extends
 
 	private SolverFactoryFacet solverFactoryFacet;
 
+	private SolverManagerFacet solverManagerFacet;
+
 	public <T> T getValue(CharID id, VariableID<T> varID)
 	{
+		if (solverManagerFacet != null)
+		{
+			solverManagerFacet.flush(id);
+		}
 		T value = get(id).get(varID);
 		if (value == null)
 		{
@@ -49,4 +55,9 @@ public class VariableStoreFacet extends
 		this.solverFactoryFacet = solverFactoryFacet;
 	}
 
+	public void setSolverManagerFacet(SolverManagerFacet solverManagerFacet)
+	{
+		this.solverManagerFacet = solverManagerFacet;
+	}
+
 }
@@ -228,6 +228,7 @@ public abstract class AbstractDataFacet<IDT extends PCGenIdentifier, T> extends
 	protected void fireDataFacetChangeEvent(IDT id, T node, int type,
 		Category category, Nature nature)
 	{
+		CacheDependencyTracker.facetChanged(id, getClass());
 		for (DataFacetChangeListener<IDT, ? super T>[] dfclArray : listeners
 			.values())
 		{
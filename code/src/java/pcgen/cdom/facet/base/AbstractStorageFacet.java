@@ -18,14 +18,12 @@
 package pcgen.cdom.facet.base;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.WeakHashMap;
 
 import pcgen.base.test.InequalityTester;
-import pcgen.base.util.DoubleKeyMap;
 import pcgen.cdom.base.PCGenIdentifier;
 import pcgen.util.Logging;
 
@@ -42,6 +40,18 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 
 	private final Class<?> thisClass = getClass();
 
+	/**
+	 * The position of the contents of this facet in the FacetCache of each
+	 * resource.
+	 */
+	private final int ordinal = FacetCache.getOrdinal(thisClass);
+
+	/**
+	 * True if every change to the contents of this facet is reported through
+	 * a DataFacetChangeEvent.
+	 */
+	private final boolean reportsChanges = this instanceof AbstractDataFacet;
+
 	/**
 	 * Copies the contents of the AbstractStorageFacet from one resource to
 	 * another resource, based on the given PCGenIdentifiers representing those
@@ -68,22 +78,17 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 	 */
 	public abstract void copyContents(T source, T copy);
 
-	/**
-	 * The actual cache that stores the CDOM information, as stored by the
-	 * identifying PCGenIdentifier of a resource and the class of the facet
-	 * storing the information
-	 */
-	private static final DoubleKeyMap<PCGenIdentifier, Class<?>, Object> CACHE =
-            new DoubleKeyMap<>(
-                    WeakHashMap.class, HashMap.class);
-
 	/*
-	 * Note: the use of CACHE.getReadOnlyMapFor(K1) in peekAtCache makes calling
-	 * CACHE.removeAll(k1) or CACHE.clear() [not used in this class at the
-	 * moment] a rather dangerous activity that is prone to later frustration in
-	 * debugging. It is advised that if such a call is every considered that
-	 * detailed consideration is made of the consequences so that debugging
-	 * information is not destroyed in the process. - thpr Dec 15, 2012.
+	 * The actual cache that stores the CDOM information is held in a
+	 * FacetCache for each resource (identified by its PCGenIdentifier), in
+	 * which each facet class has its own position.
+	 * 
+	 * Note: the use of FacetCache.asMap() in peekAtCache and createCache makes discarding the
+	 * FacetCache of a resource that is still in use a rather dangerous
+	 * activity that is prone to later frustration in debugging. It is advised
+	 * that if such a call is every considered that detailed consideration is
+	 * made of the consequences so that debugging information is not destroyed
+	 * in the process. - thpr Dec 15, 2012.
 	 */
 
 	/**
@@ -104,7 +109,9 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier cannot be null in removeCache");
 		}
-		return CACHE.remove(id, thisClass);
+		CacheDependencyTracker.facetChanged(id, thisClass);
+		FacetCache cache = FacetCache.get(id);
+		return cache == null ? null : cache.remove(ordinal);
 	}
 
 	/**
@@ -127,7 +134,8 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier cannot be null in setCache");
 		}
-		return CACHE.put(id, thisClass, o);
+		CacheDependencyTracker.facetChanged(id, thisClass);
+		return FacetCache.getOrCreate(id).put(ordinal, o);
 	}
 
 	/**
@@ -148,7 +156,24 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier cannot be null in getCache");
 		}
-		return CACHE.get(id, thisClass);
+		CacheDependencyTracker.facetRead(id, thisClass, reportsChanges);
+		FacetCache cache = FacetCache.get(id);
+		return cache == null ? null : cache.get(ordinal);
+	}
+
+	/**
+	 * Reports that the information in the cache for a given resource has been
+	 * changed in place, rather than through setCache or removeCache. Facets
+	 * which change their information in place without firing an event must
+	 * call this so values calculated from the information are expired.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier for which information in the cache has
+	 *            changed
+	 */
+	protected void cacheChanged(T id)
+	{
+		CacheDependencyTracker.facetChanged(id, thisClass);
 	}
 
 	/**
@@ -182,8 +207,10 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier #2 cannot be null in areEqualCache");
 		}
-		Set<Class<?>> set1 = CACHE.getSecondaryKeySet(id1);
-		Set<Class<?>> set2 = CACHE.getSecondaryKeySet(id2);
+		Map<Class<?>, Object> cache1 = getContents(id1);
+		Map<Class<?>, Object> cache2 = getContents(id2);
+		Set<Class<?>> set1 = cache1.keySet();
+		Set<Class<?>> set2 = cache2.keySet();
 		if (!set1.equals(set2))
 		{
 			List<Class<?>> l1 = new ArrayList<>(set1);
@@ -195,8 +222,8 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 		}
 		for (Class<?> cl : set1)
 		{
-			Object obj1 = CACHE.get(id1, cl);
-			Object obj2 = CACHE.get(id2, cl);
+			Object obj1 = cache1.get(cl);
+			Object obj2 = cache2.get(cl);
 			String equal = t.testEquality(obj1, obj2, cl + "/");
 			if (equal != null)
 			{
@@ -207,6 +234,13 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 		return true;
 	}
 
+	private static Map<Class<?>, Object> getContents(PCGenIdentifier id)
+	{
+		FacetCache cache = FacetCache.get(id);
+		return cache == null ? Collections.<Class<?>, Object>emptyMap()
+			: cache.asMap();
+	}
+
 	/**
 	 * Returns a read-only view into the cache for a given PCGenIdentifier.
 	 * 
@@ -217,15 +251,16 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 	 * returned Map is transferred to the caller, although since it is
 	 * read-only, that is perhaps only relevant for determining the garbage
 	 * collection time of the decorator that makes the returned Map an
-	 * unmodifiable view into this DoubleKeyMap.
+	 * unmodifiable view into the cache.
 	 * 
-	 * Note that while this is a read-only map, there is no guarantee that this
-	 * returned map is thread-safe. Use in threaded situations with caution.
+	 * The returned map may be read while the cache is changed by another
+	 * thread, but it does not provide a consistent snapshot of the cache.
 	 * 
 	 * @param id
 	 *            The PCGenIdentifier for which a read-only view of the cache
 	 *            should be returned.
-	 * @return A read-only view of the cache for the given PCGenIdentifier
+	 * @return A read-only view of the cache for the given PCGenIdentifier, or
+	 *         null if no cache exists for the given PCGenIdentifier
 	 */
 	public static Map<Class<?>, Object> peekAtCache(PCGenIdentifier id)
 	{
@@ -234,6 +269,25 @@ public abstract class AbstractStorageFacet<T extends PCGenIdentifier>
 			throw new IllegalArgumentException(
 				"PCGenIdentifier cannot be null in peekAtCache");
 		}
-		return CACHE.getReadOnlyMapFor(id);
+		FacetCache cache = FacetCache.get(id);
+		return cache == null ? null : cache.asMap();
+	}
+
+	/**
+	 * Creates the cache for a new PCGenIdentifier, returning a read-only view
+	 * of the cache as described for peekAtCache.
+	 * 
+	 * @param id
+	 *            The PCGenIdentifier for which the cache should be created.
+	 * @return A read-only view of the cache for the given PCGenIdentifier
+	 */
+	public static Map<Class<?>, Object> createCache(PCGenIdentifier id)
+	{
+		if (id == null)
+		{
+			throw new IllegalArgumentException(
+				"PCGenIdentifier cannot be null in createCache");
+		}
+		return FacetCache.getOrCreate(id).asMap();
 	}
 }
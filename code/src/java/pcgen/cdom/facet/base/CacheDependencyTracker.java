@@ -0,0 +1,358 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.cdom.facet.base;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import pcgen.cdom.base.PCGenIdentifier;
+
+/**
+ * A CacheDependencyTracker records the inputs (facets and other named inputs
+ * such as bonus totals) read while a cached value is calculated for a
+ * resource, and the inputs which have changed since. This allows a cached
+ * value to be discarded only when something it was calculated from has
+ * changed, rather than whenever anything about the resource changes.
+ *
+ * A calculation is bracketed by begin and end; every facet read (through
+ * AbstractStorageFacet.getCache) and every input reported through
+ * inputRead in between is recorded against the calculation. Calculations may
+ * nest, in which case the inputs of the inner calculation are also recorded
+ * against the outer one.
+ *
+ * Some reads cannot be tracked: facets which do not report their changes
+ * (only an AbstractDataFacet fires an event for each change), or the contents
+ * of another resource. A calculation which makes such a read is treated as
+ * depending on everything, and is discarded when any change is made.
+ */
+public final class CacheDependencyTracker
+{
+
+	/**
+	 * The trackers for each resource that is tracking dependencies.
+	 */
+	private static final Map<PCGenIdentifier, CacheDependencyTracker> TRACKERS =
+			Collections.synchronizedMap(
+				new WeakHashMap<PCGenIdentifier, CacheDependencyTracker>());
+
+	/**
+	 * The calculations in progress on each thread, innermost first.
+	 */
+	private static final ThreadLocal<ArrayDeque<Dependencies>> FRAMES =
+			ThreadLocal.withInitial(ArrayDeque::new);
+
+	/**
+	 * True once any resource is tracking dependencies, so that facet reads
+	 * can skip all tracking work when no resource is.
+	 */
+	private static volatile boolean enabled = false;
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final Map<Object, Long> versions = new ConcurrentHashMap<>();
+
+	private volatile long lastChange = 0;
+
+	private volatile long lastInvalidation = 0;
+
+	private volatile long lastDirty = 0;
+
+	private CacheDependencyTracker()
+	{
+		// Created through register
+	}
+
+	/**
+	 * Starts tracking the dependencies of values cached for the given
+	 * resource.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource
+	 * @return The CacheDependencyTracker for the resource
+	 */
+	public static CacheDependencyTracker register(PCGenIdentifier id)
+	{
+		CacheDependencyTracker tracker = new CacheDependencyTracker();
+		TRACKERS.put(id, tracker);
+		enabled = true;
+		return tracker;
+	}
+
+	/**
+	 * Records that the given facet has been read for the given resource.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource
+	 * @param facet
+	 *            The class of the facet which was read
+	 * @param reportsChanges
+	 *            true if every change to the facet is reported through
+	 *            inputChanged
+	 */
+	static void facetRead(PCGenIdentifier id, Class<?> facet,
+		boolean reportsChanges)
+	{
+		if (enabled)
+		{
+			Dependencies current = FRAMES.get().peek();
+			if (current != null)
+			{
+				current.read(id, reportsChanges ? facet : null);
+			}
+		}
+	}
+
+	/**
+	 * Records that the given facet has changed for the given resource.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource
+	 * @param facet
+	 *            The class of the facet which was changed
+	 */
+	static void facetChanged(PCGenIdentifier id, Class<?> facet)
+	{
+		if (enabled)
+		{
+			CacheDependencyTracker tracker = TRACKERS.get(id);
+			if (tracker != null)
+			{
+				tracker.inputChanged(facet);
+			}
+		}
+	}
+
+	/**
+	 * Records that an input other than a facet has been read for the given
+	 * resource. Changes to the input must be reported to inputChanged.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource
+	 * @param input
+	 *            The input which was read
+	 */
+	public static void inputRead(PCGenIdentifier id, Object input)
+	{
+		if (enabled)
+		{
+			Dependencies current = FRAMES.get().peek();
+			if (current != null)
+			{
+				current.read(id, input);
+			}
+		}
+	}
+
+	/**
+	 * Records that information about the given resource has been read whose
+	 * changes are not reported to the tracker.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource
+	 */
+	public static void untrackedRead(PCGenIdentifier id)
+	{
+		inputRead(id, null);
+	}
+
+	/**
+	 * Records that the value of a previously cached calculation has been used
+	 * by the current calculation, so that the current calculation also
+	 * depends on its inputs.
+	 *
+	 * @param dependencies
+	 *            The Dependencies of the cached calculation
+	 */
+	public static void reuse(Dependencies dependencies)
+	{
+		if (enabled)
+		{
+			Dependencies current = FRAMES.get().peek();
+			if (current != null)
+			{
+				current.merge(dependencies);
+			}
+		}
+	}
+
+	/**
+	 * Starts recording the inputs of a calculation for the given resource.
+	 * Every call to begin must be matched by a call to end.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource
+	 * @return The Dependencies in which the inputs of the calculation will be
+	 *         recorded
+	 */
+	public Dependencies begin(PCGenIdentifier id)
+	{
+		Dependencies dependencies = new Dependencies(id, clock.get());
+		FRAMES.get().push(dependencies);
+		return dependencies;
+	}
+
+	/**
+	 * Stops recording the inputs of a calculation. The inputs are also
+	 * recorded against any enclosing calculation.
+	 *
+	 * @param dependencies
+	 *            The Dependencies returned by the matching call to begin
+	 */
+	public void end(Dependencies dependencies)
+	{
+		ArrayDeque<Dependencies> frames = FRAMES.get();
+		if (!frames.remove(dependencies))
+		{
+			return;
+		}
+		Dependencies outer = frames.peek();
+		if (outer != null)
+		{
+			outer.merge(dependencies);
+		}
+	}
+
+	/**
+	 * Checks whether none of the inputs of a calculation have changed since
+	 * it was made.
+	 *
+	 * @param dependencies
+	 *            The Dependencies of the calculation
+	 * @return true if the result of the calculation is still current
+	 */
+	public boolean isCurrent(Dependencies dependencies)
+	{
+		long stamp = dependencies.stamp;
+		if (lastInvalidation > stamp)
+		{
+			return false;
+		}
+		if (dependencies.untracked)
+		{
+			return lastChange <= stamp;
+		}
+		for (Object input : dependencies.inputs)
+		{
+			Long version = versions.get(input);
+			if (version != null && version > stamp)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Records that the given input has changed, so any calculation which read
+	 * it is no longer current.
+	 *
+	 * @param input
+	 *            The input which has changed
+	 */
+	public void inputChanged(Object input)
+	{
+		long version = clock.incrementAndGet();
+		versions.put(input, version);
+		lastChange = version;
+	}
+
+	/**
+	 * Records that the resource has changed in an unknown way, so no
+	 * calculation is current.
+	 */
+	public void invalidateAll()
+	{
+		long version = clock.incrementAndGet();
+		lastInvalidation = version;
+		lastChange = version;
+	}
+
+	/**
+	 * Records that the resource has been marked as changed. If no change has
+	 * been reported since the resource was last marked as changed, the
+	 * change was not made through a tracked input and so no calculation is
+	 * treated as current.
+	 */
+	public void markDirty()
+	{
+		if (lastChange <= lastDirty)
+		{
+			invalidateAll();
+		}
+		lastDirty = clock.get();
+	}
+
+	/**
+	 * Dependencies holds the inputs read by a single calculation.
+	 */
+	public static final class Dependencies
+	{
+		private final PCGenIdentifier id;
+		private final long stamp;
+		private final Set<Object> inputs = new HashSet<>();
+		private boolean untracked = false;
+
+		private Dependencies(PCGenIdentifier id, long stamp)
+		{
+			this.id = id;
+			this.stamp = stamp;
+		}
+
+		/**
+		 * Identifies if the calculation read anything whose changes are not
+		 * reported to the tracker. The result of such a calculation should be
+		 * expired by other means, such as a serial number.
+		 *
+		 * @return true if not all inputs of the calculation were tracked
+		 */
+		public boolean isUntracked()
+		{
+			return untracked;
+		}
+
+		private void read(PCGenIdentifier readId, Object input)
+		{
+			if (input == null || readId != id)
+			{
+				untracked = true;
+			}
+			else if (!untracked)
+			{
+				inputs.add(input);
+			}
+		}
+
+		private void merge(Dependencies other)
+		{
+			if (other.untracked || other.id != id)
+			{
+				untracked = true;
+			}
+			else if (!untracked)
+			{
+				inputs.addAll(other.inputs);
+			}
+		}
+	}
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.cdom.facet.base;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import pcgen.cdom.base.PCGenIdentifier;
+
+/**
+ * A FacetCache holds the contents of every facet for a single resource (e.g. a
+ * character), identified by a PCGenIdentifier.
+ *
+ * Each facet class is given an ordinal when it is first registered, and the
+ * contents of the facet are held at that position in a dense array. This means
+ * a facet can find its contents for a resource with a single array access once
+ * the FacetCache of the resource is known.
+ *
+ * The FacetCache objects are held weakly by their PCGenIdentifier (as the
+ * previous WeakHashMap did), in a hash table which can safely be used by many
+ * threads at once. The table is searched by the identity of the
+ * PCGenIdentifier, so finding the FacetCache of a resource neither locks nor
+ * creates any objects. Changes to the contents of one FacetCache are
+ * synchronized on that FacetCache only, so different resources can be
+ * processed on different threads without contention. Reads do not lock.
+ */
+final class FacetCache
+{
+
+	/**
+	 * The ordinal of each registered facet class.
+	 */
+	private static final ConcurrentMap<Class<?>, Integer> ORDINALS =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * The registered facet classes, in ordinal order.
+	 */
+	private static final List<Class<?>> FACET_CLASSES =
+			new CopyOnWriteArrayList<>();
+
+	/**
+	 * The FacetCache of each resource, in buckets by the identity hash code of
+	 * the PCGenIdentifier of the resource. Each bucket is a chain of entries
+	 * which is never changed once it is in the table (a changed chain is
+	 * copied), so the table can be searched without locking. The table is
+	 * only changed while holding the lock on DISCARDED.
+	 */
+	private static volatile AtomicReferenceArray<Entry> table =
+			new AtomicReferenceArray<>(64);
+
+	/**
+	 * The number of entries in the table. Guarded by the lock on DISCARDED.
+	 */
+	private static int entryCount = 0;
+
+	/**
+	 * The references to PCGenIdentifiers which are no longer in use, and whose
+	 * FacetCache can be discarded.
+	 */
+	private static final ReferenceQueue<PCGenIdentifier> DISCARDED =
+			new ReferenceQueue<>();
+
+	private volatile AtomicReferenceArray<Object> contents;
+
+	private FacetCache()
+	{
+		contents = new AtomicReferenceArray<>(Math.max(FACET_CLASSES.size(), 1));
+	}
+
+	/**
+	 * Returns the ordinal for the given facet class, registering the class if
+	 * it has not yet been registered.
+	 *
+	 * @param facetClass
+	 *            The class of the facet
+	 * @return The ordinal of the facet class
+	 */
+	static int getOrdinal(Class<?> facetClass)
+	{
+		Integer ordinal = ORDINALS.get(facetClass);
+		if (ordinal == null)
+		{
+			synchronized (FACET_CLASSES)
+			{
+				ordinal = ORDINALS.get(facetClass);
+				if (ordinal == null)
+				{
+					ordinal = FACET_CLASSES.size();
+					FACET_CLASSES.add(facetClass);
+					ORDINALS.put(facetClass, ordinal);
+				}
+			}
+		}
+		return ordinal;
+	}
+
+	/**
+	 * Returns the FacetCache for the given resource.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource
+	 * @return The FacetCache for the resource, or null if nothing has been
+	 *         stored for the resource
+	 */
+	static FacetCache get(PCGenIdentifier id)
+	{
+		int hash = System.identityHashCode(id);
+		AtomicReferenceArray<Entry> buckets = table;
+		for (Entry e = buckets.get(hash & (buckets.length() - 1)); e != null;
+				e = e.next)
+		{
+			if (e.hash == hash && e.get() == id)
+			{
+				return e.cache;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the FacetCache for the given resource, creating it if necessary.
+	 *
+	 * @param id
+	 *            The PCGenIdentifier of the resource
+	 * @return The FacetCache for the resource
+	 */
+	static FacetCache getOrCreate(PCGenIdentifier id)
+	{
+		FacetCache cache = get(id);
+		if (cache == null)
+		{
+			synchronized (DISCARDED)
+			{
+				expungeDiscarded();
+				cache = get(id);
+				if (cache == null)
+				{
+					AtomicReferenceArray<Entry> buckets = table;
+					if (entryCount >= buckets.length() * 3 / 4)
+					{
+						buckets = resize(buckets);
+					}
+					cache = new FacetCache();
+					int hash = System.identityHashCode(id);
+					int index = hash & (buckets.length() - 1);
+					buckets.set(index,
+						new Entry(id, hash, cache, buckets.get(index)));
+					entryCount++;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Removes the entries of the PCGenIdentifiers which are no longer in use.
+	 * Must be called while holding the lock on DISCARDED.
+	 */
+	private static void expungeDiscarded()
+	{
+		AtomicReferenceArray<Entry> buckets = table;
+		Reference<? extends PCGenIdentifier> ref;
+		while ((ref = DISCARDED.poll()) != null)
+		{
+			int index = ((Entry) ref).hash & (buckets.length() - 1);
+			Entry kept = null;
+			for (Entry e = buckets.get(index); e != null; e = e.next)
+			{
+				PCGenIdentifier id = e.get();
+				if (id == null)
+				{
+					entryCount--;
+				}
+				else
+				{
+					kept = new Entry(id, e.hash, e.cache, kept);
+				}
+			}
+			buckets.set(index, kept);
+		}
+	}
+
+	/**
+	 * Replaces the table with one twice the size. Must be called while holding
+	 * the lock on DISCARDED.
+	 */
+	private static AtomicReferenceArray<Entry> resize(
+		AtomicReferenceArray<Entry> buckets)
+	{
+		AtomicReferenceArray<Entry> grown =
+				new AtomicReferenceArray<>(buckets.length() * 2);
+		entryCount = 0;
+		for (int i = 0; i < buckets.length(); i++)
+		{
+			for (Entry e = buckets.get(i); e != null; e = e.next)
+			{
+				PCGenIdentifier id = e.get();
+				if (id != null)
+				{
+					int index = e.hash & (grown.length() - 1);
+					grown.set(index,
+						new Entry(id, e.hash, e.cache, grown.get(index)));
+					entryCount++;
+				}
+			}
+		}
+		table = grown;
+		return grown;
+	}
+
+	/**
+	 * Returns the contents of the facet with the given ordinal.
+	 *
+	 * @param ordinal
+	 *            The ordinal of the facet class
+	 * @return The contents of the facet, or null if there are none
+	 */
+	Object get(int ordinal)
+	{
+		AtomicReferenceArray<Object> array = contents;
+		return ordinal < array.length() ? array.get(ordinal) : null;
+	}
+
+	/**
+	 * Sets the contents of the facet with the given ordinal.
+	 *
+	 * @param ordinal
+	 *            The ordinal of the facet class
+	 * @param o
+	 *            The new contents of the facet
+	 * @return The previous contents of the facet, or null if there were none
+	 */
+	synchronized Object put(int ordinal, Object o)
+	{
+		AtomicReferenceArray<Object> array = contents;
+		if (ordinal >= array.length())
+		{
+			int length =
+					Math.max(FACET_CLASSES.size(),
+						Math.max(ordinal + 1, array.length() * 2));
+			AtomicReferenceArray<Object> grown =
+					new AtomicReferenceArray<>(length);
+			for (int i = 0; i < array.length(); i++)
+			{
+				grown.set(i, array.get(i));
+			}
+			contents = grown;
+			array = grown;
+		}
+		return array.getAndSet(ordinal, o);
+	}
+
+	/**
+	 * Removes the contents of the facet with the given ordinal.
+	 *
+	 * @param ordinal
+	 *            The ordinal of the facet class
+	 * @return The previous contents of the facet, or null if there were none
+	 */
+	synchronized Object remove(int ordinal)
+	{
+		AtomicReferenceArray<Object> array = contents;
+		return ordinal < array.length() ? array.getAndSet(ordinal, null)
+			: null;
+	}
+
+	/**
+	 * Returns a read-only view of the contents of this FacetCache, keyed by
+	 * facet class. The view reflects later changes to the FacetCache.
+	 *
+	 * @return A read-only view of the contents of this FacetCache
+	 */
+	Map<Class<?>, Object> asMap()
+	{
+		return new ContentsView();
+	}
+
+	/**
+	 * A read-only Map view of the contents of the FacetCache.
+	 */
+	private final class ContentsView extends AbstractMap<Class<?>, Object>
+	{
+		@Override
+		public Object get(Object key)
+		{
+			Integer ordinal = ORDINALS.get(key);
+			return ordinal == null ? null : FacetCache.this.get(ordinal);
+		}
+
+		@Override
+		public boolean containsKey(Object key)
+		{
+			return get(key) != null;
+		}
+
+		@Override
+		public Set<Map.Entry<Class<?>, Object>> entrySet()
+		{
+			return new AbstractSet<Map.Entry<Class<?>, Object>>()
+			{
+				@Override
+				public Iterator<Map.Entry<Class<?>, Object>> iterator()
+				{
+					List<Map.Entry<Class<?>, Object>> entries =
+							new ArrayList<>();
+					AtomicReferenceArray<Object> array = contents;
+					for (int i = 0; i < array.length(); i++)
+					{
+						Object o = array.get(i);
+						if (o != null)
+						{
+							entries.add(new SimpleImmutableEntry<Class<?>, Object>(
+								FACET_CLASSES.get(i), o));
+						}
+					}
+					return Collections.unmodifiableList(entries).iterator();
+				}
+
+				@Override
+				public int size()
+				{
+					int size = 0;
+					AtomicReferenceArray<Object> array = contents;
+					for (int i = 0; i < array.length(); i++)
+					{
+						if (array.get(i) != null)
+						{
+							size++;
+						}
+					}
+					return size;
+				}
+			};
+		}
+	}
+
+	/**
+	 * An entry in the table of FacetCache objects, holding the PCGenIdentifier
+	 * of the resource weakly.
+	 */
+	private static final class Entry extends WeakReference<PCGenIdentifier>
+	{
+		private final int hash;
+
+		private final FacetCache cache;
+
+		private final Entry next;
+
+		private Entry(PCGenIdentifier id, int hash, FacetCache cache,
+			Entry next)
+		{
+			super(id, DISCARDED);
+			this.hash = hash;
+			this.cache = cache;
+			this.next = next;
+		}
+	}
+}
@@ -115,6 +115,7 @@ public class ClassFacet extends AbstractDataFacet<CharID, PCClass> implements
 		}
 		PCClassLevel old = info.getClassLevel(pcc, pcl.get(IntegerKey.LEVEL));
 		boolean returnVal = info.setClassLevel(pcc, pcl);
+		cacheChanged(id);
 		support.fireClassLevelObjectChangeEvent(id, pcc, old, pcl);
 		return returnVal;
 	}
@@ -228,6 +229,7 @@ public class ClassFacet extends AbstractDataFacet<CharID, PCClass> implements
 		if (info != null)
 		{
 			info.replace(oldClass, newClass);
+			cacheChanged(id);
 		}
 	}
 
@@ -335,6 +337,7 @@ public class ClassFacet extends AbstractDataFacet<CharID, PCClass> implements
 	public void setLevel(CharID id, PCClass pcc, int level)
 	{
 		int oldLevel = getConstructingClassInfo(id).setLevel(pcc, level);
+		cacheChanged(id);
 		support.fireClassLevelChangeEvent(id, pcc, oldLevel, level);
 	}
 
@@ -55,6 +55,13 @@ public final class VariableChannel<T> implements VariableListener<T>,
 	 */
 	private final MonitorableVariableStore varStore;
 
+	/**
+	 * Run before the variable is read or written, so that any changes held
+	 * back from the AggressiveSolverManager (e.g. while solving is deferred)
+	 * have been applied.
+	 */
+	private final Runnable flush;
+
 	/**
 	 * The list of listeners that listen to this VariableChannel for
 	 * ReferenceEvents.
@@ -75,13 +82,17 @@ public final class VariableChannel<T> implements VariableListener<T>,
 	 * @param varID
 	 *            The VariableID indicating to which Variable this
 	 *            VariableChannel is providing an interface
+	 * @param flush
+	 *            Run before the variable is read or written, so that changes
+	 *            held back from the AggressiveSolverManager are applied
 	 */
 	private VariableChannel(AggressiveSolverManager manager,
-		MonitorableVariableStore varStore, VariableID<T> varID)
+		MonitorableVariableStore varStore, VariableID<T> varID, Runnable flush)
 	{
 		this.manager = Objects.requireNonNull(manager);
 		this.varStore = Objects.requireNonNull(varStore);
 		this.varID = Objects.requireNonNull(varID);
+		this.flush = Objects.requireNonNull(flush);
 	}
 
 	@Override
@@ -94,6 +105,7 @@ public final class VariableChannel<T> implements VariableListener<T>,
 	@Override
 	public T get()
 	{
+		flush.run();
 		T value = varStore.get(varID);
 		if (value == null)
 		{
@@ -105,6 +117,7 @@ public final class VariableChannel<T> implements VariableListener<T>,
 	@Override
 	public void set(T object)
 	{
+		flush.run();
 		varStore.put(varID, object);
 		manager.solveChildren(varID);
 	}
@@ -177,9 +190,39 @@ public final class VariableChannel<T> implements VariableListener<T>,
 	public static <T> VariableChannel<T> construct(
 		AggressiveSolverManager manager, MonitorableVariableStore varStore,
 		VariableID<T> varID)
+	{
+		return construct(manager, varStore, varID, () -> {
+		});
+	}
+
+	/**
+	 * Constructs a new VariableChannel as construct(AggressiveSolverManager,
+	 * MonitorableVariableStore, VariableID) does, for a variable whose
+	 * changes may be held back from the AggressiveSolverManager. The given
+	 * Runnable is run before each read or write through the returned
+	 * VariableChannel, and must apply any changes which are held back.
+	 * 
+	 * @param manager
+	 *            The underlying AggressiveSolverManager that solves the given
+	 *            VariableID
+	 * @param varStore
+	 *            The MonitorableVariableStore that the results of the
+	 *            calculations by the AggressiveSolverManager are placed in
+	 * @param varID
+	 *            The VariableID indicating to which Variable this
+	 *            VariableChannel is providing an interface
+	 * @param flush
+	 *            Applies the changes held back from the
+	 *            AggressiveSolverManager
+	 * @return A new VariableChannel linked as a listener to the given
+	 *         MonitorableVariableStore for the given VariableID
+	 */
+	public static <T> VariableChannel<T> construct(
+		AggressiveSolverManager manager, MonitorableVariableStore varStore,
+		VariableID<T> varID, Runnable flush)
 	{
 		VariableChannel<T> ref =
-				new VariableChannel<>(manager, varStore, varID);
+				new VariableChannel<>(manager, varStore, varID, flush);
 		varStore.addVariableListener(varID, ref);
 		return ref;
 	}
@@ -20,7 +20,9 @@ package pcgen.cdom.reference;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -39,6 +41,7 @@ import pcgen.cdom.base.CDOMObject;
 import pcgen.cdom.base.CDOMReference;
 import pcgen.cdom.base.Loadable;
 import pcgen.cdom.content.RollMethod;
+import pcgen.cdom.enumeration.Type;
 import pcgen.util.Logging;
 import pcgen.util.StringPClassUtil;
 
@@ -330,40 +333,128 @@ public abstract class AbstractReferenceManufacturer<T extends Loadable>
 
 	private boolean resolveGroupReferences()
 	{
-		for (T obj : getAllObjects())
+		List<T> objects = new ArrayList<>(getAllObjects());
+		if (allRef != null)
 		{
-			if (allRef != null)
+			for (T obj : objects)
 			{
 				allRef.addResolution(obj);
 			}
-			for (Map.Entry<FixedStringList, WeakReference<CDOMGroupRef<T>>> me : typeReferences
-					.entrySet())
+		}
+		if (!typeReferences.isEmpty())
+		{
+			resolveTypeReferences(objects);
+		}
+		if (allRef != null && allRef.getObjectCount() == 0)
+		{
+			Logging.errorPrint("Error: No " + factory.getReferenceDescription()
+					+ " objects were loaded but were referred to in the data");
+			fireUnconstuctedEvent(allRef);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Resolves the type references against the given objects. The types of
+	 * the objects are indexed so that the objects matching a type reference
+	 * are found by intersecting the objects of each type, rather than by
+	 * checking every object against every type reference. Objects whose
+	 * isType does more than check a list of types are checked one by one.
+	 * 
+	 * The index is built here rather than as objects are constructed, since
+	 * the types of an object may be changed (e.g. by .MOD) at any time until
+	 * the references are resolved.
+	 */
+	private void resolveTypeReferences(List<T> objects)
+	{
+		Map<Type, BitSet> typeIndex = new HashMap<>();
+		BitSet unindexed = new BitSet(objects.size());
+		for (int i = 0; i < objects.size(); i++)
+		{
+			T obj = objects.get(i);
+			Collection<Type> types = obj instanceof CDOMObject
+				? ((CDOMObject) obj).getIndexableTypes() : null;
+			if (types != null)
 			{
-				CDOMGroupRef<T> trt = me.getValue().get();
-				if (trt != null)
+				for (Type type : types)
 				{
-					boolean typeOkay = true;
-					for (String type : me.getKey())
-					{
-						if (!obj.isType(type))
-						{
-							typeOkay = false;
-							break;
-						}
-					}
-					if (typeOkay)
+					BitSet typeObjects = typeIndex.get(type);
+					if (typeObjects == null)
 					{
-						trt.addResolution(obj);
+						typeObjects = new BitSet(objects.size());
+						typeIndex.put(type, typeObjects);
 					}
+					typeObjects.set(i);
 				}
 			}
+			else
+			{
+				unindexed.set(i);
+			}
 		}
-		if (allRef != null && allRef.getObjectCount() == 0)
+
+		for (Map.Entry<FixedStringList, WeakReference<CDOMGroupRef<T>>> me : typeReferences
+				.entrySet())
 		{
-			Logging.errorPrint("Error: No " + factory.getReferenceDescription()
-					+ " objects were loaded but were referred to in the data");
-			fireUnconstuctedEvent(allRef);
-			return false;
+			CDOMGroupRef<T> trt = me.getValue().get();
+			if (trt == null)
+			{
+				continue;
+			}
+			BitSet matches = getIndexedMatches(me.getKey(), typeIndex, unindexed,
+				objects.size());
+			matches.or(unindexed);
+			for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1))
+			{
+				T obj = objects.get(i);
+				if (!unindexed.get(i) || isAllTypes(obj, me.getKey()))
+				{
+					trt.addResolution(obj);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the indexed objects which have all of the given types.
+	 */
+	private static BitSet getIndexedMatches(FixedStringList types,
+		Map<Type, BitSet> typeIndex, BitSet unindexed, int size)
+	{
+		BitSet matches = new BitSet(size);
+		matches.set(0, size);
+		matches.andNot(unindexed);
+		for (String type : types)
+		{
+			List<Type> required = CDOMObject.getRequiredTypes(type);
+			if (required == null)
+			{
+				matches.clear();
+				return matches;
+			}
+			for (Type requiredType : required)
+			{
+				BitSet typeObjects = typeIndex.get(requiredType);
+				if (typeObjects == null)
+				{
+					matches.clear();
+					return matches;
+				}
+				matches.and(typeObjects);
+			}
+		}
+		return matches;
+	}
+
+	private static boolean isAllTypes(Loadable obj, FixedStringList types)
+	{
+		for (String type : types)
+		{
+			if (!obj.isType(type))
+			{
+				return false;
+			}
 		}
 		return true;
 	}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import pcgen.base.util.WrappedMapSet;
+import pcgen.core.bonus.BonusObj;
+import pcgen.util.Logging;
+
+/**
+ * BonusDependencyGraph records which of a set of active bonuses each bonus
+ * depends on, and from that an order in which the bonuses can be evaluated
+ * so that every bonus is evaluated after the bonuses it depends on.
+ *
+ * <p>
+ * A bonus depends on another bonus if the formula of the first refers to the
+ * info or the name of the second (see BonusObj.getDependsOnKeys()). Where
+ * bonuses depend on each other in a loop, the loop is broken at the point it
+ * is found and the bonuses in the loop are evaluated once each; the
+ * surrounding calculation of the active bonuses is repeated until the values
+ * settle.
+ *
+ * <p>
+ * The graph is immutable once built, and is reused for as long as the active
+ * bonus list of the character does not change.
+ */
+final class BonusDependencyGraph
+{
+	private final Set<BonusObj> bonuses;
+
+	private final List<BonusObj> evaluationOrder;
+
+	/**
+	 * Builds the dependency graph of the given bonuses.
+	 *
+	 * @param activeBonuses
+	 *            The active bonuses of a character
+	 */
+	BonusDependencyGraph(Collection<BonusObj> activeBonuses)
+	{
+		bonuses = new WrappedMapSet<>(IdentityHashMap.class);
+		bonuses.addAll(activeBonuses);
+
+		// Index each bonus by the keys through which other bonuses may depend
+		// on it, so the dependencies of a bonus can be found without
+		// examining every other bonus
+		Map<String, List<BonusObj>> providers = new HashMap<>();
+		final Map<BonusObj, Integer> position = new IdentityHashMap<>();
+		for (BonusObj bonus : activeBonuses)
+		{
+			position.put(bonus, position.size());
+			for (String info : bonus.getUnparsedBonusInfoList())
+			{
+				addProvider(providers, info, bonus);
+			}
+			addProvider(providers, "NAME|" + bonus.getBonusName(), bonus); //$NON-NLS-1$
+		}
+
+		Map<BonusObj, List<BonusObj>> dependencies = new IdentityHashMap<>();
+		for (BonusObj bonus : activeBonuses)
+		{
+			Set<BonusObj> dependsOn = null;
+			for (String key : bonus.getDependsOnKeys())
+			{
+				List<BonusObj> keyProviders = providers.get(key);
+				if (keyProviders != null)
+				{
+					if (dependsOn == null)
+					{
+						dependsOn = new WrappedMapSet<>(IdentityHashMap.class);
+					}
+					dependsOn.addAll(keyProviders);
+				}
+			}
+			if (dependsOn != null)
+			{
+				// Keep the dependencies in the order of the active bonus list
+				List<BonusObj> ordered = new ArrayList<>(dependsOn);
+				Collections.sort(ordered,
+					(a, b) -> position.get(a).compareTo(position.get(b)));
+				dependencies.put(bonus, ordered);
+			}
+		}
+
+		List<BonusObj> order = new ArrayList<>(activeBonuses.size());
+		Set<BonusObj> visited = new WrappedMapSet<>(IdentityHashMap.class);
+		Set<BonusObj> inProgress = new WrappedMapSet<>(IdentityHashMap.class);
+		for (BonusObj bonus : activeBonuses)
+		{
+			visit(bonus, dependencies, visited, inProgress, order);
+		}
+		evaluationOrder = Collections.unmodifiableList(order);
+	}
+
+	private static void addProvider(Map<String, List<BonusObj>> providers,
+		String key, BonusObj bonus)
+	{
+		List<BonusObj> list = providers.get(key);
+		if (list == null)
+		{
+			list = new ArrayList<>(2);
+			providers.put(key, list);
+		}
+		list.add(bonus);
+	}
+
+	/**
+	 * Adds the given bonus to the evaluation order after all the bonuses it
+	 * depends on.
+	 */
+	private static void visit(BonusObj bonus,
+		Map<BonusObj, List<BonusObj>> dependencies, Set<BonusObj> visited,
+		Set<BonusObj> inProgress, List<BonusObj> order)
+	{
+		if (visited.contains(bonus))
+		{
+			return;
+		}
+		if (inProgress.contains(bonus))
+		{
+			// Make sure we don't get into an infinite loop - can occur due to
+			// LST coding or best guess dependancy mapping
+			if (Logging.isDebugMode())
+			{
+				Logging.log(Logging.DEBUG, "Ignoring bonus loop for " //$NON-NLS-1$
+					+ bonus + " as it is already being processed. Depend map is " //$NON-NLS-1$
+					+ bonus.listDependsMap());
+			}
+			return;
+		}
+		inProgress.add(bonus);
+		List<BonusObj> dependsOn = dependencies.get(bonus);
+		if (dependsOn != null)
+		{
+			for (BonusObj other : dependsOn)
+			{
+				visit(other, dependencies, visited, inProgress, order);
+			}
+		}
+		inProgress.remove(bonus);
+		visited.add(bonus);
+		order.add(bonus);
+	}
+
+	/**
+	 * Checks if this graph was built from the given active bonuses.
+	 *
+	 * @param activeBonuses
+	 *            The current active bonuses of the character
+	 * @return true if this graph is for exactly the given bonuses
+	 */
+	boolean isFor(Collection<BonusObj> activeBonuses)
+	{
+		if (activeBonuses.size() != bonuses.size())
+		{
+			return false;
+		}
+		for (BonusObj bonus : activeBonuses)
+		{
+			if (!bonuses.contains(bonus))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the bonuses of this graph in an order where each bonus follows
+	 * the bonuses it depends on.
+	 *
+	 * @return The bonuses in evaluation order
+	 */
+	List<BonusObj> getEvaluationOrder()
+	{
+		return evaluationOrder;
+	}
+}
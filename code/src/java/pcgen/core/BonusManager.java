@@ -40,6 +40,7 @@ import pcgen.cdom.base.BonusContainer;
 import pcgen.cdom.base.CDOMObject;
 import pcgen.cdom.base.Constants;
 import pcgen.cdom.base.FormulaFactory;
+import pcgen.cdom.facet.base.CacheDependencyTracker;
 import pcgen.cdom.enumeration.StringKey;
 import pcgen.core.analysis.ChooseActivation;
 import pcgen.core.bonus.BonusObj;
@@ -69,7 +70,7 @@ public class BonusManager
 	private static final List<String> NO_ASSOC_LIST = Collections
 			.singletonList("");
 
-	private Map<String, String> activeBonusMap = new ConcurrentHashMap<>();
+	private BonusTable activeBonusMap = new BonusTable();
 
 	private Map<String, Double> cachedActiveBonusSumsMap = new ConcurrentHashMap<>();
 
@@ -80,13 +81,68 @@ public class BonusManager
 	private Set<String> tempBonusFilters = new TreeSet<>();
 
 	private final PlayerCharacter pc;
-	private Map<String, String> checkpointMap;
+	private BonusTable checkpointMap;
+	private BonusDependencyGraph dependencyGraph;
+	private CacheDependencyTracker dependencyTracker;
+	private boolean building = false;
 
 	public BonusManager(PlayerCharacter p)
 	{
 		pc = p;
 	}
 
+	/**
+	 * Set the tracker to which reads of, and changes to, the bonus totals
+	 * are reported. Bonus totals are identified to the tracker by their
+	 * upper case bonus name and info, e.g. COMBAT.AC
+	 *
+	 * @param tracker
+	 *            The tracker for the character, or null if dependencies are
+	 *            not tracked
+	 */
+	void setDependencyTracker(CacheDependencyTracker tracker)
+	{
+		dependencyTracker = tracker;
+	}
+
+	/**
+	 * Report a read of the totals for the given bonus to the dependency
+	 * tracker. While the bonuses are being built the totals are incomplete,
+	 * so such a read cannot be tracked by bonus.
+	 * 
+	 * @param fullyQualifiedBonusType
+	 *            The upper case bonus being read e.g. COMBAT.AC:LUCK
+	 */
+	private void trackBonusRead(String fullyQualifiedBonusType)
+	{
+		if (dependencyTracker != null)
+		{
+			if (building)
+			{
+				CacheDependencyTracker.untrackedRead(pc.getCharID());
+			}
+			else
+			{
+				int typeIndex = fullyQualifiedBonusType.indexOf(':');
+				CacheDependencyTracker.inputRead(pc.getCharID(),
+					typeIndex < 0 ? fullyQualifiedBonusType
+						: fullyQualifiedBonusType.substring(0, typeIndex));
+			}
+		}
+	}
+
+	/**
+	 * Report a read of bonus information which cannot be tracked by bonus to
+	 * the dependency tracker.
+	 */
+	private void trackUntrackedRead()
+	{
+		if (dependencyTracker != null)
+		{
+			CacheDependencyTracker.untrackedRead(pc.getCharID());
+		}
+	}
+
 	/**
 	 * @param fullyQualifiedBonusType
 	 * @return Total bonus for prefix from the activeBonus HashMap
@@ -101,111 +157,13 @@ public class BonusManager
 		}
 			
 		fullyQualifiedBonusType = fullyQualifiedBonusType.toUpperCase();
+		trackBonusRead(fullyQualifiedBonusType);
 		if (cachedActiveBonusSumsMap.containsKey(fullyQualifiedBonusType))
 		{
 			return cachedActiveBonusSumsMap.get(fullyQualifiedBonusType);
 		}
 
-		final List<String> aList = new ArrayList<>();
-
-		for (String fullyQualifedCurrentBonus : activeBonusMap.keySet())
-		{
-			// aKey is either of the form:
-			// COMBAT.AC
-			// or
-			// COMBAT.AC:Luck
-			// or
-			// COMBAT.AC:Armor.REPLACE
-			if (aList.contains(fullyQualifedCurrentBonus))
-			{
-				continue;
-			}
-
-			if (fullyQualifedCurrentBonus == null)
-			{
-				Logging.errorPrint("null BONUS: loaded into activeBonusMap. "
-					+ fullyQualifiedBonusType + " was requested");
-				continue;
-			}
-
-			String currentTypedBonusNameInfo = fullyQualifedCurrentBonus;
-
-			// rString could be something like:
-			// COMBAT.AC:Armor.REPLACE
-			// So need to remove the .STACK or .REPLACE
-			// to get a match for prefix like: COMBAT.AC:Armor
-			if (currentTypedBonusNameInfo.endsWith(".STACK"))
-			{
-				currentTypedBonusNameInfo = currentTypedBonusNameInfo.substring(0, currentTypedBonusNameInfo.length() - 6);
-			}
-			else if (currentTypedBonusNameInfo.endsWith(".REPLACE"))
-			{
-				currentTypedBonusNameInfo = currentTypedBonusNameInfo.substring(0, currentTypedBonusNameInfo.length() - 8);
-			}
-
-			if (currentTypedBonusNameInfo == null)
-			{
-				Logging.errorPrint("Unable to process BONUS: "
-					+ fullyQualifedCurrentBonus + " when "
-					+ fullyQualifiedBonusType + " was requested");
-				continue;
-			}
-			
-			// if prefix is of the form:
-			// COMBAT.AC
-			// then is must match rstring:
-			// COMBAT.AC
-			// COMBAT.AC:Luck
-			// COMBAT.AC:Armor.REPLACE
-			// However, it must not match
-			// COMBAT.ACCHECK
-			if ((currentTypedBonusNameInfo.length() > fullyQualifiedBonusType.length())
-					&& !currentTypedBonusNameInfo.startsWith(fullyQualifiedBonusType + ":"))
-			{
-				continue;
-			}
-
-			if (currentTypedBonusNameInfo.startsWith(fullyQualifiedBonusType))
-			{
-				aList.add(currentTypedBonusNameInfo);
-				aList.add(currentTypedBonusNameInfo + ".STACK");
-				aList.add(currentTypedBonusNameInfo + ".REPLACE");
-
-				final double aBonus = getActiveBonusForMapKey(currentTypedBonusNameInfo,
-						Double.NaN);
-				final double replaceBonus = getActiveBonusForMapKey(currentTypedBonusNameInfo
-						+ ".REPLACE", Double.NaN);
-				final double stackBonus = getActiveBonusForMapKey(currentTypedBonusNameInfo
-						+ ".STACK", 0);
-				//
-				// Using NaNs in order to be able to get the max
-				// between an undefined bonus and a negative
-				//
-				if (Double.isNaN(aBonus)) // no bonusKey
-				{
-					if (!Double.isNaN(replaceBonus))
-					{
-						// no bonusKey, but there
-						// is a replaceKey
-						bonus += replaceBonus;
-					}
-				}
-				else if (Double.isNaN(replaceBonus))
-				{
-					// is a bonusKey and no replaceKey
-					bonus += aBonus;
-				}
-				else
-				{
-					// is a bonusKey and a replaceKey
-					bonus += Math.max(aBonus, replaceBonus);
-				}
-
-				// always add stackBonus
-				bonus += stackBonus;
-			}
-		}
-		
+		bonus = activeBonusMap.sum(fullyQualifiedBonusType);
 		cachedActiveBonusSumsMap.put(fullyQualifiedBonusType, bonus);
 		return bonus;
 	}
@@ -221,16 +179,8 @@ public class BonusManager
 	private double getActiveBonusForMapKey(String fullyQualifiedBonusType,
 			final double defaultValue)
 	{
-		fullyQualifiedBonusType = fullyQualifiedBonusType.toUpperCase();
-
-		final String regVal = activeBonusMap.get(fullyQualifiedBonusType);
-
-		if (regVal != null)
-		{
-			return Double.parseDouble(regVal);
-		}
-
-		return defaultValue;
+		return activeBonusMap.get(fullyQualifiedBonusType.toUpperCase(),
+			defaultValue);
 	}
 
 	public double getBonusDueToType(String bonusName, String bonusInfo,
@@ -254,64 +204,41 @@ public class BonusManager
 		String prefix = new StringBuilder(bonusName).append('.').append(
 				bonusInfo).toString();
 		prefix = prefix.toUpperCase();
+		trackBonusRead(prefix);
+		return activeBonusMap.getType(prefix);
+	}
 
-		for (String fullyQualifedBonusType : activeBonusMap.keySet())
+	/**
+	 * Build the bonus HashMap from all active BonusObj's
+	 */
+	void buildActiveBonusMap()
+	{
+		BonusTable previousBonusMap = activeBonusMap;
+		building = true;
+		try
 		{
-			String typedBonusNameInfo = fullyQualifedBonusType;
-
-			// rString could be something like:
-			// COMBAT.AC:Armor.REPLACE
-			// So need to remove the .STACK or .REPLACE
-			// to get a match for prefix like: COMBAT.AC:Armor
-			if (fullyQualifedBonusType.endsWith(".STACK"))
-			{
-				typedBonusNameInfo = fullyQualifedBonusType.substring(0, fullyQualifedBonusType.length() - 6);
-			}
-			else if (fullyQualifedBonusType.endsWith(".REPLACE"))
-			{
-				typedBonusNameInfo = fullyQualifedBonusType.substring(0, fullyQualifedBonusType.length() - 8);
-			}
-
-			// if prefix is of the form:
-			// COMBAT.AC
-			// then it must match
-			// COMBAT.AC
-			// COMBAT.AC:Luck
-			// COMBAT.AC:Armor.REPLACE
-			// However, it must not match
-			// COMBAT.ACCHECK
-			if ((typedBonusNameInfo.length() > prefix.length())
-					&& !typedBonusNameInfo.startsWith(prefix + ":"))
-			{
-				continue;
-			}
-
-			if (typedBonusNameInfo.startsWith(prefix))
+			calculateActiveBonuses();
+		}
+		finally
+		{
+			building = false;
+		}
+		if (dependencyTracker != null)
+		{
+			for (String nameInfo : activeBonusMap
+				.getChangedNameInfo(previousBonusMap))
 			{
-				final int typeIndex = typedBonusNameInfo.indexOf(":");
-				if (typeIndex > 0)
-				{
-					return (fullyQualifedBonusType.substring(typeIndex + 1)); // use aKey to get
-					// .REPLACE or
-					// .STACK
-				}
-				return Constants.EMPTY_STRING; // no type;
+				dependencyTracker.inputChanged(nameInfo);
 			}
-
 		}
-
-		return Constants.EMPTY_STRING; // just return no type
 	}
 
-	/**
-	 * Build the bonus HashMap from all active BonusObj's
-	 */
-	void buildActiveBonusMap()
+	private void calculateActiveBonuses()
 	{
-		activeBonusMap = new ConcurrentHashMap<>();
+		activeBonusMap = new BonusTable();
 		cachedActiveBonusSumsMap = new ConcurrentHashMap<>();
-		Map<String, String> nonStackMap = new ConcurrentHashMap<>();
-		Map<String, String> stackMap = new ConcurrentHashMap<>();
+		BonusTable nonStackMap = new BonusTable();
+		BonusTable stackMap = new BonusTable();
 		Set<BonusObj> processedBonuses = new WrappedMapSet<>(
                 IdentityHashMap.class);
 
@@ -370,27 +297,23 @@ public class BonusManager
 		}
 
 		//
-		// Now we do all the BonusObj's that require calculations
-		bonusListCopy = new ArrayList<>();
-		bonusListCopy.addAll(getActiveBonusList());
-		for (BonusObj bonus : getActiveBonusList())
+		// Now we do all the BonusObj's that require calculations, in an order
+		// where each bonus follows the bonuses it depends on
+		if (dependencyGraph == null
+			|| !dependencyGraph.isFor(getActiveBonusList()))
+		{
+			dependencyGraph = new BonusDependencyGraph(getActiveBonusList());
+		}
+		for (BonusObj bonus : dependencyGraph.getEvaluationOrder())
 		{
 			if (processedBonuses.contains(bonus))
 			{
 				continue;
 			}
 
-			final CDOMObject anObj = (CDOMObject) getSourceObject(bonus);
-
-			if (anObj == null)
-			{
-				continue;
-			}
-
 			try
 			{
-				processBonus(bonus, new WrappedMapSet<>(
-                        IdentityHashMap.class), processedBonuses, nonStackMap, stackMap);
+				processBonus(bonus, nonStackMap, stackMap);
 			}
 			catch (Exception e)
 			{
@@ -413,24 +336,23 @@ public class BonusManager
 	 * @param targetMap
 	 *            The map of bonuses (stack+non-stack) being built up which will be populated with the total bonus.
 	 */
-	private void totalBonusesForType(Map<String, String> nonStackMap,
-		Map<String, String> stackMap, String fullyQualifiedBonusType,
-		Map<String, String> targetMap)
+	private void totalBonusesForType(BonusTable nonStackMap,
+		BonusTable stackMap, String fullyQualifiedBonusType,
+		BonusTable targetMap)
 	{
 		if (fullyQualifiedBonusType != null)
 		{
 			fullyQualifiedBonusType = fullyQualifiedBonusType.toUpperCase();
 		}
-		String nonStackString = nonStackMap.get(fullyQualifiedBonusType);
-		Float nonStackVal =  nonStackString == null ? 0.0f : Float.valueOf(nonStackString);
-		String stackString = stackMap.get(fullyQualifiedBonusType);
-		Float stackVal =  stackString == null ? 0.0f : Float.valueOf(stackString);
-		Float FullValue = nonStackVal + stackVal;
-		putActiveBonusMap(fullyQualifiedBonusType, String.valueOf(FullValue), targetMap);
+		double nonStackVal = nonStackMap.get(fullyQualifiedBonusType, 0);
+		double stackVal = stackMap.get(fullyQualifiedBonusType, 0);
+		putActiveBonusMap(fullyQualifiedBonusType, nonStackVal + stackVal,
+			targetMap);
 	}
 
 	public Collection<BonusObj> getActiveBonusList()
 	{
+		trackUntrackedRead();
 		return activeBonusBySource.keySet();
 	}
 
@@ -445,6 +367,7 @@ public class BonusManager
 				bonusInfo).toString();
 		final StringBuilder buf = new StringBuilder();
 		final List<String> aList = new ArrayList<>();
+		trackUntrackedRead();
 
 		// final List<TypedBonus> bonuses = theBonusMap.get(prefix);
 		// if ( bonuses == null )
@@ -455,15 +378,8 @@ public class BonusManager
 		// TypedBonus.totalBonusesByType(bonuses);
 		// return CoreUtility.commaDelimit(bonusStrings);
 
-		final Set<String> keys = new TreeSet<>();
-		for (String fullyQualifiedBonusType : activeBonusMap.keySet())
-		{
-			if (fullyQualifiedBonusType.startsWith(prefix))
-			{
-				keys.add(fullyQualifiedBonusType);
-			}
-		}
-		for (String fullyQualifiedBonusType : keys)
+		for (String fullyQualifiedBonusType : activeBonusMap.getValues(prefix)
+			.keySet())
 		{
 			// make a list of keys that end with .REPLACE
 			if (fullyQualifiedBonusType.endsWith(".REPLACE"))
@@ -538,89 +454,23 @@ public class BonusManager
 	}
 
 	/**
-	 * - Get's a list of dependencies from aBonus - Finds all active bonuses
-	 * that add to those dependencies and have not been processed and
-	 * recursively calls itself - Once recursed in, it adds the computed bonus
-	 * to activeBonusMap
+	 * Calculates the value of a bonus and adds it to activeBonusMap. Any
+	 * bonuses aBonus depends on must already have been processed.
 	 * 
 	 * @param aBonus
 	 *            The bonus to be processed.
-	 * @param prevProcessed
-	 *            The list of bonuses which have already been processed in this
-	 *            stack of calls to processBonus.
-	 * @param processedBonuses
-	 *            The list of bonuses which have already been processed overall.
 	 * @param nonStackMap
 	 *            The map of non-stacking (i.e. highest wins) bonuses being built up.
 	 * @param stackMap
 	 *            The map of stacking (i.e. total all) bonuses being built up.
 	 */
-	private void processBonus(final BonusObj aBonus,
-		final Set<BonusObj> prevProcessed, Set<BonusObj> processedBonuses,
-		Map<String, String> nonStackMap, Map<String, String> stackMap)
+	private void processBonus(final BonusObj aBonus, BonusTable nonStackMap,
+		BonusTable stackMap)
 	{
-		// Make sure we don't get into an infinite loop - can occur due to LST
-		// coding or best guess dependancy mapping
-		if (prevProcessed.contains(aBonus))
-		{
-			if (Logging.isDebugMode())
-			{
-				Logging
-					.log(
-						Logging.DEBUG,
-						"Ignoring bonus loop for " //$NON-NLS-1$
-							+ aBonus
-							+ " as it was already processed. Bonuses already processed: " //$NON-NLS-1$
-							+ prevProcessed);
-				Logging.log(Logging.DEBUG,
-					" Depend map is " + aBonus.listDependsMap()); //$NON-NLS-1$
-			}
-			return;
-		}
-		prevProcessed.add(aBonus);
-
-		final List<BonusObj> aList = new ArrayList<>();
-
-		// Go through all bonuses and check to see if they add to
-		// aBonus's dependencies and have not already been processed
-		for (BonusObj newBonus : getActiveBonusList())
-		{
-			if (processedBonuses.contains(newBonus))
-			{
-				continue;
-			}
-
-			if (aBonus.getDependsOn(newBonus.getUnparsedBonusInfoList())
-				|| aBonus.getDependsOnBonusName(newBonus.getBonusName()))
-			{
-				aList.add(newBonus);
-			}
-		}
-
-		// go through all the BonusObj's that aBonus depends on
-		// and process them first
-		for (BonusObj newBonus : aList)
-		{
-			// Recursively call itself
-			processBonus(newBonus, prevProcessed, processedBonuses,
-				nonStackMap, stackMap);
-		}
-
-		// Double check that it hasn't been processed yet
-		if (processedBonuses.contains(aBonus))
-		{
-			return;
-		}
-
-		// Add to processed list
-		//Logging.log(Logging.INFO, "Processing bonus " + aBonus + " depends on " + aBonus.listDependsMap());
-		processedBonuses.add(aBonus);
-
 		final CDOMObject anObj = (CDOMObject) getSourceObject(aBonus);
 
 		if (anObj == null)
 		{
-			prevProcessed.remove(aBonus);
 			return;
 		}
 
@@ -634,7 +484,6 @@ public class BonusManager
 //			Logging.debugPrint("vBONUS: " + anObj.getDisplayName() + " : "
 //					+ iBonus + " : " + bp.fullyQualifiedBonusType);
 		}
-		prevProcessed.remove(aBonus);
 	}
 
 	/**
@@ -651,8 +500,8 @@ public class BonusManager
 	 *            The map of stacking (i.e. total all) bonuses being built up.
 	 */
 	private void setActiveBonusStack(double bonus,
-		String fullyQualifiedBonusType, Map<String, String> nonStackbonusMap,
-		Map<String, String> stackingBonusMap)
+		String fullyQualifiedBonusType, BonusTable nonStackbonusMap,
+		BonusTable stackingBonusMap)
 	{
 		if (fullyQualifiedBonusType != null)
 		{
@@ -723,34 +572,25 @@ public class BonusManager
 
 		if (index == -1) // a non-stacking bonus
 		{
-			final String aVal = nonStackbonusMap.get(fullyQualifiedBonusType);
+			final double existingBonus =
+					nonStackbonusMap.get(fullyQualifiedBonusType, Double.NaN);
 
-			if (aVal == null)
+			if (Double.isNaN(existingBonus))
 			{
-				putActiveBonusMap(fullyQualifiedBonusType, String.valueOf(bonus), nonStackbonusMap);
+				putActiveBonusMap(fullyQualifiedBonusType, bonus, nonStackbonusMap);
 			}
 			else
 			{
-				float existingBonus = Float.parseFloat(aVal);
-				putActiveBonusMap(fullyQualifiedBonusType, String.valueOf(Math.max(bonus,
-						existingBonus)), nonStackbonusMap);
+				putActiveBonusMap(fullyQualifiedBonusType, Math.max(bonus,
+						existingBonus), nonStackbonusMap);
 			}
 		}
 		else
 		// a stacking bonus
 		{
-			final String aVal = stackingBonusMap.get(fullyQualifiedBonusType);
-
-			if (aVal == null)
-			{
-				putActiveBonusMap(fullyQualifiedBonusType,
-					String.valueOf(bonus), stackingBonusMap);
-			}
-			else
-			{
-				putActiveBonusMap(fullyQualifiedBonusType, String.valueOf(bonus
-						+ Float.parseFloat(aVal)), stackingBonusMap);
-			}
+			putActiveBonusMap(fullyQualifiedBonusType, bonus
+					+ stackingBonusMap.get(fullyQualifiedBonusType, 0),
+				stackingBonusMap);
 		}
 	}
 
@@ -766,7 +606,7 @@ public class BonusManager
 	 *            The map of bonuses being built.
 	 */
 	private void putActiveBonusMap(final String fullyQualifiedBonusType,
-		final String bonusValue, Map<String, String> bonusMap)
+		final double bonusValue, BonusTable bonusMap)
 	{
 		//
 		// This is a bad idea...will add whatever the bonus is to ALL skills
@@ -783,9 +623,9 @@ public class BonusManager
 	{
 		String statAbbr = stat.getKeyName();
 		final String prefix = "STAT." + statAbbr;
-		Map<String, String> bonusMap = new HashMap<>();
-		Map<String, String> nonStackMap = new ConcurrentHashMap<>();
-		Map<String, String> stackMap = new ConcurrentHashMap<>();
+		BonusTable bonusMap = new BonusTable();
+		BonusTable nonStackMap = new BonusTable();
+		BonusTable stackMap = new BonusTable();
 
 		for (BonusObj bonus : getActiveBonusList())
 		{
@@ -875,9 +715,9 @@ public class BonusManager
 		}
 		// Sum the included bonuses to the stat to get our result.
 		int total = 0;
-		for (String bKey : bonusMap.keySet())
+		for (double value : bonusMap.getValues("").values())
 		{
-			total += Float.parseFloat(bonusMap.get(bKey));
+			total += value;
 		}
 		return total;
 	}
@@ -911,15 +751,13 @@ public class BonusManager
 	{
 		Map<String, String> returnMap = new HashMap<>();
 		String prefix = bonusName + "." + bonusInfo + ".";
+		trackUntrackedRead();
 
-		for (Map.Entry<String, String> entry : activeBonusMap.entrySet())
+		for (Map.Entry<String, Double> entry : activeBonusMap.getValues(prefix)
+			.entrySet())
 		{
-			String fullyQualifiedBonusType = entry.getKey();
-
-			if (fullyQualifiedBonusType.startsWith(prefix))
-			{
-				returnMap.put(fullyQualifiedBonusType, entry.getValue());
-			}
+			returnMap.put(entry.getKey(),
+				String.valueOf(entry.getValue().floatValue()));
 		}
 		return returnMap;
 	}
@@ -1353,6 +1191,7 @@ public class BonusManager
 	public double calcBonusesWithCost(List<BonusObj> list)
 	{
 		double totalBonus = 0;
+		trackUntrackedRead();
 
 		for (BonusObj aBonus : list)
 		{
@@ -1456,19 +1295,21 @@ public class BonusManager
 	 */
 	public void logChangeFromCheckpoint()
 	{
-		Map<String, String> addedMap = new HashMap<>(activeBonusMap);
-		for (Entry<String, String> prevEntry : checkpointMap.entrySet())
+		Map<String, Double> addedMap = activeBonusMap.getValues("");
+		for (Entry<String, Double> prevEntry : checkpointMap.getValues("")
+			.entrySet())
 		{
-			String addedValue = addedMap.get(prevEntry.getKey());
+			Double addedValue = addedMap.get(prevEntry.getKey());
 			if (prevEntry.getValue().equals(addedValue))
 			{
 				addedMap.remove(prevEntry.getKey());
 			}
 		}
-		Map<String, String> removedMap = new HashMap<>(checkpointMap);
-		for (Entry<String, String> prevEntry : activeBonusMap.entrySet())
+		Map<String, Double> removedMap = checkpointMap.getValues("");
+		for (Entry<String, Double> prevEntry : activeBonusMap.getValues("")
+			.entrySet())
 		{
-			String addedValue = removedMap.get(prevEntry.getKey());
+			Double addedValue = removedMap.get(prevEntry.getKey());
 			if (prevEntry.getValue().equals(addedValue))
 			{
 				removedMap.remove(prevEntry.getKey());
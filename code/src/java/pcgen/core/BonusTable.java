@@ -0,0 +1,436 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * BonusTable holds the values of a set of bonuses, keyed by their fully
+ * qualified bonus type (e.g. COMBAT.AC, COMBAT.AC:Luck or
+ * COMBAT.AC:Armor.REPLACE).
+ *
+ * <p>
+ * Each distinct bonus name, info and type (e.g. COMBAT.AC:Armor) is held once,
+ * with the plain, .STACK and .REPLACE values recorded against it as primitive
+ * doubles. Bonuses are also indexed by their name and info (e.g. COMBAT.AC)
+ * so that the total for a bonus only has to examine the bonuses which match
+ * it, rather than every bonus held by the table.
+ *
+ * <p>
+ * Keys are expected to be upper case; they are used as supplied when bonuses
+ * are added to the table.
+ */
+final class BonusTable
+{
+	private static final String STACK_SUFFIX = ".STACK"; //$NON-NLS-1$
+
+	private static final String REPLACE_SUFFIX = ".REPLACE"; //$NON-NLS-1$
+
+	/**
+	 * The bonuses in this table, keyed by their name, info and type, without
+	 * any .STACK or .REPLACE suffix (e.g. COMBAT.AC:ARMOR)
+	 */
+	private final Map<String, BonusKey> keys = new ConcurrentHashMap<>();
+
+	/**
+	 * The bonuses in this table, indexed by their name and info (e.g.
+	 * COMBAT.AC)
+	 */
+	private final Map<String, List<BonusKey>> index =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * Sets the value of the given bonus, replacing any existing value.
+	 *
+	 * @param fullyQualifiedBonusType
+	 *            The bonus key e.g. STAT.DEX:LUCK
+	 * @param value
+	 *            The value of the bonus
+	 */
+	void put(String fullyQualifiedBonusType, double value)
+	{
+		Stacking stacking = Stacking.getStacking(fullyQualifiedBonusType);
+		String typedName = stacking.strip(fullyQualifiedBonusType);
+		BonusKey key = keys.get(typedName);
+		if (key == null)
+		{
+			key = keys.computeIfAbsent(typedName, this::createKey);
+		}
+		key.set(stacking, value);
+	}
+
+	private BonusKey createKey(String typedName)
+	{
+		BonusKey key = new BonusKey(typedName);
+		index.computeIfAbsent(key.nameInfo, k -> new CopyOnWriteArrayList<>())
+			.add(key);
+		return key;
+	}
+
+	/**
+	 * Returns the value of the given bonus.
+	 *
+	 * @param fullyQualifiedBonusType
+	 *            The bonus key e.g. STAT.DEX:LUCK.STACK
+	 * @param defaultValue
+	 *            The value to be returned if the bonus is not in the table
+	 * @return The value of the bonus, or defaultValue if the bonus is not in
+	 *         the table
+	 */
+	double get(String fullyQualifiedBonusType, double defaultValue)
+	{
+		Stacking stacking = Stacking.getStacking(fullyQualifiedBonusType);
+		BonusKey key = keys.get(stacking.strip(fullyQualifiedBonusType));
+		if (key == null)
+		{
+			return defaultValue;
+		}
+		double value = key.get(stacking);
+		return Double.isNaN(value) ? defaultValue : value;
+	}
+
+	/**
+	 * Returns the total of the bonuses matching the given bonus name, info and
+	 * optional type. A request for COMBAT.AC will match COMBAT.AC,
+	 * COMBAT.AC:Luck and COMBAT.AC:Armor.REPLACE but not COMBAT.ACCHECK.
+	 * Where both a bonus and its .REPLACE form are present the higher of the
+	 * two is used; .STACK values are always added.
+	 *
+	 * @param typedName
+	 *            The bonus being totalled e.g. COMBAT.AC or COMBAT.AC:LUCK
+	 * @return The total of the matching bonuses
+	 */
+	double sum(String typedName)
+	{
+		double bonus = 0;
+		int typeIndex = typedName.indexOf(':');
+		List<BonusKey> candidates = index.get(typeIndex < 0 ? typedName
+			: typedName.substring(0, typeIndex));
+		if (candidates != null)
+		{
+			for (BonusKey key : candidates)
+			{
+				if (typeIndex < 0 || key.matches(typedName))
+				{
+					bonus += key.getTotal();
+				}
+			}
+		}
+		return bonus;
+	}
+
+	/**
+	 * Returns the type (including any .STACK or .REPLACE suffix) of a bonus
+	 * matching the given bonus name and info.
+	 *
+	 * @param nameInfo
+	 *            The bonus name and info e.g. CASTERLEVEL.WIZARD
+	 * @return The type of a matching bonus, or an empty String if the
+	 *         matching bonus has no type or there is no matching bonus
+	 */
+	String getType(String nameInfo)
+	{
+		List<BonusKey> candidates = index.get(nameInfo);
+		if (candidates == null || candidates.isEmpty())
+		{
+			return "";
+		}
+		BonusKey key = candidates.get(0);
+		return key.type == null ? "" : key.type
+			+ key.getFirstStacking().suffix;
+	}
+
+	/**
+	 * Returns the values of all bonuses whose fully qualified bonus type
+	 * starts with the given prefix.
+	 *
+	 * @param prefix
+	 *            The prefix of the bonuses to be returned, or an empty String
+	 *            for all bonuses
+	 * @return A map of fully qualified bonus type to value, sorted by bonus
+	 *         type
+	 */
+	SortedMap<String, Double> getValues(String prefix)
+	{
+		SortedMap<String, Double> values = new TreeMap<>();
+		for (Map.Entry<String, List<BonusKey>> me : index.entrySet())
+		{
+			String nameInfo = me.getKey();
+			if (!nameInfo.startsWith(prefix) && !prefix.startsWith(nameInfo))
+			{
+				continue;
+			}
+			for (BonusKey key : me.getValue())
+			{
+				for (Stacking stacking : Stacking.values())
+				{
+					double value = key.get(stacking);
+					if (!Double.isNaN(value))
+					{
+						String bonusType = key.typedName + stacking.suffix;
+						if (bonusType.startsWith(prefix))
+						{
+							values.put(bonusType, value);
+						}
+					}
+				}
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Adds all of the bonuses in the given table to this table.
+	 *
+	 * @param other
+	 *            The table to be copied
+	 */
+	void putAll(BonusTable other)
+	{
+		for (Map.Entry<String, Double> me : other.getValues("").entrySet())
+		{
+			put(me.getKey(), me.getValue());
+		}
+	}
+
+	/**
+	 * Returns the name and info (e.g. COMBAT.AC) of each bonus whose values
+	 * differ between this table and the given table.
+	 *
+	 * @param other
+	 *            The table to be compared with this table
+	 * @return The name and info of the bonuses which differ
+	 */
+	Set<String> getChangedNameInfo(BonusTable other)
+	{
+		Set<String> changed = new HashSet<>();
+		addChangedNameInfo(this, other, changed);
+		addChangedNameInfo(other, this, changed);
+		return changed;
+	}
+
+	private static void addChangedNameInfo(BonusTable table, BonusTable other,
+		Set<String> changed)
+	{
+		for (BonusKey key : table.keys.values())
+		{
+			if (!changed.contains(key.nameInfo))
+			{
+				BonusKey otherKey = other.keys.get(key.typedName);
+				if (otherKey == null || !key.hasSameValues(otherKey))
+				{
+					changed.add(key.nameInfo);
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (o == this)
+		{
+			return true;
+		}
+		if (!(o instanceof BonusTable))
+		{
+			return false;
+		}
+		Map<String, BonusKey> otherKeys = ((BonusTable) o).keys;
+		if (keys.size() != otherKeys.size())
+		{
+			return false;
+		}
+		for (BonusKey key : keys.values())
+		{
+			BonusKey otherKey = otherKeys.get(key.typedName);
+			if (otherKey == null || !key.hasSameValues(otherKey))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return keys.keySet().hashCode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return getValues("").toString();
+	}
+
+	/**
+	 * The stacking behaviour of a bonus, as identified by the suffix of its
+	 * fully qualified bonus type.
+	 */
+	private enum Stacking
+	{
+		NORMAL(""), STACK(STACK_SUFFIX), REPLACE(REPLACE_SUFFIX);
+
+		private final String suffix;
+
+		Stacking(String suffix)
+		{
+			this.suffix = suffix;
+		}
+
+		private static Stacking getStacking(String fullyQualifiedBonusType)
+		{
+			if (fullyQualifiedBonusType.endsWith(STACK_SUFFIX))
+			{
+				return STACK;
+			}
+			if (fullyQualifiedBonusType.endsWith(REPLACE_SUFFIX))
+			{
+				return REPLACE;
+			}
+			return NORMAL;
+		}
+
+		private String strip(String fullyQualifiedBonusType)
+		{
+			return fullyQualifiedBonusType.substring(0,
+				fullyQualifiedBonusType.length() - suffix.length());
+		}
+	}
+
+	/**
+	 * A BonusKey is a single bonus name, info and type held in the table,
+	 * along with its plain, .STACK and .REPLACE values. Values which are not
+	 * present are held as NaN.
+	 */
+	private static final class BonusKey
+	{
+		private final String typedName;
+		private final String nameInfo;
+		private final String type;
+		private volatile double value = Double.NaN;
+		private volatile double stackValue = Double.NaN;
+		private volatile double replaceValue = Double.NaN;
+
+		private BonusKey(String typedName)
+		{
+			this.typedName = typedName;
+			int typeIndex = typedName.indexOf(':');
+			if (typeIndex < 0)
+			{
+				nameInfo = typedName;
+				type = null;
+			}
+			else
+			{
+				nameInfo = typedName.substring(0, typeIndex);
+				type = typedName.substring(typeIndex + 1);
+			}
+		}
+
+		/**
+		 * Checks if this key is the given bonus type or one of its subtypes,
+		 * i.e. COMBAT.AC:LUCK matches COMBAT.AC:LUCK and COMBAT.AC:LUCK:X
+		 */
+		private boolean matches(String bonusType)
+		{
+			return typedName.startsWith(bonusType)
+				&& (typedName.length() == bonusType.length()
+				|| typedName.charAt(bonusType.length()) == ':');
+		}
+
+		private double get(Stacking stacking)
+		{
+			switch (stacking)
+			{
+				case STACK:
+					return stackValue;
+				case REPLACE:
+					return replaceValue;
+				default:
+					return value;
+			}
+		}
+
+		private void set(Stacking stacking, double newValue)
+		{
+			switch (stacking)
+			{
+				case STACK:
+					stackValue = newValue;
+					break;
+				case REPLACE:
+					replaceValue = newValue;
+					break;
+				default:
+					value = newValue;
+					break;
+			}
+		}
+
+		private Stacking getFirstStacking()
+		{
+			if (!Double.isNaN(value))
+			{
+				return Stacking.NORMAL;
+			}
+			return Double.isNaN(stackValue) ? Stacking.REPLACE : Stacking.STACK;
+		}
+
+		/**
+		 * Returns the total of this bonus. Using NaNs allows the max to be
+		 * taken between an undefined bonus and a negative one.
+		 */
+		private double getTotal()
+		{
+			double total;
+			if (Double.isNaN(value))
+			{
+				total = Double.isNaN(replaceValue) ? 0 : replaceValue;
+			}
+			else if (Double.isNaN(replaceValue))
+			{
+				total = value;
+			}
+			else
+			{
+				total = Math.max(value, replaceValue);
+			}
+			if (!Double.isNaN(stackValue))
+			{
+				total += stackValue;
+			}
+			return total;
+		}
+
+		private boolean hasSameValues(BonusKey other)
+		{
+			return Double.compare(value, other.value) == 0
+				&& Double.compare(stackValue, other.stackValue) == 0
+				&& Double.compare(replaceValue, other.replaceValue) == 0;
+		}
+	}
+}
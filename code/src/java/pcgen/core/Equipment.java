@@ -488,6 +488,25 @@ public final class Equipment extends PObject implements Serializable,
 		return tList.contains(aType);
 	}
 
+	/**
+	 * Returns the primary types of this Equipment, which are the types checked
+	 * by isType. These include the types added by equipment modifiers.
+	 */
+	@Override
+	public Collection<Type> getIndexableTypes()
+	{
+		if (!isTypeDeclaredBy(Equipment.class))
+		{
+			return null;
+		}
+		List<Type> types = new ArrayList<>();
+		for (String type : typeList(true))
+		{
+			types.add(Type.getConstant(type));
+		}
+		return types;
+	}
+
 	/**
 	 * Gets the unarmed attribute of the Equipment object
 	 * 
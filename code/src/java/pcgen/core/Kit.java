@@ -159,14 +159,22 @@ public final class Kit extends PObject implements Comparable<Object>, KitFacade
 			pc.setGold(pc.getGold().subtract(totalCostToBeCharged));
 		}
 
-		for (KitStat kStat : getStats())
+		pc.beginBatch();
+		try
 		{
-			kStat.apply(pc);
-		}
+			for (KitStat kStat : getStats())
+			{
+				kStat.apply(pc);
+			}
 
-		for (BaseKit bk : thingsToAdd)
+			for (BaseKit bk : thingsToAdd)
+			{
+				bk.apply(pc);
+			}
+		}
+		finally
 		{
-			bk.apply(pc);
+			pc.commitBatch();
 		}
 		pc.setCalcEquipmentList();
 
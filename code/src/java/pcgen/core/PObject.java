@@ -23,10 +23,10 @@
 package pcgen.core;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.StringTokenizer;
 
 import pcgen.base.lang.StringUtil;
 import pcgen.cdom.base.CDOMObject;
@@ -185,32 +185,17 @@ public class PObject extends CDOMObject implements Cloneable, Serializable, Comp
 	@Override
 	public boolean isType(final String aType)
 	{
-		final String myType;
-
-		if (aType.isEmpty())
-		{
-			return false;
-		}
-		else if (aType.charAt(0) == '!')
-		{
-			myType = aType.substring(1).toUpperCase();
-		}
-		else if (aType.startsWith("TYPE=") || aType.startsWith("TYPE."))	//$NON-NLS-1$ //$NON-NLS-2$
-		{
-			myType = aType.substring(5).toUpperCase();
-		}
-		else
-		{
-			myType = aType.toUpperCase();
-		}
-		
 		//
 		// Must match all listed types in order to qualify
 		//
-		StringTokenizer tok = new StringTokenizer(myType, ".");
-		while (tok.hasMoreTokens())
+		final List<Type> required = getRequiredTypes(aType);
+		if (required == null)
 		{
-			if (!containsInList(ListKey.TYPE, Type.getConstant(tok.nextToken())))
+			return false;
+		}
+		for (Type type : required)
+		{
+			if (!containsInList(ListKey.TYPE, type))
 			{
 				return false;
 			}
@@ -218,6 +203,48 @@ public class PObject extends CDOMObject implements Cloneable, Serializable, Comp
 		return true;
 	}
 
+	/**
+	 * The class declaring the isType used by each class.
+	 */
+	private static final ClassValue<Class<?>> IS_TYPE_DECLARER =
+			new ClassValue<Class<?>>()
+			{
+				@Override
+				protected Class<?> computeValue(Class<?> type)
+				{
+					try
+					{
+						return type.getMethod("isType", String.class) //$NON-NLS-1$
+							.getDeclaringClass();
+					}
+					catch (NoSuchMethodException e)
+					{
+						return null;
+					}
+				}
+			};
+
+	/**
+	 * Checks if the isType used by this object is the one declared by the
+	 * given class, rather than an override in a subclass.
+	 * 
+	 * @param cl
+	 *            The class which may declare the isType used by this object
+	 * @return true if the isType used by this object is declared by the given
+	 *         class
+	 */
+	protected final boolean isTypeDeclaredBy(Class<?> cl)
+	{
+		return IS_TYPE_DECLARER.get(getClass()) == cl;
+	}
+
+	@Override
+	public Collection<Type> getIndexableTypes()
+	{
+		return isTypeDeclaredBy(PObject.class) ? getSafeListFor(ListKey.TYPE)
+			: null;
+	}
+
 	@Override
 	public String toString()
 	{
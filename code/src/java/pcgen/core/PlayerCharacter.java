@@ -166,6 +166,7 @@ import pcgen.cdom.facet.analysis.StatLockFacet;
 import pcgen.cdom.facet.analysis.UnlockedStatFacet;
 import pcgen.cdom.facet.analysis.VariableFacet;
 import pcgen.cdom.facet.base.AbstractStorageFacet;
+import pcgen.cdom.facet.base.CacheDependencyTracker;
 import pcgen.cdom.facet.fact.AgeFacet;
 import pcgen.cdom.facet.fact.AllowDebtFacet;
 import pcgen.cdom.facet.fact.CharacterTypeFacet;
@@ -261,6 +262,7 @@ import pcgen.core.chooser.ChooserUtilities;
 import pcgen.core.display.CharacterDisplay;
 import pcgen.core.display.SkillDisplay;
 import pcgen.core.pclevelinfo.PCLevelInfo;
+import pcgen.core.prereq.PrerequisiteCache;
 import pcgen.core.spell.Spell;
 import pcgen.core.utils.CoreUtility;
 import pcgen.core.utils.MessageType;
@@ -508,6 +510,12 @@ public class PlayerCharacter implements Cloneable, VariableContainer
 	private int spellLevelTemp = 0;
 	private VariableProcessor variableProcessor;
 
+	// records the inputs of cached values, null if they are not tracked
+	private CacheDependencyTracker dependencyTracker;
+
+	// the results of prerequisite tests, null if they are not cached
+	private PrerequisiteCache prerequisiteCache;
+
 	// used by point buy. Total number of points for method, not points
 	// remaining
 	private int pointBuyPoints = -1;
@@ -551,6 +559,18 @@ public class PlayerCharacter implements Cloneable, VariableContainer
 		trackingFacet.associatePlayerCharacter(id, this);
 
 		variableProcessor = new VariableProcessorPC(this);
+		if (PCGenSettings.OPTIONS_CONTEXT.initBoolean(
+			PCGenSettings.OPTION_TRACK_CACHE_DEPENDENCIES, false))
+		{
+			dependencyTracker = CacheDependencyTracker.register(id);
+			variableProcessor.setDependencyTracker(dependencyTracker);
+			bonusManager.setDependencyTracker(dependencyTracker);
+		}
+		if (PCGenSettings.OPTIONS_CONTEXT.initBoolean(
+			PCGenSettings.OPTION_CACHE_PREREQUISITES, false))
+		{
+			prerequisiteCache = new PrerequisiteCache(id, dependencyTracker);
+		}
 
 		for (int i = 0; i < Constants.NUMBER_OF_AGESET_KIT_SELECTIONS; i++)
 		{
@@ -985,19 +1005,32 @@ public class PlayerCharacter implements Cloneable, VariableContainer
 	{
 		if (dirtyState)
 		{
-			serial++;
-			cache = new ObjectCache();
-			variableProcessor.setSerial(serial);
-			cabFacet.update(id);
-			cAvSpellFacet.update(id);
-			cKnSpellFacet.update(id);
-			condLangFacet.update(id);
-			bonusSkillRankChangeFacet.reset(id);
+			if (dependencyTracker != null)
+			{
+				dependencyTracker.markDirty();
+			}
+			expireCaches();
 		}
 
 		dirtyFlag = dirtyState;
 	}
 
+	/**
+	 * Expires the cached values which are not tracked by input, and updates
+	 * the conditional facets which depend on the character's state.
+	 */
+	private void expireCaches()
+	{
+		serial++;
+		cache = new ObjectCache();
+		variableProcessor.setSerial(serial);
+		cabFacet.update(id);
+		cAvSpellFacet.update(id);
+		cKnSpellFacet.update(id);
+		condLangFacet.update(id);
+		bonusSkillRankChangeFacet.reset(id);
+	}
+
 	/**
 	 * Gets whether the character has been changed since last saved.
 	 *
@@ -1008,6 +1041,17 @@ public class PlayerCharacter implements Cloneable, VariableContainer
 		return dirtyFlag;
 	}
 
+	/**
+	 * Returns the cache of the results of prerequisite tests for this
+	 * character.
+	 *
+	 * @return The prerequisite cache, or null if results are not cached
+	 */
+	public PrerequisiteCache getPrerequisiteCache()
+	{
+		return prerequisiteCache;
+	}
+
 	/**
 	 * Returns the serial for the instance - every time something changes the
 	 * serial is incremented. Use to detect change in PlayerCharacter.
@@ -1420,6 +1464,28 @@ public class PlayerCharacter implements Cloneable, VariableContainer
 		this.importing = newIsImporting;
 	}
 
+	/**
+	 * Starts a batch of changes to the character, such as while the character
+	 * is loaded or a kit is applied. Until the batch is committed, changes are
+	 * passed to the new formula system together rather than one at a time, and
+	 * a change which is reversed within the batch is never passed on.
+	 * Variable results are brought up to date whenever they are read. Each
+	 * call must be matched by a call to commitBatch().
+	 */
+	public void beginBatch()
+	{
+		solverManagerFacet.defer(id);
+	}
+
+	/**
+	 * Ends a batch of changes started by beginBatch(), passing on the changes
+	 * made in the batch.
+	 */
+	public void commitBatch()
+	{
+		solverManagerFacet.resume(id);
+	}
+
 	/**
 	 * Gets the character's list of languages.
 	 *
@@ -4733,7 +4799,10 @@ public class PlayerCharacter implements Cloneable, VariableContainer
 				}
 			}
 			bonusManager.checkpointBonusMap();
-			setDirty(true);
+			// Changed bonuses are reported to any dependency tracker as the
+			// bonus map is rebuilt, so other tracked values can be kept
+			expireCaches();
+			dirtyFlag = true;
 			count++;
 			calcActiveBonusLoop();
 			if (Globals.checkRule(RuleConstants.RETROSKILL))
@@ -7138,6 +7207,7 @@ public class PlayerCharacter implements Cloneable, VariableContainer
 			bean.copyContents(id, aClone.id);
 		}
 		aClone.bonusManager = bonusManager.buildDeepClone(aClone);
+		aClone.bonusManager.setDependencyTracker(aClone.dependencyTracker);
 
 		for (PCClass cloneClass : aClone.classFacet.getSet(aClone.id))
 		{
@@ -29,6 +29,8 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.StringTokenizer;
 
+import pcgen.cdom.facet.base.CacheDependencyTracker;
+import pcgen.cdom.facet.base.CacheDependencyTracker.Dependencies;
 import pcgen.core.character.CachedVariable;
 import pcgen.core.character.CharacterSpell;
 import pcgen.core.utils.CoreUtility;
@@ -57,6 +59,7 @@ public abstract class VariableProcessor
 
 	private int cachePaused;
 	private int serial;
+	private CacheDependencyTracker dependencyTracker;
 
 	private Map<String, CachedVariable<String>> sVariableCache =
             new HashMap<>();
@@ -142,16 +145,24 @@ public abstract class VariableProcessor
 				
 		if (null == result)
 		{
-			result = processBrokenParser(
-					aSpell,
-					varString,
-					src,
-					spellLevelTemp);
+			Dependencies dependencies = beginCalculation();
+			try
+			{
+				result = processBrokenParser(
+						aSpell,
+						varString,
+						src,
+						spellLevelTemp);
+			}
+			finally
+			{
+				endCalculation(dependencies);
+			}
 			
 			String cacheString =
 					makeCacheString(aSpell == null ? null : aSpell, varString, src, spellLevelTemp);
 
-			addCachedVariable(cacheString, result);
+			addCachedVariable(cacheString, result, dependencies);
 		}
 
 		return result;
@@ -193,12 +204,21 @@ public abstract class VariableProcessor
 			return total;
 		}
 
-		CachableResult cRes = processJepFormula(aSpell, varString, src);
+		CachableResult cRes;
+		Dependencies dependencies = beginCalculation();
+		try
+		{
+			cRes = processJepFormula(aSpell, varString, src);
+		}
+		finally
+		{
+			endCalculation(dependencies);
+		}
 		if (cRes != null)
 		{
 			if (cRes.cachable)
 			{
-				addCachedVariable(cacheString, cRes.result);
+				addCachedVariable(cacheString, cRes.result, dependencies);
 			}
 			return cRes.result;
 		}
@@ -518,7 +538,7 @@ public abstract class VariableProcessor
 		try
 		{
 			parser = PjepPool.getInstance().aquire(this, src);
-			parser.parseExpression(formula);
+			parser.parseCachedExpression(formula);
 			if (parser.hasError())
 			{
 				if (Logging.isLoggable(Logging.DEBUG) && formula.startsWith(DEBUG_FORMULA_PREFIX))
@@ -528,6 +548,10 @@ public abstract class VariableProcessor
 				}
 				return null;
 			}
+			if (parser.usesCharacterFunctions())
+			{
+				markUntracked();
+			}
 
 			for (Iterator<String> iter = parser.getSymbolTable().keySet().iterator(); iter.hasNext();)
 			{
@@ -635,6 +659,9 @@ public abstract class VariableProcessor
 
 		if (retVal == null)
 		{
+			// Built in terms and export tokens read the character's fields,
+			// the rules and the settings as well as its facets
+			markUntracked();
 			retVal = getInternalVariable(spell, term, src);
 		}
 
@@ -667,7 +694,7 @@ public abstract class VariableProcessor
 
 		if (cached != null)
 		{
-			if (cached.getSerial()>=getSerial())
+			if (isCurrent(cached))
 			{
 				return cached.getValue();
 			}
@@ -683,6 +710,21 @@ public abstract class VariableProcessor
 	 * @param value The value of the variable
 	 */
 	public void addCachedVariable(final String lookup, final Float value)
+	{
+		addCachedVariable(lookup, value, null);
+	}
+
+	/**
+	 * Add a new variable to the cache, along with the inputs it was
+	 * calculated from.
+	 *
+	 * @param lookup The name of the variable to be added.
+	 * @param value The value of the variable
+	 * @param dependencies The inputs the value was calculated from, or null
+	 *            if the value is to be discarded whenever the character changes.
+	 */
+	private void addCachedVariable(final String lookup, final Float value,
+		final Dependencies dependencies)
 	{
 		if (isCachePaused())
 		{
@@ -691,6 +733,7 @@ public abstract class VariableProcessor
 		final CachedVariable<Float> cached = new CachedVariable<>();
 		cached.setSerial( getSerial() );
 		cached.setValue(value);
+		cached.setDependencies(dependencies);
 //		if (lookup.equals("floor(SCORE/2)-5#STAT:CHA"))
 //		{
 //			Logging.errorPrint("At " + cached.getSerial() + " caching " + lookup + " of " + value);
@@ -727,6 +770,75 @@ public abstract class VariableProcessor
 		return cachePaused>0;
 	}
 
+	/**
+	 * Set the tracker used to record the inputs of each cached variable. When
+	 * a tracker is set, a cached value which was calculated by this processor
+	 * remains current until one of its inputs changes, rather than until the
+	 * cache serial changes.
+	 *
+	 * @param tracker The tracker for the character, or null to expire all
+	 *            cached values when the cache serial changes.
+	 */
+	public void setDependencyTracker(CacheDependencyTracker tracker)
+	{
+		dependencyTracker = tracker;
+	}
+
+	private Dependencies beginCalculation()
+	{
+		if (dependencyTracker == null || isCachePaused())
+		{
+			return null;
+		}
+		return dependencyTracker.begin(pc.getCharID());
+	}
+
+	/**
+	 * Record that the calculation in progress reads information whose changes
+	 * are not reported to the dependency tracker, so its value is expired
+	 * when the cache serial changes.
+	 */
+	private void markUntracked()
+	{
+		if (dependencyTracker != null)
+		{
+			CacheDependencyTracker.untrackedRead(pc.getCharID());
+		}
+	}
+
+	private void endCalculation(Dependencies dependencies)
+	{
+		if (dependencies != null)
+		{
+			dependencyTracker.end(dependencies);
+		}
+	}
+
+	/**
+	 * Identify if a cached value is still current. A value whose inputs were
+	 * tracked is current until one of those inputs changes, any other value
+	 * is current until the cache serial changes.
+	 *
+	 * @param cached The cached value to be checked.
+	 * @return true if the cached value may be used.
+	 */
+	private boolean isCurrent(CachedVariable<?> cached)
+	{
+		Dependencies dependencies = cached.getDependencies();
+		if (dependencies == null || dependencyTracker == null
+			|| dependencies.isUntracked())
+		{
+			markUntracked();
+			return cached.getSerial()>=getSerial();
+		}
+		if (dependencyTracker.isCurrent(dependencies))
+		{
+			CacheDependencyTracker.reuse(dependencies);
+			return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Retrieve the current cache serial. This value identifies the currency
 	 * of the cache and can be compared against the serial of entries in the
@@ -768,7 +880,7 @@ public abstract class VariableProcessor
 
 		if (cached != null)
 		{
-			if (cached.getSerial()>=getSerial())
+			if (isCurrent(cached))
 			{
 				return cached.getValue();
 			}
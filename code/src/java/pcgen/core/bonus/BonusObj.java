@@ -25,6 +25,8 @@ package pcgen.core.bonus;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -170,6 +172,16 @@ public abstract class BonusObj extends ConcretePrereqObject implements Serializa
 		return dependMap.containsKey("NAME|"+bonusName);
 	}
 
+	/**
+	 * Get the keys this bonus depends on. A key is either the info of another
+	 * bonus, or NAME| followed by the name of another bonus.
+	 * @return An unmodifiable collection of the keys this bonus depends on
+	 */
+	public Collection<String> getDependsOnKeys()
+	{
+		return Collections.unmodifiableSet(dependMap.keySet());
+	}
+
 	/**
 	 * Report on the dependencies of the bonus.
 	 * @return String the dependancies
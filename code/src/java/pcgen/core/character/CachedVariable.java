@@ -23,6 +23,8 @@
  */
 package pcgen.core.character;
 
+import pcgen.cdom.facet.base.CacheDependencyTracker.Dependencies;
+
 /**
  * @param <T>
  * Todo This doesn't belong in this package.  It should probably be an inner
@@ -33,6 +35,7 @@ public final class CachedVariable<T>
 {
 	private int serial;
 	private T value;
+	private Dependencies dependencies;
 	/**
 	 * @return Returns the serial.
 	 */
@@ -65,4 +68,21 @@ public final class CachedVariable<T>
 		value = v;
 	}
 
+	/**
+	 * @return Returns the inputs the value was calculated from, or null if
+	 *         they were not tracked.
+	 */
+	public Dependencies getDependencies()
+	{
+		return dependencies;
+	}
+
+	/**
+	 * @param d The inputs the value was calculated from.
+	 */
+	public void setDependencies(final Dependencies d)
+	{
+		dependencies = d;
+	}
+
 }
@@ -48,8 +48,7 @@ public class PreMult  extends AbstractPrerequisiteTest implements PrerequisiteTe
 
 		for ( Prerequisite element : prereq.getPrerequisites() )
 		{
-			final PrerequisiteTestFactory factory = PrerequisiteTestFactory.getInstance();
-			final PrerequisiteTest test = factory.getTest(element.getKind());
+			final PrerequisiteTest test = element.getTest();
 			if (test != null) {
 				runningTotal += test.passes(element, character, source);
 			}
@@ -83,8 +82,7 @@ public class PreMult  extends AbstractPrerequisiteTest implements PrerequisiteTe
 
 		for ( Prerequisite element : prereq.getPrerequisites() )
 		{
-			final PrerequisiteTestFactory factory = PrerequisiteTestFactory.getInstance();
-			final PrerequisiteTest test = factory.getTest(element.getKind());
+			final PrerequisiteTest test = element.getTest();
 			runningTotal += test.passes(element, equipment, aPC);
 		}
 
@@ -98,13 +96,11 @@ public class PreMult  extends AbstractPrerequisiteTest implements PrerequisiteTe
 	 */
     @Override
 	public String toHtmlString(final Prerequisite prereq) {
-		final PrerequisiteTestFactory factory = PrerequisiteTestFactory.getInstance();
-
 		StringBuilder str = new StringBuilder(250);
 		String delimiter = ""; //$NON-NLS-1$
 		for ( Prerequisite element : prereq.getPrerequisites() )
 		{
-			final PrerequisiteTest test = factory.getTest(element.getKind());
+			final PrerequisiteTest test = element.getTest();
 			if (test==null)
 			{
 				Logging.errorPrintLocalised("PreMult.cannot_find_subformatter", element.getKind() ); //$NON-NLS-1$
@@ -30,6 +30,7 @@ import java.util.Collection;
 
 import pcgen.cdom.base.CDOMObject;
 import pcgen.cdom.base.Constants;
+import pcgen.cdom.facet.base.CacheDependencyTracker.Dependencies;
 import pcgen.core.Ability;
 import pcgen.core.AbilityUtilities;
 import pcgen.core.Equipment;
@@ -140,8 +141,39 @@ public final class PrereqHandler
 		{
 			return true;
 		}
-		final PrerequisiteTestFactory factory = PrerequisiteTestFactory.getInstance();
-		final PrerequisiteTest test = factory.getTest(prereq.getKind());
+		PrerequisiteCache cache =
+				(aPC == null) ? null : aPC.getPrerequisiteCache();
+		if (cache == null || aPC.getVariableProcessor().isCachePaused()
+			|| !PrerequisiteCache.isCachable(prereq))
+		{
+			return test(prereq, aPC, caller);
+		}
+		int serial = aPC.getSerial();
+		Boolean cached = cache.get(prereq, caller, serial);
+		if (cached != null)
+		{
+			return cached;
+		}
+		Dependencies dependencies = cache.begin();
+		boolean passes;
+		try
+		{
+			passes = test(prereq, aPC, caller);
+		}
+		finally
+		{
+			cache.end(dependencies);
+		}
+		cache.put(prereq, caller, serial, dependencies, passes);
+		return passes;
+	}
+
+	private static boolean test(
+		final Prerequisite prereq,
+		final PlayerCharacter aPC,
+		final Object caller)
+	{
+		final PrerequisiteTest test = prereq.getTest();
 
 		if (test == null)
 		{
@@ -205,8 +237,7 @@ public final class PrereqHandler
 		{
 			return true;
 		}
-		final PrerequisiteTestFactory factory = PrerequisiteTestFactory.getInstance();
-		final PrerequisiteTest test = factory.getTest(preReq.getKind());
+		final PrerequisiteTest test = preReq.getTest();
 
 		if (test == null)
 		{
@@ -239,15 +270,13 @@ public final class PrereqHandler
 			return Constants.EMPTY_STRING;
 		}
 
-		final PrerequisiteTestFactory factory = PrerequisiteTestFactory.getInstance();
-
 		final StringBuilder pString = new StringBuilder(anArrayList.size() * 20);
 
 		String delimiter = Constants.EMPTY_STRING;
 
 		for (Prerequisite preReq : anArrayList)
 		{
-			final PrerequisiteTest preReqTest = factory.getTest(preReq.getKind());
+			final PrerequisiteTest preReqTest = preReq.getTest();
 
 			if (preReqTest == null)
 			{
@@ -62,6 +62,12 @@ public class Prerequisite implements Cloneable
 	/** Used for abilities only - the category to restrict matches to. */
 	private String categoryName;
 
+	/**
+	 * The test for the kind of this prerequisite, looked up once and kept so
+	 * that testing does not need to find it again.
+	 */
+	private PrerequisiteTest test;
+
 	/**
 	 * Instantiates a new prerequisite.
 	 */
@@ -131,6 +137,7 @@ public class Prerequisite implements Cloneable
 	public void setKind(final String val)
 	{
 		this.kind = val;
+		this.test = null;
 	}
 
 	/**
@@ -141,6 +148,41 @@ public class Prerequisite implements Cloneable
 		return kind;
 	}
 
+	/**
+	 * Returns the PrerequisiteTest for the kind of this prerequisite. The test
+	 * is found in the PrerequisiteTestFactory the first time it is needed and
+	 * then kept.
+	 * 
+	 * @return The test for this prerequisite, or null if there is no test
+	 *         registered for its kind.
+	 */
+	public PrerequisiteTest getTest()
+	{
+		PrerequisiteTest bound = test;
+		if (bound == null)
+		{
+			bound = PrerequisiteTestFactory.getInstance().getTest(kind);
+			test = bound;
+		}
+		return bound;
+	}
+
+	/**
+	 * Finds the PrerequisiteTest for this prerequisite and any prerequisites
+	 * it contains, so they are ready before the first time they are tested.
+	 */
+	public void bindTest()
+	{
+		getTest();
+		if (prerequisites != null)
+		{
+			for (Prerequisite subreq : prerequisites)
+			{
+				subreq.bindTest();
+			}
+		}
+	}
+
 	/**
 	 * Set the operand attribute.
 	 * @param val
@@ -0,0 +1,313 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core.prereq;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import pcgen.cdom.base.PCGenIdentifier;
+import pcgen.cdom.facet.base.CacheDependencyTracker;
+import pcgen.cdom.facet.base.CacheDependencyTracker.Dependencies;
+
+/**
+ * PrerequisiteCache holds the results of the prerequisites tested for a
+ * single character, keyed by the prerequisite and the object being qualified
+ * for.
+ *
+ * <p>
+ * A result is current until the serial of the character changes. When the
+ * inputs of the character's cached values are tracked, a result is also
+ * expired as soon as one of the inputs read while testing the prerequisite
+ * changes, as not every change to the character changes its serial.
+ *
+ * <p>
+ * Prerequisites which depend on settings rather than on the character, such
+ * as PRERULE, are not cached, since a change to the settings does not change
+ * the serial of any character.
+ *
+ * <p>
+ * The number of tests answered from the cache (hits) and the number which had
+ * to be made (misses) are counted.
+ */
+public final class PrerequisiteCache
+{
+	/**
+	 * The kinds of prerequisite whose results depend on the settings rather
+	 * than on the character.
+	 */
+	private static final List<String> UNCACHED_KINDS =
+			Arrays.asList("RULE", "POINTBUYMETHOD"); //$NON-NLS-1$ //$NON-NLS-2$
+
+	private final PCGenIdentifier id;
+
+	private final CacheDependencyTracker tracker;
+
+	private final Map<Key, Result> results = new ConcurrentHashMap<>();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * The serial of the character when the results held were made. A result
+	 * made at any other serial is never current, so the results are discarded
+	 * when the serial changes, whether or not they are tracked by input.
+	 */
+	private volatile int resultSerial = Integer.MIN_VALUE;
+
+	/**
+	 * Identifies if the result of testing a prerequisite may be cached. It may
+	 * not be if the prerequisite, or any prerequisite it contains, depends on
+	 * the settings rather than on the character.
+	 *
+	 * @param prereq
+	 *            The prerequisite to be tested
+	 * @return true if the result of the test may be cached
+	 */
+	static boolean isCachable(Prerequisite prereq)
+	{
+		String kind = prereq.getKind();
+		if (kind != null)
+		{
+			for (String uncached : UNCACHED_KINDS)
+			{
+				if (uncached.equalsIgnoreCase(kind))
+				{
+					return false;
+				}
+			}
+		}
+		for (Prerequisite subreq : prereq.getPrerequisites())
+		{
+			if (!isCachable(subreq))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates a new PrerequisiteCache for a character.
+	 *
+	 * @param id
+	 *            The identifier of the character
+	 * @param tracker
+	 *            The tracker of the character's inputs, or null if inputs are
+	 *            not tracked
+	 */
+	public PrerequisiteCache(PCGenIdentifier id, CacheDependencyTracker tracker)
+	{
+		this.id = id;
+		this.tracker = tracker;
+	}
+
+	/**
+	 * Returns the cached result of a prerequisite test.
+	 *
+	 * @param prereq
+	 *            The prerequisite being tested
+	 * @param caller
+	 *            The object being qualified for, may be null
+	 * @param serial
+	 *            The current serial of the character
+	 * @return The result of the test, or null if there is no current result
+	 */
+	Boolean get(Prerequisite prereq, Object caller, int serial)
+	{
+		expireSerial(serial);
+		Key key = new Key(prereq, caller);
+		Result result = results.get(key);
+		if (result != null)
+		{
+			if (result.serial == serial
+				&& (result.dependencies == null || tracker.isCurrent(result.dependencies)))
+			{
+				if (result.dependencies != null)
+				{
+					CacheDependencyTracker.reuse(result.dependencies);
+				}
+				hits.incrementAndGet();
+				return result.passes;
+			}
+			//Will never be current again
+			results.remove(key, result);
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Starts recording the inputs of a prerequisite test, if inputs are
+	 * tracked. Every call must be followed by a call to end.
+	 *
+	 * @return The Dependencies of the test, or null if inputs are not tracked
+	 */
+	Dependencies begin()
+	{
+		return tracker == null ? null : tracker.begin(id);
+	}
+
+	/**
+	 * Stops recording the inputs of a prerequisite test.
+	 *
+	 * @param dependencies
+	 *            The Dependencies returned by begin
+	 */
+	void end(Dependencies dependencies)
+	{
+		if (dependencies != null)
+		{
+			tracker.end(dependencies);
+		}
+	}
+
+	/**
+	 * Stores the result of a prerequisite test.
+	 *
+	 * @param prereq
+	 *            The prerequisite which was tested
+	 * @param caller
+	 *            The object being qualified for, may be null
+	 * @param serial
+	 *            The serial of the character when the test was started
+	 * @param dependencies
+	 *            The Dependencies returned by begin, after end has been called
+	 * @param passes
+	 *            The result of the test
+	 */
+	void put(Prerequisite prereq, Object caller, int serial,
+		Dependencies dependencies, boolean passes)
+	{
+		expireSerial(serial);
+		results.put(new Key(prereq, caller),
+			new Result(passes, serial, dependencies));
+	}
+
+	/**
+	 * Discards the results held if they were made at a different serial.
+	 *
+	 * @param serial
+	 *            The current serial of the character
+	 */
+	private void expireSerial(int serial)
+	{
+		if (serial != resultSerial)
+		{
+			results.clear();
+			resultSerial = serial;
+		}
+	}
+
+	/**
+	 * Returns the number of prerequisite tests answered from this cache.
+	 *
+	 * @return The number of cache hits
+	 */
+	public long getHits()
+	{
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of prerequisite tests which had to be made because
+	 * there was no current result in this cache.
+	 *
+	 * @return The number of cache misses
+	 */
+	public long getMisses()
+	{
+		return misses.get();
+	}
+
+	/**
+	 * Returns the number of results held by this cache.
+	 *
+	 * @return The number of results held
+	 */
+	int size()
+	{
+		return results.size();
+	}
+
+	/**
+	 * Discards all cached results.
+	 */
+	public void clear()
+	{
+		results.clear();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "PrerequisiteCache [hits=" + hits + ", misses=" + misses //$NON-NLS-1$ //$NON-NLS-2$
+			+ ", size=" + results.size() + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * The key of a result. Prerequisites and callers are matched by identity,
+	 * as the equals methods of many objects are weaker than their identity.
+	 */
+	private static final class Key
+	{
+		private final Prerequisite prereq;
+		private final Object caller;
+
+		private Key(Prerequisite prereq, Object caller)
+		{
+			this.prereq = prereq;
+			this.caller = caller;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return 31 * System.identityHashCode(prereq)
+				+ System.identityHashCode(caller);
+		}
+
+		@Override
+		public boolean equals(Object o)
+		{
+			if (!(o instanceof Key))
+			{
+				return false;
+			}
+			Key other = (Key) o;
+			return prereq == other.prereq && caller == other.caller;
+		}
+	}
+
+	private static final class Result
+	{
+		private final boolean passes;
+		private final int serial;
+		private final Dependencies dependencies;
+
+		private Result(boolean passes, int serial, Dependencies dependencies)
+		{
+			this.passes = passes;
+			this.serial = serial;
+			this.dependencies = dependencies;
+		}
+	}
+}
@@ -35,6 +35,7 @@ import pcgen.cdom.base.CDOMObject;
 import pcgen.cdom.base.CDOMReference;
 import pcgen.cdom.base.ChooseInformation;
 import pcgen.cdom.base.Constants;
+import pcgen.cdom.base.PrereqObject;
 import pcgen.cdom.content.CNAbility;
 import pcgen.cdom.enumeration.FormulaKey;
 import pcgen.cdom.enumeration.ListKey;
@@ -787,4 +788,25 @@ public final class PrerequisiteUtilities
 		return false;
 	}
 	
+	/**
+	 * Finds the PrerequisiteTest of each prerequisite held by the given
+	 * objects, so that the tests do not need to be found while characters are
+	 * being processed. Objects which can not hold prerequisites are ignored.
+	 * 
+	 * @param objects The objects whose prerequisites are to be bound.
+	 */
+	public static void bindTests(final Collection<?> objects)
+	{
+		for (Object obj : objects)
+		{
+			if (obj instanceof PrereqObject)
+			{
+				for (Prerequisite prereq : ((PrereqObject) obj)
+					.getPrerequisiteList())
+				{
+					prereq.bindTest();
+				}
+			}
+		}
+	}
 }
@@ -39,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import javax.swing.SwingUtilities;
 import javax.swing.undo.UndoManager;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
@@ -290,6 +291,21 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	private TemplateListener templateListener;
 	private XPListener xpListener;
 	private AutoEquipListener autoEquipListener;
+	private CharacterRecalculator recalculator;
+
+	/*
+	 * The refreshes run after a recalculation. Each is a single object so a
+	 * refresh requested several times before the recalculation runs once.
+	 */
+	private final Runnable statRefresh = this::refreshAfterStatChange;
+	private final Runnable rolledStatRefresh = this::refreshAfterStatRoll;
+	private final Runnable abilityRefresh =
+			() -> characterAbilities.rebuildAbilityLists();
+	private final Runnable levelRefresh = this::postLevellingUpdates;
+	private final Runnable fullLevelRefresh = () -> {
+		refreshClassLevelModel();
+		postLevellingUpdates();
+	};
 
 	/**
 	 * Create a new character facade for an existing character.
@@ -304,6 +320,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		this.delegate = delegate;
 		theCharacter = pc;
 		charDisplay = pc.getDisplay();
+		recalculator = new CharacterRecalculator(pc::calcActiveBonuses);
 		dataSet = new DelegatingDataSet(dataSetFacade);
 		buildAgeCategories();
 		initForCharacter();
@@ -313,6 +330,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	@Override
 	public void closeCharacter()
 	{
+		recalculator.cancel();
 		FacetLibrary.getFacet(LanguageFacet.class)
 			.removeDataFacetChangeListener(langListener);
 		FacetLibrary.getFacet(TemplateFacet.class)
@@ -839,14 +857,9 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		}
 		CharacterUtils.selectClothes(getTheCharacter());
 		
-		// Calculate any active bonuses
-		theCharacter.calcActiveBonuses();
-
-		if (needFullRefresh)
-		{
-			refreshClassLevelModel();
-		}
-		postLevellingUpdates();
+		// Calculate any active bonuses, along with any change still waiting,
+		// before the level up is reported
+		recalculateNow(needFullRefresh ? fullLevelRefresh : levelRefresh);
 		delegate.showLevelUpInfo(this, oldLevel);
 	}
 
@@ -1694,6 +1707,8 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		{
 			if (pcPlayerLevels > 0)
 			{
+				// The skill points available depend on the stats
+				recalculator.flush();
 				int poolMod = getPurchaseCostForStat(theCharacter, score)
 						- getPurchaseCostForStat(theCharacter, baseScore);
 				//
@@ -1728,7 +1743,15 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		theCharacter.setStat(pcStat, score);
 		facade.set(score);
 		theCharacter.saveStatIncrease(pcStat, score - baseScore, false);
-		theCharacter.calcActiveBonuses();
+		recalculate(statRefresh);
+	}
+
+	/**
+	 * Update the fields which depend on the character's stats once the 
+	 * character has been recalculated after a change of stat.
+	 */
+	private void refreshAfterStatChange()
+	{
 		hpRef.set(theCharacter.hitPoints());
 		refreshLanguageList();
 
@@ -1805,7 +1828,11 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		}
 		theCharacter.rollStats(rollMethod);
 		//XXX This is here to stop the stat mod from being stale. Can be removed once we merge with CDOM
-		theCharacter.calcActiveBonuses();
+		recalculate(rolledStatRefresh);
+	}
+
+	private void refreshAfterStatRoll()
+	{
 		refreshStatScores();
 		updateScorePurchasePool(true);
 	}
@@ -2188,7 +2215,8 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			domains.addElement(domainFI);
 			DomainApplication.applyDomain(theCharacter, domain);
 
-			theCharacter.calcActiveBonuses();
+			// The next domain added is checked against the new maximum
+			recalculateNow(null);
 
 			remainingDomains.set(theCharacter.getMaxCharacterDomains() - charDisplay.getDomainCount());
 			updateDomainTodo();
@@ -2634,7 +2662,10 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			// Calling preparePCForOutput will mark export character as modified, so compare original character serial when checking for real changes
 			// Get serial at beginning so we can detect if a change occurs during clone and preparePCForOutput
 			lastExportCharSerial = theCharacter.getSerial();
-			exportPc = theCharacter.clone();
+			synchronized (CharacterManager.CHARACTER_LOAD_LOCK)
+			{
+				exportPc = theCharacter.clone();
+			}
 
 			// Get the PC all up to date, (equipment and active bonuses etc)
 			exportPc.preparePCForOutput();
@@ -2827,6 +2858,7 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	 */
 	public void save() throws NullPointerException, IOException
 	{
+		recalculator.flush();
 		GameMode mode = (GameMode) dataSet.getGameMode();
 		List<CampaignFacade> campaigns = ListFacades.wrap(dataSet.getCampaigns());
 		(new PCGIOHandler()).write(theCharacter, mode, campaigns, file.get());
@@ -2960,10 +2992,9 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 
 		characterType.set(newType);
 		theCharacter.setCharacterType(newType);
-		theCharacter.calcActiveBonuses();
 		
 		// This can affect traits mainly.
-		characterAbilities.rebuildAbilityLists();
+		recalculate(abilityRefresh);
 	}
 
 	@Override
@@ -3253,9 +3284,52 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 	 */
 	PlayerCharacter getTheCharacter()
 	{
+		// Others reading the character expect its bonuses to be current
+		if (SwingUtilities.isEventDispatchThread())
+		{
+			recalculator.flush();
+		}
 		return theCharacter;
 	}
 
+	/**
+	 * Request a recalculation of the character's active bonuses. Requests 
+	 * made in quick succession on the event dispatch thread are combined into 
+	 * a single recalculation, made once they stop arriving.
+	 * 
+	 * @param refresh The update of the user interface to be made after the 
+	 * recalculation, may be null.
+	 */
+	void recalculate(Runnable refresh)
+	{
+		recalculator.recalculate(refresh);
+	}
+
+	/**
+	 * Recalculate the character's active bonuses immediately, including any 
+	 * recalculation still waiting.
+	 * 
+	 * @param refresh The update of the user interface to be made after the 
+	 * recalculation, may be null.
+	 */
+	void recalculateNow(Runnable refresh)
+	{
+		recalculator.recalculate(refresh);
+		recalculator.flush();
+	}
+
+	/**
+	 * Set if the character is recalculated as soon as it is changed, rather 
+	 * than once a series of changes has finished. For use when the character 
+	 * is being processed without a user watching. 
+	 * 
+	 * @param synchronous true if recalculations should be made at once.
+	 */
+	public void setSynchronousRecalculation(boolean synchronous)
+	{
+		recalculator.setSynchronous(synchronous);
+	}
+
 	@Override
 	public ReferenceFacade<Integer> getTotalHPRef()
 	{
@@ -4091,6 +4165,9 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 			{
 				Logging.log(Logging.INFO, charDisplay.getName()
 					+ ": Successful add of template " + template); //$NON-NLS-1$
+				// The listeners of the template list read the bonuses, so
+				// any recalculation still waiting is made first
+				recalculator.flush();
 				templates.addElement(template);
 				refreshRaceRelatedFields();
 
@@ -4129,7 +4206,8 @@ public class CharacterFacadeImpl implements CharacterFacade, EquipmentListListen
 		if (charDisplay.hasTemplate(template) && template.isRemovable())
 		{
 			theCharacter.removeTemplate(template);
-			theCharacter.calcActiveBonuses();
+			// The listeners of the template list read the bonuses
+			recalculateNow(null);
 			templates.removeElement(template);
 		}
 		else
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.facade;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * CharacterRecalculator gathers the requests made while a character is being
+ * edited to recalculate its active bonuses, along with the refreshes of the
+ * user interface which depend on the result. Requests made in quick
+ * succession on the event dispatch thread are served by a single
+ * recalculation once they stop arriving, followed by each distinct refresh
+ * requested, in the order first requested.
+ *
+ * <p>
+ * The recalculation is still made on the event dispatch thread, as the
+ * character is read by the user interface throughout and is not safe to change
+ * from any other thread. Requests made on any other thread, or while the
+ * recalculator is synchronous, are served at once.
+ */
+final class CharacterRecalculator implements ActionListener
+{
+	/**
+	 * How long, in milliseconds, requests must stop arriving for before the
+	 * recalculation is made.
+	 */
+	static final int DELAY = 75;
+
+	private final Runnable recalculation;
+
+	private final Timer timer;
+
+	/**
+	 * The refreshes to be run after the next recalculation, guarded by this
+	 * CharacterRecalculator.
+	 */
+	private final Set<Runnable> refreshes = new LinkedHashSet<>();
+
+	private boolean pending;
+
+	private volatile boolean synchronous;
+
+	/**
+	 * Creates a new CharacterRecalculator for a character. The recalculator
+	 * is synchronous if there is no display.
+	 * 
+	 * @param recalculation The recalculation of the character, normally
+	 *            PlayerCharacter.calcActiveBonuses
+	 */
+	CharacterRecalculator(Runnable recalculation)
+	{
+		this.recalculation = recalculation;
+		synchronous = GraphicsEnvironment.isHeadless();
+		timer = new Timer(DELAY, this);
+		timer.setRepeats(false);
+	}
+
+	/**
+	 * Sets if requests are served as soon as they are made. Any request
+	 * waiting is served when this is set.
+	 * 
+	 * @param synchronous true if requests should be served at once
+	 */
+	void setSynchronous(boolean synchronous)
+	{
+		this.synchronous = synchronous;
+		if (synchronous)
+		{
+			flush();
+		}
+	}
+
+	/**
+	 * Requests a recalculation of the character, to be followed by the given
+	 * refresh. A refresh requested more than once before the recalculation is
+	 * made is only run once.
+	 * 
+	 * @param refresh The refresh to be run after the recalculation, may be
+	 *            null
+	 */
+	void recalculate(Runnable refresh)
+	{
+		synchronized (this)
+		{
+			pending = true;
+			if (refresh != null)
+			{
+				refreshes.add(refresh);
+			}
+		}
+		if (synchronous || !SwingUtilities.isEventDispatchThread())
+		{
+			flush();
+		}
+		else
+		{
+			timer.restart();
+		}
+	}
+
+	/**
+	 * Makes the recalculation and runs the refreshes which have been
+	 * requested, if any request is waiting.
+	 */
+	void flush()
+	{
+		List<Runnable> toRun;
+		synchronized (this)
+		{
+			if (!pending)
+			{
+				return;
+			}
+			pending = false;
+			toRun = new ArrayList<>(refreshes);
+			refreshes.clear();
+		}
+		timer.stop();
+		recalculation.run();
+		for (Runnable refresh : toRun)
+		{
+			refresh.run();
+		}
+	}
+
+	/**
+	 * Discards any request waiting, such as when the character is closed.
+	 */
+	synchronized void cancel()
+	{
+		pending = false;
+		refreshes.clear();
+		timer.stop();
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e)
+	{
+		flush();
+	}
+}
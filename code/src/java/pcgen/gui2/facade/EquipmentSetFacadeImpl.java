@@ -695,7 +695,8 @@ class EquipmentSetFacadeImpl implements EquipmentSetFacade,
 		updateTotalQuantity(newItem, quantity);
 		updateNaturalWeaponSlots();
 		updateOutputOrder();
-		theCharacter.calcActiveBonuses();
+		// Slots are checked against the new bonuses, so this can not wait
+		characterFacadeImpl.recalculateNow(null);
 		updatePhantomSlots();
 		characterFacadeImpl.postEquippingUpdates();
 
@@ -1050,7 +1051,7 @@ class EquipmentSetFacadeImpl implements EquipmentSetFacade,
 		updateTotalWeight(eqI, quantity*-1, targetNode.getBodyStructure());
 		updateTotalQuantity(eqI, quantity*-1);
 		updateNaturalWeaponSlots();
-		theCharacter.calcActiveBonuses();
+		characterFacadeImpl.recalculateNow(null);
 		updatePhantomSlots();
 
 		return eqI;
@@ -102,7 +102,6 @@ public class SpellBuilderFacadeImpl implements SpellBuilderFacade
 
 	private PlayerCharacter character;
 	private Type requiredType;
-	private List<AvailableSpell> classSpells;
 	private CDOMList<Spell> spellList;
 	private MasterAvailableSpellFacet masterAvailableSpellFacet;
 	private DataSetID datasetID;
@@ -637,13 +636,13 @@ public class SpellBuilderFacadeImpl implements SpellBuilderFacade
 
 		// List of available spells
 		List<Spell> spellsOfLevel = new ArrayList<>();
-		for (AvailableSpell availSpell : classSpells)
+		for (AvailableSpell availSpell : masterAvailableSpellFacet
+			.getSpellsInListAtLevel(spellList, datasetID, baseSpellLevel))
 		{
-			if (availSpell.getLevel() == baseSpellLevel)
+			if (canCreateItem(availSpell.getSpell()))
 			{
 				spellsOfLevel.add(availSpell.getSpell());
 			}
-
 		}
 		Globals.sortPObjectListByName(spellsOfLevel);
 		availSpells.setContents(spellsOfLevel);
@@ -799,15 +798,6 @@ public class SpellBuilderFacadeImpl implements SpellBuilderFacade
 			spellList = ((PCClass) classFacade).get(ObjectKey.CLASS_SPELLLIST);
 		}
 
-		classSpells = new ArrayList<>();
-		for (AvailableSpell availSpell : masterAvailableSpellFacet.getAllSpellsInList(spellList, datasetID))
-		{
-			if (canCreateItem(availSpell.getSpell()))
-			{
-				classSpells.add(availSpell);
-			}
-		}
-
 		if (spellLevel.get() == null)
 		{
 			spellLevel.set(availSpellLevels.getElementAt(0));
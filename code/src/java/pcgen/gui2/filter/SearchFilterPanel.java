@@ -24,6 +24,7 @@ import java.awt.BorderLayout;
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Locale;
 
 import javax.swing.JButton;
 import javax.swing.JLabel;
@@ -32,8 +33,6 @@ import javax.swing.JTextField;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 
-import org.apache.commons.lang.StringUtils;
-
 import pcgen.facade.core.CampaignFacade;
 import pcgen.facade.core.InfoFacade;
 import pcgen.gui2.tools.Icons;
@@ -55,6 +54,8 @@ public class SearchFilterPanel extends JPanel
 	private FilterHandler filterHandler;
 	private JTextField searchField = new JTextField();
 	private JButton clearButton = new JButton(Icons.CloseX9.getImageIcon());
+	private final SearchIndex searchIndex =
+			new SearchIndex(SearchFilterPanel::getSearchableText);
 
 	public SearchFilterPanel()
 	{
@@ -87,6 +88,7 @@ public class SearchFilterPanel extends JPanel
 	private void refreshFilter()
 	{
 		String text = searchField.getText();
+		searchIndex.setQuery(text == null ? "" : text.toLowerCase(Locale.ENGLISH)); //$NON-NLS-1$
 		filterHandler.setSearchEnabled(text != null && text.length() > 0);
 		filterHandler.refilter();
 		filterHandler.scrollToTop();
@@ -94,6 +96,19 @@ public class SearchFilterPanel extends JPanel
 
 	@Override
 	public boolean accept(Object context, Object element)
+	{
+		return searchIndex.matches(element);
+	}
+
+	/**
+	 * Returns the lower-cased text searched for the search text: the name of
+	 * the element and its type, and for a source its abbreviation. Each part
+	 * is on its own line so the search text can not match across them.
+	 * 
+	 * @param element The element to be searched
+	 * @return The searchable text of the element
+	 */
+	private static String getSearchableText(Object element)
 	{
 		String typeStr = ""; //$NON-NLS-1$
 		String abbStr = ""; //$NON-NLS-1$
@@ -106,10 +121,8 @@ public class SearchFilterPanel extends JPanel
 			typeStr = ((CampaignFacade) element).getBookTypes();
 			abbStr = ((CampaignFacade) element).getSourceShort();
 		}
-		final String searchText = searchField.getText();
-		return StringUtils.containsIgnoreCase(element.toString(), searchText)
-			|| StringUtils.containsIgnoreCase(typeStr, searchText)
-			|| StringUtils.containsIgnoreCase(abbStr, searchText);
+		return (element + "\n" + (typeStr == null ? "" : typeStr) + "\n" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			+ (abbStr == null ? "" : abbStr)).toLowerCase(Locale.ENGLISH); //$NON-NLS-1$
 	}
 
 	@Override
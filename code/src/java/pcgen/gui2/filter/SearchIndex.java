@@ -0,0 +1,226 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.filter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * SearchIndex matches elements against the text being searched for by a
+ * SearchFilterPanel. The lower-cased searchable text of each element is taken
+ * once, the first time the element is seen during a search, and the trigrams
+ * (sequences of three characters) of each text are indexed so the elements
+ * which may contain a query can be found without reading every text.
+ *
+ * <p>
+ * As a query grows while it is typed, any element which did not match the
+ * shorter query is rejected without its text being searched again.
+ *
+ * <p>
+ * The index is discarded when the query is cleared, so the text of an element
+ * which changes is read again by the next search. SearchIndex is not
+ * thread-safe and is used on the event dispatch thread.
+ */
+final class SearchIndex
+{
+	private static final int GRAM = 3;
+
+	private final Function<Object, String> textFunction;
+
+	/**
+	 * The entry of each element seen during the current search, by identity.
+	 */
+	private final Map<Object, Entry> entries = new IdentityHashMap<>();
+
+	/**
+	 * The entries whose text contains each trigram.
+	 */
+	private final Map<String, Set<Entry>> postings = new HashMap<>();
+
+	private String query = ""; //$NON-NLS-1$
+
+	/**
+	 * The entries known not to contain the query.
+	 */
+	private Set<Entry> failed = identitySet();
+
+	/**
+	 * The entries which may contain the query according to the trigram
+	 * index, or null if they have not been found yet.
+	 */
+	private Set<Entry> candidates;
+
+	/**
+	 * The number of entries indexed when the candidates were found. Entries
+	 * indexed later are not covered by the candidates.
+	 */
+	private int candidateLimit;
+
+	/**
+	 * Creates a new SearchIndex.
+	 * 
+	 * @param textFunction
+	 *            Provides the text to be searched of an element, which must
+	 *            be lower case
+	 */
+	SearchIndex(Function<Object, String> textFunction)
+	{
+		this.textFunction = textFunction;
+	}
+
+	/**
+	 * Sets the text being searched for.
+	 * 
+	 * @param text
+	 *            The text being searched for, in lower case
+	 */
+	void setQuery(String text)
+	{
+		if (text.isEmpty())
+		{
+			entries.clear();
+			postings.clear();
+			failed = identitySet();
+		}
+		else if (query.isEmpty() || !text.contains(query))
+		{
+			// Elements which failed the old query may match the new one
+			failed = identitySet();
+		}
+		query = text;
+		candidates = null;
+	}
+
+	/**
+	 * Identifies if an element contains the text being searched for.
+	 * 
+	 * @param element
+	 *            The element to be checked
+	 * @return true if the element matches the current query
+	 */
+	boolean matches(Object element)
+	{
+		if (query.isEmpty())
+		{
+			return true;
+		}
+		Entry entry = entries.get(element);
+		if (entry == null)
+		{
+			entry = new Entry(textFunction.apply(element), entries.size());
+			entries.put(element, entry);
+			index(entry);
+		}
+		else if (failed.contains(entry))
+		{
+			return false;
+		}
+		if (candidates == null && query.length() >= GRAM)
+		{
+			findCandidates();
+		}
+		boolean match;
+		if (candidates != null && entry.ordinal < candidateLimit)
+		{
+			match = candidates.contains(entry) && entry.text.contains(query);
+		}
+		else
+		{
+			match = entry.text.contains(query);
+		}
+		if (!match)
+		{
+			failed.add(entry);
+		}
+		return match;
+	}
+
+	private void index(Entry entry)
+	{
+		String text = entry.text;
+		for (int i = 0; i + GRAM <= text.length(); i++)
+		{
+			postings.computeIfAbsent(text.substring(i, i + GRAM),
+				k -> identitySet()).add(entry);
+		}
+	}
+
+	private void findCandidates()
+	{
+		candidateLimit = entries.size();
+		Set<String> grams = new LinkedHashSet<>();
+		for (int i = 0; i + GRAM <= query.length(); i++)
+		{
+			grams.add(query.substring(i, i + GRAM));
+		}
+		Set<Entry> smallest = null;
+		for (String gram : grams)
+		{
+			Set<Entry> posting = postings.get(gram);
+			if (posting == null)
+			{
+				candidates = Collections.emptySet();
+				return;
+			}
+			if (smallest == null || posting.size() < smallest.size())
+			{
+				smallest = posting;
+			}
+		}
+		Set<Entry> found = identitySet();
+		for (Entry entry : smallest)
+		{
+			boolean all = true;
+			for (String gram : grams)
+			{
+				if (!postings.get(gram).contains(entry))
+				{
+					all = false;
+					break;
+				}
+			}
+			if (all)
+			{
+				found.add(entry);
+			}
+		}
+		candidates = found;
+	}
+
+	private static Set<Entry> identitySet()
+	{
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	private static final class Entry
+	{
+		private final String text;
+		private final int ordinal;
+
+		private Entry(String text, int ordinal)
+		{
+			this.text = text;
+			this.ordinal = ordinal;
+		}
+	}
+}
@@ -26,11 +26,14 @@ package pcgen.io;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.io.StringWriter;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.ParseException;
@@ -43,11 +46,11 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import freemarker.template.Configuration;
-import freemarker.template.ObjectWrapper;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 import freemarker.template.Version;
@@ -91,6 +94,7 @@ import pcgen.io.freemarker.PCBooleanFunction;
 import pcgen.io.freemarker.PCHasVarFunction;
 import pcgen.io.freemarker.PCStringDirective;
 import pcgen.io.freemarker.PCVarFunction;
+import pcgen.output.publish.LazyDataModel;
 import pcgen.output.publish.OutputDB;
 import pcgen.system.PluginLoader;
 import pcgen.util.Delta;
@@ -114,13 +118,29 @@ public final class ExportHandler
 	private static final Float JEP_TRUE = new Float(1.0);
 
 	/** A map of output tokens to export */
-	private static Map<String, Token> tokenMap = new HashMap<>();
+	private static Map<String, Token> tokenMap = new ConcurrentHashMap<>();
 
 	/** 
 	 * A variable to hold the state of whether or not the output token map to
 	 * be exported is populated or not. 
 	 */
-	private static boolean tokenMapPopulated;
+	private static volatile boolean tokenMapPopulated;
+
+	/**
+	 * The templates which have already been read and parsed, keyed by the
+	 * absolute path of the template file.
+	 */
+	private static final Map<String, CompiledTemplate> COMPILED_TEMPLATES =
+			new ConcurrentHashMap<>();
+
+	/**
+	 * The FreeMarker configurations, keyed by the absolute path of the
+	 * directory their templates are loaded from. Each configuration caches
+	 * the templates it has parsed, so is shared by all exports from that
+	 * directory.
+	 */
+	private static final Map<String, Configuration> FREEMARKER_CONFIGURATIONS =
+			new ConcurrentHashMap<>();
 
 	/**
 	 * ExportEngine describes a possible templating engine to be used to 
@@ -230,26 +250,10 @@ public final class ExportHandler
 		// Set an output filter based on the type of template in use.
 		FileAccess.setCurrentOutputFilter(templateFile.getName());
 
-		BufferedReader br = null;
-		FileInputStream fis = null;
-		InputStreamReader isr = null;
 		try
 		{
-			fis = new FileInputStream(templateFile);
-			isr = new InputStreamReader(fis, "UTF-8");
-			br = new BufferedReader(isr);
-
-			// A Buffer to hold the result of the preparation
-			StringBuilder template = prepareTemplate(br);
-
-			// Create a tokenizer based on EOL characters
-			// 03-Nov-2008 Karianna, changed to use line separator instead of /r/n
-			final StringTokenizer tokenizer =
-					new StringTokenizer(template.toString(),
-						Constants.LINE_SEPARATOR, false);
-
 			// Get FOR loops and IIF statements
-			final FORNode root = parseFORsAndIIFs(tokenizer);
+			final FORNode root = getCompiledTemplate(templateFile).root;
 
 			// TODO Not sure what these lines are for
 			loopVariables.put(null, "0");
@@ -269,22 +273,6 @@ public final class ExportHandler
 		}
 		finally
 		{
-			// Close off the reader
-			if (br != null)
-			{
-				try
-				{
-					br.close();
-				}
-				catch (IOException e)
-				{
-					Logging
-						.errorPrint(
-							"Error closing off the character sheet template in ExportHandler::write",
-							e);
-				}
-			}
-
 			if (out != null)
 			{
 				try
@@ -312,37 +300,41 @@ public final class ExportHandler
 	 */
 	private void exportCharacterUsingFreemarker(PlayerCharacter aPC, BufferedWriter outputWriter) throws ExportException
 	{
-		Configuration cfg = new Configuration();
-
 		try
 		{
-			// Set Directory for templates
-			cfg.setDirectoryForTemplateLoading(templateFile.getParentFile());
-			cfg.setIncompatibleImprovements(new Version("2.3.20"));
-			
 			// load template
+			Configuration cfg =
+					getFreemarkerConfiguration(templateFile.getParentFile());
 			Template template = cfg.getTemplate(templateFile.getName());
 
-			// Configure our custom directives and functions.
-			cfg.setSharedVariable("pcstring", new PCStringDirective(aPC, this));
-			cfg.setSharedVariable("pcvar", new PCVarFunction(aPC));
-			cfg.setSharedVariable("pcboolean", new PCBooleanFunction(aPC, this));
-			cfg.setSharedVariable("pchasvar", new PCHasVarFunction(aPC, this));
-			cfg.setSharedVariable("loop", new LoopDirective());
-			cfg.setSharedVariable("equipsetloop", new EquipSetLoopDirective(aPC));
-
 			GameMode gamemode = SettingsHandler.getGame();
 			// data-model
-			Map<String, Object> pc = OutputDB.buildDataModel(aPC.getCharID());
+			LazyDataModel pc = OutputDB.buildLazyDataModel(aPC.getCharID(),
+				cfg.getObjectWrapper());
 			Map<String, Object> mode = OutputDB.buildModeDataModel(gamemode);
 			Map<String, Object> input = new HashMap<>();
+
+			// Our custom directives and functions for this character. These
+			// are part of the data model rather than the shared configuration
+			// so characters may be exported at the same time.
+			input.put("pcstring", new PCStringDirective(aPC, this));
+			input.put("pcvar", new PCVarFunction(aPC));
+			input.put("pcboolean", new PCBooleanFunction(aPC, this));
+			input.put("pchasvar", new PCHasVarFunction(aPC, this));
+			input.put("equipsetloop", new EquipSetLoopDirective(aPC));
+
 			input.put("pcgen", OutputDB.getGlobal());
-			input.put("pc", ObjectWrapper.DEFAULT_WRAPPER.wrap(pc));
+			input.put("pc", pc);
 			input.put("gamemode", mode);
 			input.put("gamemodename", gamemode.getName());
 
 			// Process the template
 			template.process(input, outputWriter);
+			if (Logging.isDebugMode())
+			{
+				Logging.debugPrint("Template " + templateFile.getName()
+					+ " read character models " + pc.getAccessedKeys());
+			}
 		}
 		catch (IOException | TemplateException exc)
 		{
@@ -365,16 +357,115 @@ public final class ExportHandler
 		}
 	}
 
+	/**
+	 * Get the FreeMarker configuration for templates in a directory. The 
+	 * configuration is created the first time the directory is used and then 
+	 * shared, so each template is only parsed again if it changes. Only
+	 * directives which do not depend on the character are shared; the 
+	 * configuration must not be changed once it has been created.
+	 * 
+	 * @param templateDir The directory holding the templates
+	 * @return The configuration for the directory
+	 * @throws IOException If the directory can not be used
+	 */
+	static Configuration getFreemarkerConfiguration(File templateDir)
+		throws IOException
+	{
+		String path = templateDir.getAbsolutePath();
+		Configuration cfg = FREEMARKER_CONFIGURATIONS.get(path);
+		if (cfg == null)
+		{
+			cfg = new Configuration();
+			cfg.setDirectoryForTemplateLoading(templateDir);
+			cfg.setIncompatibleImprovements(new Version("2.3.20"));
+			cfg.setSharedVariable("loop", new LoopDirective());
+			Configuration existing =
+					FREEMARKER_CONFIGURATIONS.putIfAbsent(path, cfg);
+			if (existing != null)
+			{
+				cfg = existing;
+			}
+		}
+		return cfg;
+	}
+
+	/**
+	 * Get the parsed form of a template. A template is only read and parsed 
+	 * the first time it is used, or if it has changed since it was last used.
+	 * The parsed template is not changed by exporting, so it may be shared by 
+	 * handlers on different threads.
+	 * 
+	 * @param templateFile The template file
+	 * @return The parsed template
+	 * @throws IOException If the template could not be read
+	 */
+	private static CompiledTemplate getCompiledTemplate(File templateFile)
+		throws IOException
+	{
+		String path = templateFile.getAbsolutePath();
+		long lastModified = templateFile.lastModified();
+		long length = templateFile.length();
+		CompiledTemplate compiled = COMPILED_TEMPLATES.get(path);
+		if (compiled == null || compiled.lastModified != lastModified
+			|| compiled.length != length)
+		{
+			List<String> lines = readTemplate(templateFile);
+
+			// A Buffer to hold the result of the preparation
+			StringBuilder template = prepareTemplate(lines);
+
+			// Create a tokenizer based on EOL characters
+			// 03-Nov-2008 Karianna, changed to use line separator instead of /r/n
+			final StringTokenizer tokenizer =
+					new StringTokenizer(template.toString(),
+						Constants.LINE_SEPARATOR, false);
+
+			compiled =
+					new CompiledTemplate(lastModified, length,
+						Collections.unmodifiableList(lines),
+						parseFORsAndIIFs(tokenizer));
+			COMPILED_TEMPLATES.put(path, compiled);
+		}
+		return compiled;
+	}
+
+	/**
+	 * Read the lines of a template. The template is decoded as UTF-8, with 
+	 * any bytes that are not valid UTF-8 replaced rather than rejected.
+	 * 
+	 * @param templateFile The template file
+	 * @return The lines of the template
+	 * @throws IOException If the template could not be read
+	 */
+	private static List<String> readTemplate(File templateFile)
+		throws IOException
+	{
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader br = new BufferedReader(new InputStreamReader(
+			Files.newInputStream(templateFile.toPath()), decoder)))
+		{
+			String line = br.readLine();
+			while (line != null)
+			{
+				lines.add(line);
+				line = br.readLine();
+			}
+		}
+		return lines;
+	}
+
 	/**
 	 * A helper method to prepare the template for exporting
 	 * 
-	 * Read lines from the character sheet template and store them in a buffer 
+	 * Store the lines from the character sheet template in a buffer 
 	 * with empty lines replaced by a space character and || replaced by | |
 	 *  
-	 * @param br The BufferedReader containing the template
-	 * @throws IOException
+	 * @param lines The lines of the template
 	 */
-	private static StringBuilder prepareTemplate(BufferedReader br) throws IOException
+	private static StringBuilder prepareTemplate(List<String> lines)
 	{
 		// A pattern to replace || with | | to stop StringTokenizer from merging them
 		Pattern pat = Pattern.compile(Pattern.quote("||"));
@@ -383,8 +474,7 @@ public final class ExportHandler
 		// Hold the results of the preparation 
 		StringBuilder inputLine = new StringBuilder();
 
-		String aString = br.readLine();
-		while (aString != null)
+		for (String aString : lines)
 		{
 			// Karianna 29/11/2008 - No Longer replace blank lines with spaces, 
 			// doesn't seem to be needed
@@ -403,7 +493,6 @@ public final class ExportHandler
 			//}
 
 			inputLine.append(Constants.LINE_SEPARATOR);
-			aString = br.readLine();
 		}
 		return inputLine;
 	}
@@ -621,6 +710,27 @@ public final class ExportHandler
 		};
 	}
 	
+	/**
+	 * A template as read from its file, along with the tree of FOR loops and 
+	 * IIF statements parsed from it.
+	 */
+	private static final class CompiledTemplate
+	{
+		private final long lastModified;
+		private final long length;
+		private final List<String> lines;
+		private final FORNode root;
+
+		private CompiledTemplate(long lastModified, long length,
+			List<String> lines, FORNode root)
+		{
+			this.lastModified = lastModified;
+			this.length = length;
+			this.lines = lines;
+			this.root = root;
+		}
+	}
+
 	private static class VariableComparator implements Comparator<Object>, Serializable
 	{
 		@Override
@@ -646,6 +756,12 @@ public final class ExportHandler
 
 	private String replaceVariables(String expr, Map<Object,Object> variables)
 	{
+		// All loop variable names start with %
+		if (expr.indexOf('%') < 0)
+		{
+			return expr;
+		}
+
 		List<Object> keys = new ArrayList<>(variables.keySet());
 		Collections.sort(keys, new VariableComparator());
 
@@ -655,7 +771,7 @@ public final class ExportHandler
 			{
 				final String fString = anObject.toString();
 				final String rString = variables.get(fString).toString();
-				expr = expr.replaceAll(Pattern.quote(fString), rString);
+				expr = expr.replace(fString, rString);
 			}
 		}
 		return expr;
@@ -1592,7 +1708,7 @@ public final class ExportHandler
 	 * @param tokens
 	 * @return a FORNode object
 	 */
-	private FORNode parseFORsAndIIFs(StringTokenizer tokens)
+	private static FORNode parseFORsAndIIFs(StringTokenizer tokens)
 	{
 		// A FORNode that will hold a 'tree' of all of the FOR and IIF sections found
 		final FORNode root = new FORNode(null, "0", "0", "1", false);
@@ -1649,7 +1765,7 @@ public final class ExportHandler
 	 * @param tokens
 	 * @return A FORNode of the parsed tokens
 	 */
-	private FORNode parseFORs(String forLine, StringTokenizer tokens)
+	private static FORNode parseFORs(String forLine, StringTokenizer tokens)
 	{
 		final List<String> forVars = getParameters(forLine);
 		final String var = forVars.get(1);
@@ -1754,7 +1870,7 @@ public final class ExportHandler
 	 * @param tokens
 	 * @return IIFNode representing the parsed tokens
 	 */
-	private IIFNode parseIIFs(String expr, StringTokenizer tokens)
+	private static IIFNode parseIIFs(String expr, StringTokenizer tokens)
 	{
 		final IIFNode node = new IIFNode(expr);
 
@@ -1840,7 +1956,7 @@ public final class ExportHandler
 	 * Populate the token map (if not already done so), e.g. Add all 
 	 * of the types of Output Tokens to the map
 	 */
-	private static void populateTokenMap()
+	private static synchronized void populateTokenMap()
 	{
 		if (!tokenMapPopulated)
 		{
@@ -3464,13 +3580,9 @@ public final class ExportHandler
 		// Set an output filter based on the type of template in use.
 		FileAccess.setCurrentOutputFilter(templateFile.getName());
 
-		BufferedReader br = null;
-
 		try
 		{
-			br =
-					new BufferedReader(new InputStreamReader(
-						new FileInputStream(templateFile), "UTF-8"));
+			List<String> lines = getCompiledTemplate(templateFile).lines;
 
 			boolean betweenPipes = false;
 			StringBuilder textBetweenPipes = new StringBuilder();
@@ -3480,10 +3592,9 @@ public final class ExportHandler
 			// Ends with pipe pattern
 			Pattern pat2 = Pattern.compile("\\Q|\\E$");
 
-			String aLine = br.readLine();
-
-			while (aLine != null)
+			for (String templateLine : lines)
 			{
+				String aLine = templateLine;
 				int lastPipeIndex = aLine.lastIndexOf('|');
 
 				// If not inside a TAG and there is no | character on this line
@@ -3546,33 +3657,12 @@ public final class ExportHandler
 						betweenPipes = false;
 					}
 				}
-
-				aLine = br.readLine();
 			}
 		}
 		catch (IOException exc)
 		{
 			Logging.errorPrint("Error in ExportHandler::write", exc);
 		}
-		finally
-		{
-			if (br != null)
-			{
-				try
-				{
-					br.close();
-				}
-				catch (IOException ignore)
-				{
-					if (Logging.isDebugMode())
-					{
-						Logging.debugPrint(
-							"Couldn't close file in ExportHandler::write",
-							ignore);
-					}
-				}
-			}
-		}
 	}
 
 	/**
@@ -221,6 +221,7 @@ public final class PCGIOHandler extends IOHandler
 		if (isPCGVersion2)
 		{
 			final PCGParser parser = new PCGVer2Parser(pcToBeRead);
+			pcToBeRead.beginBatch();
 			try
 			{
 				// parse it all
@@ -234,6 +235,10 @@ public final class PCGIOHandler extends IOHandler
 				errors.add(LanguageBundle.getFormattedString(
 					"in_pcgIoErrorReport", pcgex.getMessage())); //$NON-NLS-1$
 			}
+			finally
+			{
+				pcToBeRead.commitBatch();
+			}
 
 			warnings.addAll(parser.getWarnings());
 
@@ -58,10 +58,13 @@ public class EqToken extends Token
 {
 	/** Token Name */
 	public static final String TOKENNAME = "EQ";
-	private static String cachedString = null;
-	private static List<Equipment> cachedList = null;
-	private static int cachedSerial = 0;
-	private static PlayerCharacter cachedPC = null;
+
+	/**
+	 * The last list of equipment generated. Characters may be exported from
+	 * several threads at once, so the list and the request it was generated
+	 * for are replaced together as one entry.
+	 */
+	private static volatile CachedList cachedList = null;
 
 	/**
 	 * @see pcgen.io.exporttoken.Token#getTokenName()
@@ -139,15 +142,15 @@ public class EqToken extends Token
 		List<Equipment> eqList = null;
 		StringTokenizer aTok = null;
 		int temp = -1;
-		if (comparatorString.equals(cachedString) && pc == cachedPC
-			&& pc.getSerial() == cachedSerial)
+		CachedList cached = cachedList;
+		if (cached != null && cached.isFor(comparatorString, pc))
 		{
 			//			cacheHit++;
 			//			if (cacheHit%100==0) {
 			//				System.out.println("cacheHit"+cacheHit + ", cacheMiss="+cacheMiss);
 			//			}
 
-			eqList = cachedList;
+			eqList = cached.list;
 			tokenSource = tokenSource.substring(comparatorString.length());
 			aTok = new StringTokenizer(tokenSource, ".", false);
 			String token = aTok.nextToken();
@@ -229,10 +232,7 @@ public class EqToken extends Token
 
 			}
 
-			cachedList = eqList;
-			cachedString = comparatorString;
-			cachedPC = pc;
-			cachedSerial = pc.getSerial();
+			cachedList = new CachedList(comparatorString, pc, eqList);
 		}
 
 		// Now that we have the list, get the token for the appropriate element
@@ -1426,4 +1426,31 @@ public class EqToken extends Token
 
 	}
 
+
+	/**
+	 * A list of equipment along with the request and the state of the
+	 * character it was generated for.
+	 */
+	private static final class CachedList
+	{
+		private final String comparatorString;
+		private final PlayerCharacter pc;
+		private final int serial;
+		private final List<Equipment> list;
+
+		private CachedList(String comparatorString, PlayerCharacter pc,
+			List<Equipment> list)
+		{
+			this.comparatorString = comparatorString;
+			this.pc = pc;
+			this.serial = pc.getSerial();
+			this.list = list;
+		}
+
+		private boolean isFor(String request, PlayerCharacter character)
+		{
+			return comparatorString.equals(request) && pc == character
+				&& character.getSerial() == serial;
+		}
+	}
 }
@@ -146,9 +146,10 @@ public class ChannelUtilities
 			formatManager);
 		VariableID<T> varID =
 				(VariableID<T>) varLib.getVariableID(scopeInst, varName);
+		MGR_FACET.flush(id);
 		MGR_FACET.get(id).createChannel(varID);
 		return VariableChannel.construct(MGR_FACET.get(id),
-			RESULT_FACET.get(id), varID);
+			RESULT_FACET.get(id), varID, () -> MGR_FACET.flush(id));
 	}
 
 	private static VariableChannel<?> getChannel(CharID id,
@@ -158,7 +159,7 @@ public class ChannelUtilities
 		VariableID<?> varID = VARLIB_FACET.getVariableID(id.getDatasetID(),
 			scopeInst, varName);
 		return VariableChannel.construct(MGR_FACET.get(id),
-			RESULT_FACET.get(id), varID);
+			RESULT_FACET.get(id), varID, () -> MGR_FACET.flush(id));
 	}
 
 	public static String createVarName(String varName)
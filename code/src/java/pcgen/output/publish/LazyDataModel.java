@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.output.publish;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import pcgen.cdom.enumeration.CharID;
+import pcgen.output.base.ModelFactory;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.SimpleCollection;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateHashModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+
+/**
+ * A LazyDataModel is the PlayerCharacter data model provided to FreeMarker
+ * for a single export. A TemplateModel is only generated by its ModelFactory
+ * the first time the template reads its key, and is then held for the rest of
+ * the export, so a template which reads little of the character does not pay
+ * for the rest.
+ * 
+ * The keys read from the model are recorded, and may be retrieved with
+ * getAccessedKeys once the export is complete.
+ */
+public final class LazyDataModel implements TemplateHashModelEx
+{
+
+	/**
+	 * The CharID for which TemplateModels are generated
+	 */
+	private final CharID id;
+
+	/**
+	 * The ObjectWrapper used to wrap the keys and values of this model
+	 */
+	private final ObjectWrapper wrapper;
+
+	/**
+	 * The name of this model within the data model, or null for the top level
+	 */
+	private final String prefix;
+
+	/**
+	 * The ModelFactory (or the Map of names to ModelFactory objects, for a
+	 * nested model) for each name in this model
+	 */
+	private final Map<String, Object> entries;
+
+	/**
+	 * The TemplateModels generated so far during this export
+	 */
+	private final Map<String, TemplateModel> generated = new HashMap<>();
+
+	/**
+	 * The full names of the keys read during this export, shared with any
+	 * nested models
+	 */
+	private final Set<String> accessed;
+
+	/**
+	 * Constructs a new LazyDataModel.
+	 * 
+	 * @param id
+	 *            The CharID for which the TemplateModels are generated
+	 * @param wrapper
+	 *            The ObjectWrapper of the FreeMarker configuration the model
+	 *            is exported with
+	 * @param entries
+	 *            The ModelFactory, or Map of names to ModelFactory objects,
+	 *            for each name in the model
+	 */
+	LazyDataModel(CharID id, ObjectWrapper wrapper,
+		Map<String, Object> entries)
+	{
+		this(id, wrapper, null, entries, new TreeSet<>());
+	}
+
+	private LazyDataModel(CharID id, ObjectWrapper wrapper, String prefix,
+		Map<String, Object> entries, Set<String> accessed)
+	{
+		this.id = id;
+		this.wrapper = wrapper;
+		this.prefix = prefix;
+		this.entries = entries;
+		this.accessed = accessed;
+	}
+
+	@Override
+	public TemplateModel get(String key) throws TemplateModelException
+	{
+		TemplateModel model = generated.get(key);
+		if (model == null)
+		{
+			Object entry = entries.get(key);
+			if (entry == null)
+			{
+				return null;
+			}
+			String name = (prefix == null) ? key : prefix + '.' + key;
+			if (entry instanceof ModelFactory)
+			{
+				model = ((ModelFactory) entry).generate(id);
+			}
+			else
+			{
+				@SuppressWarnings("unchecked")
+				Map<String, Object> nested = (Map<String, Object>) entry;
+				model = new LazyDataModel(id, wrapper, name, nested, accessed);
+			}
+			generated.put(key, model);
+			accessed.add(name);
+		}
+		return model;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return entries.isEmpty();
+	}
+
+	@Override
+	public int size()
+	{
+		return entries.size();
+	}
+
+	@Override
+	public TemplateCollectionModel keys()
+	{
+		return new SimpleCollection(entries.keySet(), wrapper);
+	}
+
+	@Override
+	public TemplateCollectionModel values() throws TemplateModelException
+	{
+		List<TemplateModel> values = new ArrayList<>(entries.size());
+		for (String key : entries.keySet())
+		{
+			values.add(get(key));
+		}
+		return new SimpleCollection(values, wrapper);
+	}
+
+	/**
+	 * Returns the names of the keys read from this data model, with the keys
+	 * read from a nested model in the form "equipment.all".
+	 * 
+	 * @return The names of the keys read from this data model
+	 */
+	public Set<String> getAccessedKeys()
+	{
+		return Collections.unmodifiableSet(accessed);
+	}
+}
@@ -31,6 +31,7 @@ import pcgen.output.base.ModelFactory;
 import pcgen.output.factory.ItemModelFactory;
 import pcgen.output.factory.SetModelFactory;
 import pcgen.output.model.BooleanOptionModel;
+import freemarker.template.ObjectWrapper;
 import freemarker.template.TemplateModel;
 
 /**
@@ -167,6 +168,47 @@ public final class OutputDB
 		return input;
 	}
 
+	/**
+	 * Builds the PlayerCharacter data model for the given CharID, generating
+	 * the model of each registered name only when it is first read. The
+	 * returned model is intended for a single export.
+	 * 
+	 * @param id
+	 *            The CharID for which the data model should be built
+	 * @param wrapper
+	 *            The ObjectWrapper of the FreeMarker configuration the data
+	 *            model is exported with
+	 * @return A LazyDataModel for the PlayerCharacter identified by the given
+	 *         CharID
+	 */
+	public static LazyDataModel buildLazyDataModel(CharID id,
+		ObjectWrapper wrapper)
+	{
+		Map<String, Object> entries = new HashMap<>();
+		for (Object k1 : outModels.getKeySet())
+		{
+			String k1String = k1.toString();
+			Map<String, Object> nested = new HashMap<>();
+			for (Object k2 : outModels.getSecondaryKeySet(k1))
+			{
+				ModelFactory modelFactory = outModels.get(k1, k2);
+				if ("".equals(k2.toString()))
+				{
+					entries.put(k1String, modelFactory);
+				}
+				else
+				{
+					nested.put(k2.toString(), modelFactory);
+				}
+			}
+			if (!nested.isEmpty() && !entries.containsKey(k1String))
+			{
+				entries.put(k1String, nested);
+			}
+		}
+		return new LazyDataModel(id, wrapper, entries);
+	}
+
 	private static void ensureMap(Map<String, Object> input, String k1String)
 	{
 		if (!input.containsKey(k1String))
@@ -25,10 +25,16 @@ import java.io.FilenameFilter;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import pcgen.core.Campaign;
 import pcgen.core.Globals;
 import pcgen.persistence.lst.CampaignLoader;
+import pcgen.persistence.lst.LstFileLoader;
 import pcgen.system.ConfigurationSettings;
 import pcgen.system.LanguageBundle;
 import pcgen.system.PCGenSettings;
@@ -109,32 +115,91 @@ public class CampaignFileLoader extends PCGenTask
     /**
      * Passes the campaign PCC files referenced by {@link #campaignFiles campaignFiles} to a {@link pcgen.persistence.lst.CampaignLoader CampaignLoader},
      * which will load the data within into the {@link pcgen.rules.context.LoadContext LoadContext} of the {@link pcgen.core.Campaign Campaign}.
+     * The files are read on several threads at once. Their tokens create shared
+     * constants, so they are then parsed one at a time on this thread, and the
+     * campaigns added to the Global container in the order the files were found.
      */
 	private void loadCampaigns()
 	{
-		int progress = 0;
-        CampaignLoader campaignLoader = new CampaignLoader();
-		while (!campaignFiles.isEmpty())
+		int threads = Math.max(1, Math.min(campaignFiles.size(),
+			Runtime.getRuntime().availableProcessors()));
+		ExecutorService pool = Executors.newFixedThreadPool(threads, r ->
+		{
+			Thread thread = new Thread(r, "Campaign-loading-thread");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try
 		{
-            // Pull the first URI from the list
-			URI uri = campaignFiles.poll();
-            // Do not load campaign if already loaded
-			if (Globals.getCampaignByURI(uri, false) == null)
+			List<URI> uris = new ArrayList<>(campaignFiles.size());
+			List<Future<StringBuilder>> read = new ArrayList<>(campaignFiles.size());
+			while (!campaignFiles.isEmpty())
 			{
-				try
+				// Pull the first URI from the list
+				final URI uri = campaignFiles.poll();
+				uris.add(uri);
+				// Do not load campaign if already loaded
+				if (Globals.getCampaignByURI(uri, false) == null)
+				{
+					read.add(pool.submit(() -> LstFileLoader.readFromURI(uri)));
+				}
+				else
 				{
-                    // Pass this URI to campaign loader
-					campaignLoader.loadCampaignLstFile(uri);
+					read.add(null);
 				}
-				catch (PersistenceLayerException ex)
+			}
+
+			int progress = 0;
+			CampaignLoader campaignLoader = new CampaignLoader();
+			for (int i = 0; i < read.size(); i++)
+			{
+				if (read.get(i) != null)
 				{
-					// LATER: This is not an appropriate way to deal with this exception.
-					// Deal with it this way because of the way the loading takes place.  XXX
-					Logging.errorPrint("PersistanceLayer", ex);
+					loadCampaign(campaignLoader, uris.get(i), read.get(i));
 				}
+				progress++;
+				setProgress(progress);
+			}
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	private static void loadCampaign(CampaignLoader campaignLoader, URI uri,
+		Future<StringBuilder> contents)
+	{
+		try
+		{
+			campaignLoader.addCampaign(campaignLoader.parseCampaignLstString(
+				uri, contents.get().toString()));
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (PersistenceLayerException ex)
+		{
+			// LATER: This is not an appropriate way to deal with this exception.
+			// Deal with it this way because of the way the loading takes place.  XXX
+			Logging.errorPrint("PersistanceLayer", ex);
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof PersistenceLayerException)
+			{
+				Logging.errorPrint("PersistanceLayer", cause);
+			}
+			else if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			else
+			{
+				throw new IllegalStateException(cause);
 			}
-			progress++;
-			setProgress(progress);
 		}
 	}
 
@@ -53,6 +53,7 @@ import pcgen.cdom.enumeration.ObjectKey;
 import pcgen.cdom.enumeration.SourceFormat;
 import pcgen.cdom.enumeration.StringKey;
 import pcgen.cdom.enumeration.Type;
+import pcgen.cdom.reference.ReferenceManufacturer;
 import pcgen.cdom.util.CControl;
 import pcgen.cdom.util.ControlUtilities;
 import pcgen.core.Ability;
@@ -84,6 +85,7 @@ import pcgen.core.WeaponProf;
 import pcgen.core.analysis.EqModAttachment;
 import pcgen.core.prereq.PrereqHandler;
 import pcgen.core.prereq.Prerequisite;
+import pcgen.core.prereq.PrerequisiteUtilities;
 import pcgen.core.spell.Spell;
 import pcgen.facade.core.CampaignFacade;
 import pcgen.facade.core.DataSetFacade;
@@ -103,6 +105,7 @@ import pcgen.persistence.lst.GenericLocalVariableLoader;
 import pcgen.persistence.lst.GlobalModifierLoader;
 import pcgen.persistence.lst.KitLoader;
 import pcgen.persistence.lst.LstFileLoader;
+import pcgen.persistence.lst.LstFilePreloader;
 import pcgen.persistence.lst.LstLineFileLoader;
 import pcgen.persistence.lst.LstObjectFileLoader;
 import pcgen.persistence.lst.PCClassLoader;
@@ -129,6 +132,22 @@ import pcgen.util.Logging;
 public class SourceFileLoader extends PCGenTask implements Observer
 {
 
+	/*
+	 * The order in which the file lists are loaded, used to read files ahead
+	 * of the loaders.
+	 */
+	private static final ListKey<?>[] LOAD_ORDER_LISTKEY = {
+		ListKey.FILE_DATACTRL, ListKey.FILE_DATATABLE, ListKey.FILE_DYNAMIC,
+		ListKey.FILE_VARIABLE, ListKey.FILE_GLOBALMOD,
+		ListKey.FILE_ABILITY_CATEGORY, ListKey.FILE_SIZE, ListKey.FILE_STAT,
+		ListKey.FILE_SAVE, ListKey.FILE_ALIGNMENT, ListKey.FILE_WEAPON_PROF,
+		ListKey.FILE_ARMOR_PROF, ListKey.FILE_SHIELD_PROF, ListKey.FILE_SKILL,
+		ListKey.FILE_LANGUAGE, ListKey.FILE_FEAT, ListKey.FILE_ABILITY,
+		ListKey.FILE_RACE, ListKey.FILE_DOMAIN, ListKey.FILE_SPELL,
+		ListKey.FILE_DEITY, ListKey.FILE_CLASS, ListKey.FILE_TEMPLATE,
+		ListKey.FILE_EQUIP_MOD, ListKey.FILE_EQUIP, ListKey.FILE_COMPANION_MOD,
+		ListKey.FILE_KIT, ListKey.FILE_BIO_SET};
+
 	/*
 	 * File lists
 	 */
@@ -588,6 +607,69 @@ public class SourceFileLoader extends PCGenTask implements Observer
 		// progress meters that they want to.
 		setMaximum(countTotalFilesToLoad());
 
+		LstFilePreloader preloader = createPreloader();
+		LstFileLoader.setPreloader(preloader);
+		try
+		{
+			loadFileLists(gamemode, context, gameModeDir, specificGameModeDir,
+				loaded);
+		}
+		finally
+		{
+			LstFileLoader.setPreloader(null);
+			if (preloader != null)
+			{
+				preloader.shutdown();
+			}
+		}
+
+		/*
+		 * This is technically bad behavior, but we at least want to provide the
+		 * hint here since we are using WeakReferences as a container for
+		 * references to ensure those that are not used are not resolved.
+		 */
+		System.gc();
+	}
+
+	/**
+	 * Creates a preloader to read the files to be loaded on a pool of worker
+	 * threads, if parallel reading of sources is enabled. The files are still
+	 * parsed in order on this thread, so the loaded data is the same as for a
+	 * serial load.
+	 * 
+	 * @return The preloader for the files to be loaded, or null if parallel
+	 *         reading is disabled.
+	 */
+	private LstFilePreloader createPreloader()
+	{
+		if (!PCGenSettings.OPTIONS_CONTEXT.initBoolean(
+			PCGenSettings.OPTION_SOURCES_PARALLEL_READ, false))
+		{
+			return null;
+		}
+		List<URI> uris = new ArrayList<>();
+		for (ListKey<?> lk : LOAD_ORDER_LISTKEY)
+		{
+			List<CampaignSourceEntry> list = fileLists.getListFor(lk);
+			if (list != null)
+			{
+				for (CampaignSourceEntry cse : list)
+				{
+					if (cse != null)
+					{
+						uris.add(cse.getURI());
+					}
+				}
+			}
+		}
+		return new LstFilePreloader(uris, Runtime.getRuntime()
+			.availableProcessors());
+	}
+
+	private void loadFileLists(GameMode gamemode, LoadContext context,
+		File gameModeDir, File specificGameModeDir, Collection<Campaign> loaded)
+		throws PersistenceLayerException
+	{
 		// Load using the new LstFileLoaders
 		List<CampaignSourceEntry> dataDefFileList = fileLists.getListFor(ListKey.FILE_DATACTRL);
 		dataDefFileList = addDefaultDataControlIfNeeded(dataDefFileList);
@@ -687,13 +769,6 @@ public class SourceFileLoader extends PCGenTask implements Observer
 		addDefaultEquipmentMods(context);
 
 		classLoader.loadSubLines(context);
-
-		/*
-		 * This is technically bad behavior, but we at least want to provide the
-		 * hint here since we are using WeakReferences as a container for
-		 * references to ensure those that are not used are not resolved.
-		 */
-		System.gc();
 	}
 
 	private void defineBuiltinVariables(LoadContext context)
@@ -774,6 +849,10 @@ public class SourceFileLoader extends PCGenTask implements Observer
 		context.resolvePostValidationTokens();
 		context.resolvePostDeferredTokens();
 		ReferenceContextUtilities.validateAssociations(refContext, validator);
+		for (ReferenceManufacturer<?> rm : refContext.getAllManufacturers())
+		{
+			PrerequisiteUtilities.bindTests(rm.getAllObjects());
+		}
 		for (Equipment eq : refContext
 			.getConstructedCDOMObjects(Equipment.class))
 		{
@@ -157,6 +157,19 @@ public class CampaignLoader extends LstLineFileLoader
      * @throws PersistenceLayerException
      */
 	public void loadCampaignLstFile(URI filePath) throws PersistenceLayerException
+	{
+		addCampaign(parseCampaignLstFile(filePath));
+	}
+
+	/**
+	 * Parses a campaign LST file without adding it to the Global container. 
+	 * 
+	 * @param filePath The file path to load.
+	 * @return The parsed Campaign
+	 * @throws PersistenceLayerException
+	 */
+	public Campaign parseCampaignLstFile(URI filePath)
+		throws PersistenceLayerException
 	{
         // Instantiate a Campaign, which will automatically establish a LoadContext
 		campaign = new Campaign();
@@ -165,18 +178,50 @@ public class CampaignLoader extends LstLineFileLoader
         // Parses the data in the referenced URI and loads it into a LoadContext;
         // this quickly goes to the parseLine method below
 		super.loadLstFile(campaign.getCampaignContext(), filePath);
+		return campaign;
+	}
 
+	/**
+	 * Parses the contents of a campaign LST file, which have already been
+	 * read, without adding it to the Global container. The tokens of a
+	 * campaign file create shared constants such as Type, so campaign files
+	 * must be parsed one at a time, although they may be read at once.
+	 * 
+	 * @param filePath The file path the contents were read from.
+	 * @param contents The contents of the file.
+	 * @return The parsed Campaign
+	 * @throws PersistenceLayerException
+	 */
+	public Campaign parseCampaignLstString(URI filePath, String contents)
+		throws PersistenceLayerException
+	{
+		campaign = new Campaign();
+		campaign.setSourceURI(filePath);
+		LoadContext context = campaign.getCampaignContext();
+		context.setSourceURI(filePath);
+		super.loadLstString(context, filePath, contents);
+		return campaign;
+	}
+
+	/**
+	 * Adds a parsed campaign to the Global container if a campaign has not 
+	 * already been added from the same file.
+	 * 
+	 * @param parsed The Campaign returned by parseCampaignLstFile
+	 */
+	public void addCampaign(Campaign parsed)
+	{
         // Make sure this campaign has not already been added to the Global container
-        if (Globals.getCampaignByURI(campaign.getSourceURI(), false) == null)
+        if (Globals.getCampaignByURI(parsed.getSourceURI(), false) == null)
         {
             // Check the campaign's prerequisites, generating errors if any are not met but proceeding
-            validatePrereqs(campaign.getPrerequisiteList());
-            List<String> copyright = campaign.getListFor(ListKey.SECTION_15);
+            validatePrereqs(parsed, parsed.getPrerequisiteList());
+            List<String> copyright = parsed.getListFor(ListKey.SECTION_15);
             if (copyright != null)
             {
                 StringBuilder sec15 = Globals.getSection15();
                 sec15.append("<br><b>Source Material:</b>");
-                sec15.append(SourceFormat.getFormattedString(campaign,
+                sec15.append(SourceFormat.getFormattedString(parsed,
                         SourceFormat.LONG, true));
                 sec15.append("<br>");
                 sec15.append("<b>Section 15 Entry in Source Material:</b><br>");
@@ -187,7 +232,7 @@ public class CampaignLoader extends LstLineFileLoader
             }
 
             // Adds this campaign to the Global container.
-            Globals.addCampaign(campaign);
+            Globals.addCampaign(parsed);
         }
 	}
 
@@ -204,9 +249,11 @@ public class CampaignLoader extends LstLineFileLoader
 	 * errors. This is a recursive function allowing it to 
 	 * check nested prereqs.
 	 * 
+	 * @param parsed The campaign being checked.
 	 * @param prereqList The prerequisites to be checked.
 	 */
-	private void validatePrereqs(List<Prerequisite> prereqList)
+	private static void validatePrereqs(Campaign parsed,
+		List<Prerequisite> prereqList)
 	{
 		if (prereqList == null || prereqList.isEmpty())
 		{
@@ -226,11 +273,11 @@ public class CampaignLoader extends LstLineFileLoader
 							Constants.TAB);
 				Logging.log(Logging.LST_ERROR, "Prereq " + prereq.getKind()
 					+ " is not supported in PCC files. Prereq was " + lstString
-					+ " in " + campaign.getSourceURI() + ". Prereq will be ignored.");
+					+ " in " + parsed.getSourceURI() + ". Prereq will be ignored.");
 			}
 			else
 			{
-				validatePrereqs(prereq.getPrerequisites());
+				validatePrereqs(parsed, prereq.getPrerequisites());
 			}
 		}
 	}
@@ -43,14 +43,14 @@ public class InstallLoader extends LstLineFileLoader
 	private InstallableCampaign campaign = null;
 
 	/**
-	 * @see pcgen.persistence.lst.LstLineFileLoader#loadLstString(LoadContext, URI, String)
+	 * @see pcgen.persistence.lst.LstLineFileLoader#loadLstLines(LoadContext, URI, LstLineReader)
 	 */
 	@Override
-	public void loadLstString(LoadContext context, URI fileName, String lstData) throws PersistenceLayerException
+	protected void loadLstLines(LoadContext context, URI fileName, LstLineReader reader) throws PersistenceLayerException
 	{
 		campaign = new InstallableCampaign();
 		campaign.setSourceURI(fileName);
-		super.loadLstString(context, fileName, lstData);
+		super.loadLstLines(context, fileName, reader);
 	}
 
 	/* (non-Javadoc)
@@ -24,11 +24,22 @@ package pcgen.persistence.lst;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.commons.io.input.CharSequenceReader;
 
 import pcgen.cdom.base.Constants;
 import pcgen.core.SettingsHandler;
@@ -67,6 +78,21 @@ public final class LstFileLoader
 	/** The String that separates individual objects */
 	public static final String LINE_SEPARATOR_REGEXP = "(\r\n?|\n)"; //$NON-NLS-1$
 
+	/** The preloader serving files read ahead of the loaders, if any. */
+	private static volatile LstFilePreloader preloader = null;
+
+	/**
+	 * Sets the preloader that will be checked for the contents of a file
+	 * before the file is read by readFromURI.
+	 *
+	 * @param filePreloader The preloader to be used, or null to read all
+	 *            files directly
+	 */
+	public static void setPreloader(LstFilePreloader filePreloader)
+	{
+		preloader = filePreloader;
+	}
+
 	/**
 	 * This method reads the given URL and stores its contents in the provided
 	 * data buffer, returning a URL to the specified file for use in log/error
@@ -86,102 +112,220 @@ public final class LstFileLoader
 			throw new PersistenceLayerException(
 				"LstFileLoader.readFromURI() received a null uri parameter!");
 		}
-		
-		URL url;
-		try {
-			url = uri.toURL();
-		} catch (MalformedURLException e) {
+
+		LstFilePreloader filePreloader = preloader;
+		if (filePreloader != null)
+		{
+			StringBuilder dataBuffer = filePreloader.take(uri);
+			if (dataBuffer != null)
+			{
+				return dataBuffer;
+			}
+		}
+		return loadFromURI(uri);
+	}
+
+	/**
+	 * Opens the given URI so that its contents can be read one line at a time,
+	 * without first reading the whole file into memory. Files served by the
+	 * preloader are read from the preloaded contents.
+	 *
+	 * @param uri The URI of the file to be read
+	 * @param joinContinuations true if lines starting with a tab should be
+	 *            joined to the previous line; false otherwise
+	 * @return An LstLineReader for the contents of the file. This will be
+	 *         empty if the file could not be opened.
+	 * @throws PersistenceLayerException if the URI is null or not a valid URL
+	 */
+	public static LstLineReader openLineReader(URI uri,
+		boolean joinContinuations) throws PersistenceLayerException
+	{
+		if (uri == null)
+		{
+			// We have a problem!
 			throw new PersistenceLayerException(
-					"LstFileLoader.readFromURI() could not convert parameter to a URL: "
-							+ e.getLocalizedMessage());
+				"LstFileLoader.openLineReader() received a null uri parameter!");
 		}
-		InputStream inputStream = null;
 
-		StringBuilder dataBuffer = null;
-		try
+		LstFilePreloader filePreloader = preloader;
+		if (filePreloader != null)
+		{
+			StringBuilder dataBuffer = filePreloader.take(uri);
+			if (dataBuffer != null)
+			{
+				return new LstLineReader(new CharSequenceReader(dataBuffer),
+					joinContinuations);
+			}
+		}
+
+		URL url = toURL(uri);
+		if (isPermitted(url))
+		{
+			try
+			{
+				return new LstLineReader(openReader(uri, url),
+					joinContinuations);
+			}
+			catch (IOException ioe)
+			{
+				logReadError(url, ioe);
+			}
+		}
+		return new LstLineReader("", joinContinuations);
+	}
+
+	/**
+	 * Reads the given URL directly, bypassing any preloader.
+	 *
+	 * @param uri The URI of the file to be read
+	 * @return The contents of the file
+	 * @throws PersistenceLayerException if the URI is not a valid URL
+	 */
+	static StringBuilder loadFromURI(URI uri) throws PersistenceLayerException
+	{
+		URL url = toURL(uri);
+		if (!isPermitted(url))
+		{
+			return new StringBuilder();
+		}
+		return readURL(uri, url);
+	}
+
+	/**
+	 * Reads the given URL for the preloader. Unlike loadFromURI, this never
+	 * asks the user anything, so it may be called on a worker thread.
+	 *
+	 * @param uri The URI of the file to be read
+	 * @return The contents of the file, or null if the file may not be read
+	 *         without asking the user
+	 * @throws PersistenceLayerException if the URI is not a valid URL
+	 */
+	static StringBuilder preloadFromURI(URI uri)
+		throws PersistenceLayerException
+	{
+		URL url = toURL(uri);
+		return isAllowed(url) ? readURL(uri, url) : null;
+	}
+
+	private static StringBuilder readURL(URI uri, URL url)
+	{
+		// try to make a buffer of sufficient size in one go to save on GC
+		int size = 2048;
+		if ("file".equals(url.getProtocol())) 
 		{
-			//only load local urls, unless loading of URLs is allowed
-			if (!CoreUtility.isNetURL(url) || SettingsHandler.isLoadURLs())
+			long fileSize = new File(url.getPath()).length();
+			if (fileSize > 0)
+			{
+				// this is an overestimate if the LST has wide 
+				// characters, but it's accurate for ASCII
+				size = (int) fileSize; 
+			}
+		}
+		StringBuilder dataBuffer = new StringBuilder(size);
+
+		try (Reader reader = openReader(uri, url))
+		{
+			// Buffer the stream content
+			final char[] b = new char[8192];
+			int n;
+
+			n = reader.read(b, 0, 1);
+			// Take out the optional BOM
+			if (n == 1 && b[0] != '\uFEFF')
 			{
-				// try to make a buffer of sufficient size in one go to save on GC
-				int size = 2048;
-				if ("file".equals(url.getProtocol())) 
-				{
-					long fileSize = new File(url.getPath()).length();
-					if (fileSize > 0)
-					{
-						// this is an overestimate if the LST has wide 
-						// characters, but it's accurate for ASCII
-						size = (int) fileSize; 
-					}
-				}
-				dataBuffer = new StringBuilder(size);
-
-				// Get the URL and open the stream
-				inputStream = url.openStream();
-
-				// Read from the stream
-				final InputStreamReader ir =
-						new InputStreamReader(inputStream, "UTF-8"); //$NON-NLS-1$
-
-				// Buffer the stream content
-				final char[] b = new char[512];
-				int n;
-
-				n = ir.read(b, 0, 1);
-				/*
-				 * Take out the optional BOM: This is a pre-Java 1.6 workaround
-				 * for Sun B-U-G 4508058, see:
-				 * http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=4508058
-				 */
-				if (n == 1 && b[0] != '\uFEFF')
-				{
-					dataBuffer.append(b, 0, 1);
-				}
-				while ((n = ir.read(b)) > 0)
-				{
-					dataBuffer.append(b, 0, n);
-				}
+				dataBuffer.append(b, 0, 1);
 			}
-			else
+			while ((n = reader.read(b)) > 0)
 			{
-				// Just to protect people from using web
-				// sources without their knowledge,
-				// we added a preference.
-				ShowMessageDelegate
-					.showMessageDialog(
-						"Preferences are currently set to NOT allow\nloading of "
-							+ "sources from web links. \n" + url
-							+ " is a web link", Constants.APPLICATION_NAME,
-						MessageType.ERROR);
-				// aURL = null; //currently unnecessary reassignment 
+				dataBuffer.append(b, 0, n);
 			}
 		}
 		catch (IOException ioe)
 		{
-			// Don't throw an exception here because a simple
-			// file not found will prevent ANY other files from
-			// being loaded/processed -- NOT what we want
-			Logging.errorPrint("ERROR:" + url + "\n" + "Exception type:"
-				+ ioe.getClass().getName() + "\n" + "Message:"
-				+ ioe.getMessage());
+			logReadError(url, ioe);
 		}
-		finally
+		return dataBuffer;
+	}
+
+	private static URL toURL(URI uri) throws PersistenceLayerException
+	{
+		try
+		{
+			return uri.toURL();
+		}
+		catch (MalformedURLException e)
 		{
-			if (inputStream != null)
+			throw new PersistenceLayerException(
+				"LstFileLoader could not convert " + uri + " to a URL: "
+					+ e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * Checks that the given URL may be read. Only local urls are loaded,
+	 * unless loading of URLs is allowed.
+	 */
+	private static boolean isPermitted(URL url)
+	{
+		if (isAllowed(url))
+		{
+			return true;
+		}
+		// Just to protect people from using web
+		// sources without their knowledge,
+		// we added a preference.
+		ShowMessageDelegate.showMessageDialog(
+			"Preferences are currently set to NOT allow\nloading of "
+				+ "sources from web links. \n" + url + " is a web link",
+			Constants.APPLICATION_NAME, MessageType.ERROR);
+		return false;
+	}
+
+	/**
+	 * Checks that the given URL may be read without asking the user.
+	 */
+	private static boolean isAllowed(URL url)
+	{
+		return !CoreUtility.isNetURL(url) || SettingsHandler.isLoadURLs();
+	}
+
+	/**
+	 * Opens a Reader decoding the given URL as UTF-8. Local files are read
+	 * through a channel rather than through the URL handler.
+	 */
+	private static Reader openReader(URI uri, URL url) throws IOException
+	{
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		if ("file".equals(url.getProtocol()))
+		{
+			Path path = null;
+			try
+			{
+				path = Paths.get(uri);
+			}
+			catch (IllegalArgumentException | FileSystemNotFoundException e)
 			{
-				try
-				{
-					inputStream.close();
-				}
-				catch (IOException e2)
-				{
-					Logging.errorPrint(
-						"Can't close inputStream in LstSystemLoader.initFile",
-						e2);
-				}
+				// Not a local file system path, so read through the URL
+			}
+			if (path != null)
+			{
+				return Channels.newReader(
+					FileChannel.open(path, StandardOpenOption.READ), decoder,
+					-1);
 			}
 		}
-		return dataBuffer == null ? new StringBuilder() : dataBuffer;
+		return new InputStreamReader(url.openStream(), decoder);
+	}
+
+	private static void logReadError(URL url, IOException ioe)
+	{
+		// Don't throw an exception here because a simple
+		// file not found will prevent ANY other files from
+		// being loaded/processed -- NOT what we want
+		Logging.errorPrint("ERROR:" + url + "\n" + "Exception type:"
+			+ ioe.getClass().getName() + "\n" + "Message:"
+			+ ioe.getMessage());
 	}
 }
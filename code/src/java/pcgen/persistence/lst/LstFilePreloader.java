@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.persistence.lst;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import pcgen.persistence.PersistenceLayerException;
+import pcgen.util.Logging;
+
+/**
+ * LstFilePreloader reads LST files on a pool of worker threads ahead of the
+ * loaders that will parse them.
+ *
+ * <p>
+ * The files are submitted in the order in which they will be requested, and
+ * only a bounded number of files are read ahead of the loaders, so memory use
+ * stays proportional to the look ahead window rather than the data set.
+ * Parsing (and therefore all changes to the LoadContext) still happens on the
+ * thread that requests the file, in the same order as a serial load, so the
+ * loaded data is identical to that of a serial load.
+ *
+ * <p>
+ * A file that was not preloaded (or is requested more than once) is simply
+ * not served by the preloader, and the caller must read it directly. A file
+ * that is not requested in its turn (because a later file is requested first)
+ * is discarded, so that the files which are never requested do not use up the
+ * look ahead window.
+ *
+ * <p>
+ * The worker threads never interact with the user: a file which may not be
+ * read without asking the user (such as a web link) is left for the caller to
+ * read directly.
+ */
+public final class LstFilePreloader
+{
+	/**
+	 * The number of files read ahead of the loaders for each worker thread.
+	 */
+	private static final int FILES_PER_THREAD = 8;
+
+	private final ExecutorService executor;
+	private final LinkedHashSet<URI> pending;
+	private final Map<URI, Future<StringBuilder>> inFlight =
+			new LinkedHashMap<>();
+	private final int window;
+
+	/**
+	 * Creates a new LstFilePreloader which will read the given files using the
+	 * given number of worker threads.
+	 *
+	 * @param uris
+	 *            The URIs of the files to be read, in the order in which they
+	 *            will be requested
+	 * @param threadCount
+	 *            The number of worker threads to read the files
+	 */
+	public LstFilePreloader(Collection<URI> uris, int threadCount)
+	{
+		int threads = Math.max(1, threadCount);
+		pending = new LinkedHashSet<>(uris);
+		window = threads * FILES_PER_THREAD;
+		executor = Executors.newFixedThreadPool(threads, r ->
+		{
+			Thread thread = new Thread(r, "Lst-preload-thread"); //$NON-NLS-1$
+			thread.setDaemon(true);
+			thread.setPriority(Thread.NORM_PRIORITY);
+			return thread;
+		});
+		fill();
+	}
+
+	/**
+	 * Returns the contents of the given file if it has been (or is being)
+	 * preloaded. This will wait for the read of the file to complete.
+	 *
+	 * @param uri
+	 *            The URI of the file to be returned
+	 * @return The contents of the file, or null if the file was not preloaded
+	 * @throws PersistenceLayerException
+	 *             if the file could not be read
+	 */
+	synchronized StringBuilder take(URI uri) throws PersistenceLayerException
+	{
+		Future<StringBuilder> future = inFlight.get(uri);
+		if (future == null)
+		{
+			if (pending.remove(uri))
+			{
+				//Requested ahead of every file in flight - don't read it later
+				expireBefore(null);
+				fill();
+			}
+			return null;
+		}
+		expireBefore(uri);
+		inFlight.remove(uri);
+		fill();
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new PersistenceLayerException(
+				"Interrupted while reading " + uri);
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof PersistenceLayerException)
+			{
+				throw (PersistenceLayerException) cause;
+			}
+			Logging.errorPrint("Failed to preload " + uri, cause);
+			return null;
+		}
+	}
+
+	/**
+	 * Stops the worker threads and discards any files that have not been
+	 * requested.
+	 */
+	public synchronized void shutdown()
+	{
+		pending.clear();
+		for (Future<StringBuilder> future : inFlight.values())
+		{
+			future.cancel(true);
+		}
+		inFlight.clear();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Discards the files in flight which were submitted before the given file,
+	 * as they were not requested in their turn.
+	 * 
+	 * @param uri
+	 *            The URI of the file being requested, or null to discard every
+	 *            file in flight
+	 */
+	private void expireBefore(URI uri)
+	{
+		for (Iterator<Map.Entry<URI, Future<StringBuilder>>> it =
+				inFlight.entrySet().iterator(); it.hasNext();)
+		{
+			Map.Entry<URI, Future<StringBuilder>> entry = it.next();
+			if (entry.getKey().equals(uri))
+			{
+				return;
+			}
+			entry.getValue().cancel(true);
+			it.remove();
+		}
+	}
+
+	private void fill()
+	{
+		while (inFlight.size() < window && !pending.isEmpty())
+		{
+			URI uri = pending.iterator().next();
+			pending.remove(uri);
+			inFlight.put(uri,
+				executor.submit(() -> LstFileLoader.preloadFromURI(uri)));
+		}
+	}
+}
@@ -22,15 +22,16 @@
  */
 package pcgen.persistence.lst;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Observable;
 import java.util.Set;
-import java.util.StringTokenizer;
 
 import pcgen.persistence.PersistenceLayerException;
 import pcgen.rules.context.LoadContext;
+import pcgen.util.Logging;
 
 /**
  * This class is an extension of the LstFileLoader that loads items
@@ -70,13 +71,26 @@ public abstract class LstLineFileLoader extends Observable
 	 */
 	public void loadLstFile(LoadContext context, URI uri) throws PersistenceLayerException
 	{
-		StringBuilder dataBuffer = LstFileLoader.readFromURI(uri);
-		final String aString = dataBuffer.toString();
+		LstLineReader reader = LstFileLoader.openLineReader(uri, false);
 		if (context != null)
 		{
 			context.setSourceURI(uri);
 		}
-		loadLstString(context, uri, aString);
+		try
+		{
+			loadLstLines(context, uri, reader);
+		}
+		finally
+		{
+			try
+			{
+				reader.close();
+			}
+			catch (IOException e)
+			{
+				Logging.errorPrint("Can't close reader for " + uri, e);
+			}
+		}
 	}
 
 	/**
@@ -89,22 +103,40 @@ public abstract class LstLineFileLoader extends Observable
 	public void loadLstString(LoadContext context, URI uri, final String aString)
 		throws PersistenceLayerException
 	{
-		final String newlinedelim = "\r\n";
-		final StringTokenizer fileLines =
-				new StringTokenizer(aString, newlinedelim);
+		loadLstLines(context, uri, new LstLineReader(aString, false));
+	}
 
-		while (fileLines.hasMoreTokens())
+	/**
+	 * This method loads the lines of a single LST formatted file.
+	 * @param uri String containing the absolute file path
+	 * or the URL from which the LST formatted data is read.
+	 * @param reader The LstLineReader providing the LST formatted data
+	 * @throws PersistenceLayerException
+	 */
+	protected void loadLstLines(LoadContext context, URI uri,
+		LstLineReader reader) throws PersistenceLayerException
+	{
+		try
 		{
-			String line = fileLines.nextToken().trim();
-
-			// check for comments and blank lines
-			if ((line.length() == 0)
-				|| (line.charAt(0) == LstFileLoader.LINE_COMMENT_CHAR))
+			String line;
+			while ((line = reader.readLine()) != null)
 			{
-				continue;
-			}
+				line = line.trim();
+
+				// check for comments and blank lines
+				if ((line.length() == 0)
+					|| (line.charAt(0) == LstFileLoader.LINE_COMMENT_CHAR))
+				{
+					continue;
+				}
 
-			parseLine(context, line, uri);
+				parseLine(context, line, uri);
+			}
+		}
+		catch (IOException e)
+		{
+			throw new PersistenceLayerException("Unable to read " + uri
+				+ ": " + e.getMessage());
 		}
 	}
 
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.persistence.lst;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * LstLineReader reads the lines of an LST file incrementally from a Reader,
+ * so that the whole file never needs to be held in memory.
+ *
+ * <p>
+ * Lines may be terminated by \r\n, \r or \n. A leading byte order mark is
+ * discarded. If continuations are enabled, a line terminated by \n or \r\n
+ * which is followed by a line starting with a tab is joined to that following
+ * line (the line terminator is dropped and the tab retained), which matches
+ * the multi-line object format allowed in the sources preferences.
+ *
+ * <p>
+ * Instances of LstLineReader are not thread-safe.
+ */
+public final class LstLineReader implements Closeable
+{
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+	private final Reader reader;
+	private final boolean joinContinuations;
+	private final char[] buffer = new char[8192];
+	private final StringBuilder line = new StringBuilder(256);
+	private int position = 0;
+	private int limit = 0;
+	private boolean started = false;
+	private int physicalLine = 0;
+	private int lineNumber = 0;
+
+	/**
+	 * Creates a new LstLineReader reading from the given Reader.
+	 *
+	 * @param reader
+	 *            The Reader from which the LST data is to be read
+	 * @param joinContinuations
+	 *            true if lines starting with a tab should be joined to the
+	 *            previous line; false otherwise
+	 */
+	public LstLineReader(Reader reader, boolean joinContinuations)
+	{
+		this.reader = reader;
+		this.joinContinuations = joinContinuations;
+	}
+
+	/**
+	 * Creates a new LstLineReader reading the given LST data.
+	 *
+	 * @param lstData
+	 *            The LST formatted data to be read
+	 * @param joinContinuations
+	 *            true if lines starting with a tab should be joined to the
+	 *            previous line; false otherwise
+	 */
+	public LstLineReader(String lstData, boolean joinContinuations)
+	{
+		this(new StringReader(lstData), joinContinuations);
+	}
+
+	/**
+	 * Returns the next line of the LST data, without its line terminator.
+	 * Empty lines are returned as empty Strings.
+	 *
+	 * @return The next line, or null if the end of the data has been reached
+	 * @throws IOException
+	 *             if the underlying Reader fails
+	 */
+	public String readLine() throws IOException
+	{
+		if (!started)
+		{
+			started = true;
+			if (peek() == BYTE_ORDER_MARK)
+			{
+				position++;
+			}
+		}
+		line.setLength(0);
+		lineNumber = physicalLine + 1;
+		boolean readAny = false;
+		while (true)
+		{
+			int c = read();
+			if (c == -1)
+			{
+				if (!readAny)
+				{
+					return null;
+				}
+				physicalLine++;
+				return line.toString();
+			}
+			readAny = true;
+			if (c == '\r')
+			{
+				physicalLine++;
+				if (peek() != '\n')
+				{
+					return line.toString();
+				}
+				position++;
+				if (!isContinued())
+				{
+					return line.toString();
+				}
+			}
+			else if (c == '\n')
+			{
+				physicalLine++;
+				if (!isContinued())
+				{
+					return line.toString();
+				}
+			}
+			else
+			{
+				line.append((char) c);
+			}
+		}
+	}
+
+	/**
+	 * Returns the line number (counting from 1) in the underlying data at
+	 * which the line most recently returned by readLine started.
+	 *
+	 * @return The line number of the most recently returned line
+	 */
+	public int getLineNumber()
+	{
+		return lineNumber;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		reader.close();
+	}
+
+	private boolean isContinued() throws IOException
+	{
+		return joinContinuations && peek() == '\t';
+	}
+
+	private int read() throws IOException
+	{
+		if (position >= limit && !fill())
+		{
+			return -1;
+		}
+		return buffer[position++];
+	}
+
+	private int peek() throws IOException
+	{
+		if (position >= limit && !fill())
+		{
+			return -1;
+		}
+		return buffer[position];
+	}
+
+	private boolean fill() throws IOException
+	{
+		int count;
+		do
+		{
+			count = reader.read(buffer, 0, buffer.length);
+		}
+		while (count == 0);
+		if (count < 0)
+		{
+			return false;
+		}
+		position = 0;
+		limit = count;
+		return true;
+	}
+}
@@ -22,6 +22,7 @@
  */
 package pcgen.persistence.lst;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Date;
@@ -329,11 +330,16 @@ public abstract class LstObjectFileLoader<T extends CDOMObject> extends Observab
 		URI uri = sourceEntry.getURI();
 		notifyObservers(uri);
 
-		StringBuilder dataBuffer;
+		boolean allowMultiLine =
+				PCGenSettings.OPTIONS_CONTEXT.initBoolean(
+					PCGenSettings.OPTION_SOURCES_ALLOW_MULTI_LINE, false);
+		LstLineReader reader;
 
 		try
 		{
-			dataBuffer = LstFileLoader.readFromURI(uri);
+			// Support the new file type. All lines that start with a tab
+			// belong to the previous line.
+			reader = LstFileLoader.openLineReader(uri, allowMultiLine);
 		}
 		catch (PersistenceLayerException ple)
 		{
@@ -345,7 +351,6 @@ public abstract class LstObjectFileLoader<T extends CDOMObject> extends Observab
 			return;
 		}
 
-		String aString = dataBuffer.toString();
 		if (context != null)
 		{
 			context.setSourceURI(uri);
@@ -353,127 +358,134 @@ public abstract class LstObjectFileLoader<T extends CDOMObject> extends Observab
 		T target = null;
 		ArrayList<ModEntry> classModLines = null;
 
-		boolean allowMultiLine =
-				PCGenSettings.OPTIONS_CONTEXT.initBoolean(
-					PCGenSettings.OPTION_SOURCES_ALLOW_MULTI_LINE, false);
-		if (allowMultiLine)
-		{
-			// Support the new file type. All lines that start with a tab belong to the previous line.
-			aString = aString.replaceAll("\r?\n\t", "\t");
-		}
-		
-		String[] fileLines = aString.split(LstFileLoader.LINE_SEPARATOR_REGEXP);
-
-		for (int i = 0; i < fileLines.length; i++)
+		try
 		{
-			String line = fileLines[i];
-			if ((line.length() == 0)
-				|| (line.charAt(0) == LstFileLoader.LINE_COMMENT_CHAR))
-			{
-				continue;
-			}
-			int sepLoc = line.indexOf(FIELD_SEPARATOR);
-			String firstToken;
-			if (sepLoc == -1)
-			{
-				firstToken = line;
-			}
-			else
+			String line;
+			while ((line = reader.readLine()) != null)
 			{
-				firstToken = line.substring(0, sepLoc);
-			}
-
-			// Check for continuation of class mods
-			if (classModLines != null)
-			{
-				// TODO - Figure out why we need to check CLASS: in this file.
-				if (firstToken.startsWith("CLASS:")) //$NON-NLS-1$
+				if ((line.length() == 0)
+					|| (line.charAt(0) == LstFileLoader.LINE_COMMENT_CHAR))
 				{
-					modEntryList.add(classModLines);
-					classModLines = null;
+					continue;
 				}
-				else
+				int lineNumber = reader.getLineNumber();
+				int sepLoc = line.indexOf(FIELD_SEPARATOR);
+				int firstTokenEnd = (sepLoc == -1) ? line.length() : sepLoc;
+
+				// Check for continuation of class mods
+				if (classModLines != null)
 				{
-					// Add the line to the class mod and don't process it yet.
-					classModLines.add(new ModEntry(sourceEntry, line, i + 1));
-					continue;
+					// TODO - Figure out why we need to check CLASS: in this file.
+					if (line.startsWith("CLASS:")) //$NON-NLS-1$
+					{
+						modEntryList.add(classModLines);
+						classModLines = null;
+					}
+					else
+					{
+						// Add the line to the class mod and don't process it yet.
+						classModLines.add(new ModEntry(sourceEntry, line,
+							lineNumber));
+						continue;
+					}
 				}
-			}
 
-			// check for copies, mods, and forgets
-			// TODO - Figure out why we need to check SOURCE in this file
-			if (line.startsWith("SOURCE")) //$NON-NLS-1$
-			{
-				SourceLoader.parseLine(context, line, uri);
-			}
-			else if (line.trim().length()==0)
-			{
-				// Ignore the line
-			}
-			else if (firstToken.indexOf(COPY_SUFFIX) > 0)
-			{
-				copyLineList.add(new ModEntry(sourceEntry, line,
-					i + 1));
-			}
-			else if (firstToken.indexOf(MOD_SUFFIX) > 0)
-			{
-				// TODO - Figure out why we need to check CLASS: in this file.
-				if (firstToken.startsWith("CLASS:")) //$NON-NLS-1$
+				// check for copies, mods, and forgets
+				// TODO - Figure out why we need to check SOURCE in this file
+				if (line.startsWith("SOURCE")) //$NON-NLS-1$
 				{
-					// As CLASS:abc.MOD can be followed by level lines, we place the
-					// lines into a list for processing in a group afterwards
-					classModLines = new ArrayList<>();
-					classModLines.add(new ModEntry(sourceEntry, line, i + 1));
+					SourceLoader.parseLine(context, line, uri);
 				}
-				else
+				else if (line.trim().length()==0)
 				{
-					List<ModEntry> modLines = new ArrayList<>(1);
-					modLines.add(new ModEntry(sourceEntry, line, i + 1));
-					modEntryList.add(modLines);
+					// Ignore the line
 				}
-			}
-			else if (firstToken.indexOf(FORGET_SUFFIX) > 0)
-			{
-				forgetLineList.add(line);
-			}
-			else
-			{
-				try
+				else if (isInFirstToken(line, COPY_SUFFIX, firstTokenEnd))
 				{
-					target = parseLine(context, target, line, sourceEntry);
+					copyLineList.add(new ModEntry(sourceEntry, line,
+						lineNumber));
 				}
-				catch (PersistenceLayerException ple)
+				else if (isInFirstToken(line, MOD_SUFFIX, firstTokenEnd))
 				{
-					String message =
-							LanguageBundle.getFormattedString(
-								"Errors.LstFileLoader.ParseError", //$NON-NLS-1$
-								uri, i + 1, ple.getMessage());
-					Logging.errorPrint(message);
-					setChanged();
-					if (Logging.isDebugMode())
+					// TODO - Figure out why we need to check CLASS: in this file.
+					if (line.startsWith("CLASS:")) //$NON-NLS-1$
 					{
-						Logging.debugPrint("Parse error:", ple); //$NON-NLS-1$
+						// As CLASS:abc.MOD can be followed by level lines, we place the
+						// lines into a list for processing in a group afterwards
+						classModLines = new ArrayList<>();
+						classModLines.add(new ModEntry(sourceEntry, line,
+							lineNumber));
 					}
+					else
+					{
+						List<ModEntry> modLines = new ArrayList<>(1);
+						modLines.add(new ModEntry(sourceEntry, line,
+							lineNumber));
+						modEntryList.add(modLines);
+					}
+				}
+				else if (isInFirstToken(line, FORGET_SUFFIX, firstTokenEnd))
+				{
+					forgetLineList.add(line);
 				}
-				catch (Throwable t)
+				else
 				{
-					String message =
-							LanguageBundle.getFormattedString(
-								"Errors.LstFileLoader.ParseError", //$NON-NLS-1$
-								uri, i + 1, t.getMessage());
-					Logging.errorPrint(message, t);
-					setChanged();
-					Logging.errorPrint(LanguageBundle
-						.getString("Errors.LstFileLoader.Ignoring: " + t.getMessage()));
-					if  (Logging.isDebugMode())
+					try
+					{
+						target = parseLine(context, target, line, sourceEntry);
+					}
+					catch (PersistenceLayerException ple)
+					{
+						String message =
+								LanguageBundle.getFormattedString(
+									"Errors.LstFileLoader.ParseError", //$NON-NLS-1$
+									uri, lineNumber, ple.getMessage());
+						Logging.errorPrint(message);
+						setChanged();
+						if (Logging.isDebugMode())
+						{
+							Logging.debugPrint("Parse error:", ple); //$NON-NLS-1$
+						}
+					}
+					catch (Throwable t)
 					{
+						String message =
+								LanguageBundle.getFormattedString(
+									"Errors.LstFileLoader.ParseError", //$NON-NLS-1$
+									uri, lineNumber, t.getMessage());
+						Logging.errorPrint(message, t);
+						setChanged();
 						Logging.errorPrint(LanguageBundle
-								.getString("Errors.LstFileLoader.Ignoring"), t);
-						t.printStackTrace();
+							.getString("Errors.LstFileLoader.Ignoring: " + t.getMessage()));
+						if  (Logging.isDebugMode())
+						{
+							Logging.errorPrint(LanguageBundle
+									.getString("Errors.LstFileLoader.Ignoring"), t);
+							t.printStackTrace();
+						}
 					}
 				}
 			}
 		}
+		catch (IOException ioe)
+		{
+			String message = LanguageBundle.getFormattedString(
+				"Errors.LstFileLoader.LoadError", //$NON-NLS-1$
+				uri, ioe.getMessage());
+			Logging.errorPrint(message);
+			setChanged();
+		}
+		finally
+		{
+			try
+			{
+				reader.close();
+			}
+			catch (IOException e)
+			{
+				Logging.errorPrint("Can't close reader for " + uri, e);
+			}
+		}
 
 		if (classModLines != null)
 		{
@@ -499,6 +511,23 @@ public abstract class LstObjectFileLoader<T extends CDOMObject> extends Observab
 		}
 	}
 
+	/**
+	 * Checks if the given suffix appears (other than at the start) in the
+	 * first token of the given line, without creating the first token.
+	 * 
+	 * @param line The LST line to be checked
+	 * @param suffix The suffix to be found
+	 * @param firstTokenEnd The index of the end of the first token
+	 * @return true if the first occurrence of the suffix in the line is in the
+	 *         first token and not at the start of the line; false otherwise
+	 */
+	private static boolean isInFirstToken(String line, String suffix,
+		int firstTokenEnd)
+	{
+		int loc = line.indexOf(suffix);
+		return loc > 0 && loc + suffix.length() <= firstTokenEnd;
+	}
+
 	/**
 	 * This method, when implemented, will perform a single .FORGET
 	 * operation.
@@ -21,6 +21,7 @@
  */
 package pcgen.persistence.lst;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.HashSet;
 import java.util.List;
@@ -110,11 +111,11 @@ public class VariableLoader extends Observable
 		URI uri = sourceEntry.getURI();
 		notifyObservers(uri);
 
-		StringBuilder dataBuffer;
+		LstLineReader reader;
 
 		try
 		{
-			dataBuffer = LstFileLoader.readFromURI(uri);
+			reader = LstFileLoader.openLineReader(uri, false);
 		}
 		catch (PersistenceLayerException ple)
 		{
@@ -127,65 +128,85 @@ public class VariableLoader extends Observable
 			return;
 		}
 
-		String aString = dataBuffer.toString();
 		if (context != null)
 		{
 			context.setSourceURI(uri);
 		}
 
-		String[] fileLines = aString.split(LstFileLoader.LINE_SEPARATOR_REGEXP);
-
-		for (int i = 0; i < fileLines.length; i++)
+		try
 		{
-			String line = fileLines[i];
-			if ((line.length() == 0)
-				|| (line.charAt(0) == LstFileLoader.LINE_COMMENT_CHAR))
+			String line;
+			while ((line = reader.readLine()) != null)
 			{
-				continue;
-			}
+				if ((line.length() == 0)
+					|| (line.charAt(0) == LstFileLoader.LINE_COMMENT_CHAR))
+				{
+					continue;
+				}
 
-			if (line.trim().length() == 0)
-			{
-				// Ignore the line
-			}
-			else
-			{
-				try
+				if (line.trim().length() == 0)
 				{
-					parseLine(context, line, sourceEntry);
+					// Ignore the line
 				}
-				catch (PersistenceLayerException ple)
+				else
 				{
-					String message =
-							LanguageBundle.getFormattedString(
-								"Errors.LstFileLoader.ParseError", //$NON-NLS-1$
-								uri, i + 1, ple.getMessage());
-					Logging.errorPrint(message);
-					setChanged();
-					if (Logging.isDebugMode())
+					try
 					{
-						Logging.debugPrint("Parse error:", ple); //$NON-NLS-1$
+						parseLine(context, line, sourceEntry);
 					}
-				}
-				catch (Throwable t)
-				{
-					String message =
-							LanguageBundle.getFormattedString(
-								"Errors.LstFileLoader.ParseError", //$NON-NLS-1$
-								uri, i + 1, t.getMessage());
-					Logging.errorPrint(message, t);
-					setChanged();
-					Logging.errorPrint(LanguageBundle
-						.getString("Errors.LstFileLoader.Ignoring: "
-							+ t.getMessage()));
-					if (Logging.isDebugMode())
+					catch (PersistenceLayerException ple)
 					{
+						String message =
+								LanguageBundle.getFormattedString(
+									"Errors.LstFileLoader.ParseError", //$NON-NLS-1$
+									uri, reader.getLineNumber(), ple.getMessage());
+						Logging.errorPrint(message);
+						setChanged();
+						if (Logging.isDebugMode())
+						{
+							Logging.debugPrint("Parse error:", ple); //$NON-NLS-1$
+						}
+					}
+					catch (Throwable t)
+					{
+						String message =
+								LanguageBundle.getFormattedString(
+									"Errors.LstFileLoader.ParseError", //$NON-NLS-1$
+									uri, reader.getLineNumber(), t.getMessage());
+						Logging.errorPrint(message, t);
+						setChanged();
 						Logging.errorPrint(LanguageBundle
-							.getString("Errors.LstFileLoader.Ignoring"), t);
-						t.printStackTrace();
+							.getString("Errors.LstFileLoader.Ignoring: "
+								+ t.getMessage()));
+						if (Logging.isDebugMode())
+						{
+							Logging.errorPrint(LanguageBundle
+								.getString("Errors.LstFileLoader.Ignoring"), t);
+							t.printStackTrace();
+						}
 					}
 				}
 			}
 		}
+		catch (IOException ioe)
+		{
+			String message =
+					LanguageBundle.getFormattedString(
+						"Errors.LstFileLoader.LoadError", //$NON-NLS-1$
+						uri, ioe.getMessage());
+			Logging.errorPrint(message);
+			setChanged();
+		}
+		finally
+		{
+			try
+			{
+				reader.close();
+			}
+			catch (IOException e)
+			{
+				Logging.errorPrint("Can't close reader for " + uri, e);
+			}
+		}
 	}
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.pluginmgr;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * The template <code>AsynchronousMessageHandler</code> defines a
+ * PCGenMessageHandler which is advised of messages on its own thread rather
+ * than on the thread which sent the message. Messages are queued for the
+ * handler and delivered one at a time, highest priority first and otherwise in
+ * the order they were sent.
+ *
+ * <p>
+ * As the sender does not wait for an asynchronous handler, such a handler
+ * cannot consume a message. It is advised of a message only if the message was
+ * not consumed by a handler ahead of it, and it must use
+ * SwingUtilities.invokeLater to change any user interface.
+ */
+public interface AsynchronousMessageHandler extends PCGenMessageHandler
+{
+	/**
+	 * Returns the types of message this handler wishes to be advised of. The
+	 * handler is advised only of messages which are an instance of one of
+	 * these types. By default the handler is advised of every message.
+	 * 
+	 * @return The types of message handled
+	 */
+	public default Collection<Class<? extends PCGenMessage>> getMessageTypes()
+	{
+		return Collections.singleton(PCGenMessage.class);
+	}
+}
@@ -22,15 +22,35 @@
  */
 package pcgen.pluginmgr;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import javax.swing.event.EventListenerList;
 
 import pcgen.pluginmgr.messages.ComponentAddedMessage;
 import pcgen.pluginmgr.messages.ComponentRemovedMessage;
+import pcgen.util.Logging;
 
 /**
  * The Class <code>MessageHandlerManager</code> records the list of message handlers
  * and ensures that they get advised of any messages in order. 
  *
+ * <p>
+ * Handlers which implement AsynchronousMessageHandler are advised on a thread
+ * of their own, through a bounded queue, so a slow handler does not hold up
+ * the sender or the other handlers. Waiting messages are delivered in order
+ * of priority, and a sender never waits for a full queue: the oldest of the
+ * lowest priority messages is discarded instead. The time taken to advise 
+ * each handler is recorded and may be read with getStatistics.
+ *
  * <br>
  * 
  * @author James Dempsey &lt;jdempsey@users.sourceforge.net&gt;
@@ -38,17 +58,39 @@ import pcgen.pluginmgr.messages.ComponentRemovedMessage;
 
 public class MessageHandlerManager
 {
+	/**
+	 * The number of messages which may wait for an asynchronous handler
+	 * before messages are discarded.
+	 */
+	static final int QUEUE_CAPACITY = 256;
+
+	/**
+	 * A synchronous handler taking longer than this to handle a message is
+	 * reported in the debug log.
+	 */
+	private static final long SLOW_HANDLER_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
 	private final PCGenMessageHandler postbox;
 	private final EventListenerList chain;
+	private final Map<PCGenMessageHandler, Mailbox> mailboxes;
+	private final Map<PCGenMessageHandler, HandlerStatistics> statistics;
 	
 	public MessageHandlerManager()
 	{
 		chain = new EventListenerList();
+		mailboxes = new ConcurrentHashMap<>();
+		statistics = new ConcurrentHashMap<>();
 		postbox = new PCGenMessagePostbox();
 	}
 	
 	public void addMember(PCGenMessageHandler plugin)
 	{
+		statistics.putIfAbsent(plugin, new HandlerStatistics());
+		if (plugin instanceof AsynchronousMessageHandler)
+		{
+			mailboxes.computeIfAbsent(plugin, p -> new Mailbox(
+				(AsynchronousMessageHandler) p, statistics.get(p)));
+		}
 		// Add the plugin to the chain of responsibility.
 		chain.add(PCGenMessageHandler.class, plugin);
 		postbox.handleMessage(new ComponentAddedMessage(this, plugin));
@@ -59,6 +101,13 @@ public class MessageHandlerManager
 		postbox.handleMessage(new ComponentRemovedMessage(this, plugin));
 		// Remove the plugin from the chain of responsibility.
 		chain.remove(PCGenMessageHandler.class, plugin);
+		Mailbox mailbox = mailboxes.remove(plugin);
+		if (mailbox != null)
+		{
+			// The handler is still advised of the messages already queued
+			mailbox.close();
+		}
+		statistics.remove(plugin);
 	}
 
 	
@@ -70,6 +119,17 @@ public class MessageHandlerManager
 		return postbox;
 	}
 
+	/**
+	 * Returns the statistics recorded for a handler.
+	 * 
+	 * @param handler The handler
+	 * @return The statistics of the handler, or null if it is not a member
+	 */
+	public HandlerStatistics getStatistics(PCGenMessageHandler handler)
+	{
+		return statistics.get(handler);
+	}
+
 	/* ------------------------------------------------------------- */
 	
 	/**
@@ -77,7 +137,9 @@ public class MessageHandlerManager
 	 * to all handlers registered in the parent ChainOfResponsibility. The handlers 
 	 * are advised in order (with the source of the message advised last) however 
 	 * messages may be consumed in which case no further handlers are advised of 
-	 * the message.
+	 * the message. Asynchronous handlers are given the message once the 
+	 * synchronous handlers have been advised, if it was not consumed ahead of 
+	 * them.
 	 */
 	private final class PCGenMessagePostbox implements PCGenMessageHandler
 	{
@@ -88,6 +150,7 @@ public class MessageHandlerManager
 			// Guaranteed to return a non-null array
 			Object[] listeners = chain.getListenerList();
 			boolean sourceListening = false;
+			List<Mailbox> queued = new ArrayList<>();
 			// Process the listeners first to last, notifying
 			// those that are interested in this event
 			for (int i = 0; i < listeners.length - 1; i += 2)
@@ -96,13 +159,21 @@ public class MessageHandlerManager
 				{
 					PCGenMessageHandler handler =
 							(PCGenMessageHandler) listeners[i + 1];
+					Mailbox mailbox = mailboxes.get(handler);
 					if (handler == msg.getSource())
 					{
 						sourceListening = true;
 					}
+					else if (mailbox != null)
+					{
+						if (mailbox.accepts(msg))
+						{
+							queued.add(mailbox);
+						}
+					}
 					else
 					{
-						handler.handleMessage(msg);
+						deliver(handler, msg);
 						if (msg.isConsumed())
 						{
 							// Consumed, so we don't send the message to any more handlers 
@@ -112,12 +183,298 @@ public class MessageHandlerManager
 				}
 			}
 
+			// Asynchronous handlers may not consume the message, so the
+			// decision to advise the source is made before they can see it
+			boolean consumed = msg.isConsumed();
+			for (Mailbox mailbox : queued)
+			{
+				mailbox.post(msg);
+			}
+
 			// The source gets advised of the message last, but only if it is listening
-			if (!msg.isConsumed() && sourceListening)
+			if (!consumed && sourceListening)
+			{
+				PCGenMessageHandler source = (PCGenMessageHandler) msg.getSource();
+				Mailbox mailbox = mailboxes.get(source);
+				if (mailbox == null)
+				{
+					deliver(source, msg);
+				}
+				else if (mailbox.accepts(msg))
+				{
+					mailbox.post(msg);
+				}
+			}
+		}
+
+		private void deliver(PCGenMessageHandler handler, PCGenMessage msg)
+		{
+			long start = System.nanoTime();
+			try
 			{
-				((PCGenMessageHandler) msg.getSource()).handleMessage(msg);
+				handler.handleMessage(msg);
+			}
+			finally
+			{
+				long elapsed = System.nanoTime() - start;
+				HandlerStatistics stats = statistics.get(handler);
+				if (stats != null)
+				{
+					stats.record(elapsed);
+				}
+				if (elapsed > SLOW_HANDLER_NANOS)
+				{
+					Logging.debugPrint(handler.getClass().getName() + " took "
+						+ TimeUnit.NANOSECONDS.toMillis(elapsed) + "ms to handle "
+						+ msg.getClass().getSimpleName());
+				}
 			}
 		}
 		
 	}
+
+	/**
+	 * The Class <code>Mailbox</code> holds the messages waiting for an
+	 * asynchronous handler and advises the handler of them, highest priority
+	 * first and otherwise in order, on a thread of its own.
+	 */
+	private static final class Mailbox implements Runnable
+	{
+		private final AsynchronousMessageHandler handler;
+		private final Collection<Class<? extends PCGenMessage>> types;
+		private final HandlerStatistics stats;
+		private final Thread worker;
+
+		/**
+		 * The messages waiting for the handler, guarded by this Mailbox.
+		 */
+		private final PriorityQueue<Envelope> queue =
+				new PriorityQueue<>(Envelope.DELIVERY_ORDER);
+		private long sequence;
+		private boolean closed;
+
+		private Mailbox(AsynchronousMessageHandler handler,
+			HandlerStatistics stats)
+		{
+			this.handler = handler;
+			this.types = handler.getMessageTypes();
+			this.stats = stats;
+			worker = new Thread(this, "Messages for " //$NON-NLS-1$
+				+ handler.getClass().getSimpleName());
+			worker.setDaemon(true);
+			worker.start();
+		}
+
+		private boolean accepts(PCGenMessage msg)
+		{
+			for (Class<? extends PCGenMessage> type : types)
+			{
+				if (type.isInstance(msg))
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private synchronized void post(PCGenMessage msg)
+		{
+			if (closed)
+			{
+				return;
+			}
+			for (Iterator<Envelope> it = queue.iterator(); it.hasNext();)
+			{
+				if (msg.supersedes(it.next().msg))
+				{
+					it.remove();
+					stats.coalesced.incrementAndGet();
+				}
+			}
+			Envelope envelope = new Envelope(msg, sequence++);
+			// The sender may be the event dispatch thread or the handler
+			// itself, so it never waits for room
+			if (queue.size() >= QUEUE_CAPACITY)
+			{
+				Envelope discard = envelope;
+				for (Envelope waiting : queue)
+				{
+					if (Envelope.DISCARD_ORDER.compare(waiting, discard) < 0)
+					{
+						discard = waiting;
+					}
+				}
+				queue.remove(discard);
+				stats.dropped.incrementAndGet();
+				Logging.debugPrint(handler.getClass().getName()
+					+ " is too far behind, discarded "
+					+ discard.msg.getClass().getSimpleName());
+				if (discard == envelope)
+				{
+					return;
+				}
+			}
+			queue.add(envelope);
+			stats.maxQueued.accumulateAndGet(queue.size(), Math::max);
+			notifyAll();
+		}
+
+		private synchronized void close()
+		{
+			closed = true;
+			notifyAll();
+		}
+
+		private synchronized Envelope take() throws InterruptedException
+		{
+			while (queue.isEmpty() && !closed)
+			{
+				wait();
+			}
+			return queue.poll();
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				for (Envelope envelope = take(); envelope != null; envelope = take())
+				{
+					try
+					{
+						handler.handleMessage(envelope.msg);
+					}
+					catch (RuntimeException e)
+					{
+						Logging.errorPrint(handler.getClass().getName()
+							+ " failed to handle "
+							+ envelope.msg.getClass().getSimpleName(), e);
+					}
+					stats.record(System.nanoTime() - envelope.posted);
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private static final class Envelope
+	{
+		/**
+		 * Orders envelopes highest priority first, and in the order they
+		 * were posted within a priority.
+		 */
+		private static final Comparator<Envelope> DELIVERY_ORDER =
+				Comparator.comparingInt((Envelope e) -> -e.priority)
+					.thenComparingLong(e -> e.sequence);
+
+		/**
+		 * Orders envelopes lowest priority first, and in the order they
+		 * were posted within a priority.
+		 */
+		private static final Comparator<Envelope> DISCARD_ORDER =
+				Comparator.comparingInt((Envelope e) -> e.priority)
+					.thenComparingLong(e -> e.sequence);
+
+		private final PCGenMessage msg;
+		private final int priority;
+		private final long sequence;
+		private final long posted = System.nanoTime();
+
+		private Envelope(PCGenMessage msg, long sequence)
+		{
+			this.msg = msg;
+			this.priority = msg.getPriority();
+			this.sequence = sequence;
+		}
+	}
+
+	/**
+	 * The Class <code>HandlerStatistics</code> records how long a handler
+	 * has taken to be advised of messages. For a synchronous handler this is
+	 * the time spent handling each message; for an asynchronous handler it
+	 * also includes the time each message waited in the queue.
+	 */
+	public static final class HandlerStatistics
+	{
+		private final AtomicLong delivered = new AtomicLong();
+		private final AtomicLong totalNanos = new AtomicLong();
+		private final AtomicLong maxNanos = new AtomicLong();
+		private final AtomicLong coalesced = new AtomicLong();
+		private final AtomicLong maxQueued = new AtomicLong();
+		private final AtomicLong dropped = new AtomicLong();
+
+		private void record(long nanos)
+		{
+			delivered.incrementAndGet();
+			totalNanos.addAndGet(nanos);
+			maxNanos.accumulateAndGet(nanos, Math::max);
+		}
+
+		/**
+		 * @return the number of messages the handler has been advised of
+		 */
+		public long getDelivered()
+		{
+			return delivered.get();
+		}
+
+		/**
+		 * @return the mean time in nanoseconds taken to advise the handler
+		 */
+		public long getAverageLatency()
+		{
+			long count = delivered.get();
+			return count == 0 ? 0 : totalNanos.get() / count;
+		}
+
+		/**
+		 * @return the longest time in nanoseconds taken to advise the handler
+		 */
+		public long getMaximumLatency()
+		{
+			return maxNanos.get();
+		}
+
+		/**
+		 * @return the number of queued messages discarded as they were
+		 * superseded by a later message
+		 */
+		public long getCoalesced()
+		{
+			return coalesced.get();
+		}
+
+		/**
+		 * @return the largest number of messages which have waited for the
+		 * handler at once
+		 */
+		public long getMaximumQueued()
+		{
+			return maxQueued.get();
+		}
+
+		/**
+		 * @return the number of messages discarded as too many messages
+		 * were waiting for the handler
+		 */
+		public long getDropped()
+		{
+			return dropped.get();
+		}
+
+		@Override
+		public String toString()
+		{
+			return "HandlerStatistics [delivered=" + delivered //$NON-NLS-1$
+				+ ", averageLatency=" + getAverageLatency() //$NON-NLS-1$
+				+ ", maximumLatency=" + maxNanos //$NON-NLS-1$
+				+ ", coalesced=" + coalesced //$NON-NLS-1$
+				+ ", maximumQueued=" + maxQueued //$NON-NLS-1$
+				+ ", dropped=" + dropped + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
 }
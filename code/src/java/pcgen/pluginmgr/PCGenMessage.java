@@ -37,6 +37,16 @@ public class PCGenMessage extends EventObject
 {
 	/** Version number for serialisation*/
 	private static final long serialVersionUID = 858210889717389487L;
+
+	/** The priority of messages which should overtake waiting messages. */
+	public static final int HIGH_PRIORITY = 10;
+
+	/** The priority of most messages. */
+	public static final int NORMAL_PRIORITY = 0;
+
+	/** The priority of messages which may wait behind other messages. */
+	public static final int LOW_PRIORITY = -10;
+
 	private boolean consumed;
 
 	/**
@@ -67,4 +77,29 @@ public class PCGenMessage extends EventObject
 	{
 		return consumed;
 	}
+
+	/**
+	 * Identify if this message makes an earlier message redundant. When a
+	 * message is queued for an asynchronous handler, any earlier message it
+	 * supersedes which the handler has not yet been advised of is discarded.
+	 * By default no message supersedes another.
+	 * @param older A message sent before this one.
+	 * @return true if the older message need not be delivered.
+	 */
+	public boolean supersedes(PCGenMessage older)
+	{
+		return false;
+	}
+
+	/**
+	 * Identify how urgently an asynchronous handler should be advised of this
+	 * message. Waiting messages are delivered highest priority first, and in
+	 * the order they were sent within a priority. When too many messages are
+	 * waiting, the oldest of the lowest priority is discarded. 
+	 * @return the priority of the message, NORMAL_PRIORITY by default.
+	 */
+	public int getPriority()
+	{
+		return NORMAL_PRIORITY;
+	}
 }
@@ -57,4 +57,24 @@ public class FocusOrStateChangeOccurredMessage extends PCGenMessage
 		return editMenu;
 	}
 
+	/**
+	 * Only the latest change of focus or state from a source is of interest.
+	 */
+	@Override
+	public boolean supersedes(PCGenMessage older)
+	{
+		return older instanceof FocusOrStateChangeOccurredMessage
+			&& older.getSource() == getSource();
+	}
+
+	/**
+	 * A change of focus or state only refreshes the user interface, so it
+	 * may wait behind other messages.
+	 */
+	@Override
+	public int getPriority()
+	{
+		return LOW_PRIORITY;
+	}
+
 }
@@ -28,6 +28,7 @@ import pcgen.cdom.format.table.DataTable;
 import pcgen.cdom.format.table.TableColumn;
 import pcgen.persistence.PersistenceLayerException;
 import pcgen.persistence.lst.LstLineFileLoader;
+import pcgen.persistence.lst.LstLineReader;
 import pcgen.rules.context.LoadContext;
 
 /**
@@ -52,12 +53,12 @@ public class TableLoader extends LstLineFileLoader
 	private LineProcessor processor = new ExpectStartTable();
 
 	@Override
-	public void loadLstString(LoadContext context, URI uri, String aString)
-		throws PersistenceLayerException
+	protected void loadLstLines(LoadContext context, URI uri,
+		LstLineReader reader) throws PersistenceLayerException
 	{
 		//Reset to ensure prior file corruption doesn't leak into a new file
 		processor = new ExpectStartTable();
-		super.loadLstString(context, uri, aString);
+		super.loadLstLines(context, uri, reader);
 		if (!(processor instanceof ExpectStartTable))
 		{
 			throw new PersistenceLayerException(
@@ -32,12 +32,27 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import pcgen.cdom.base.Constants;
 import pcgen.core.SettingsHandler;
 import pcgen.core.utils.MessageType;
 import pcgen.core.utils.ShowMessageDelegate;
+import pcgen.facade.core.CampaignFacade;
 import pcgen.facade.core.CharacterFacade;
+import pcgen.facade.core.DataSetFacade;
 import pcgen.facade.core.PartyFacade;
 import pcgen.facade.core.SourceSelectionFacade;
 import pcgen.facade.core.UIDelegate;
@@ -65,6 +80,10 @@ import org.apache.commons.lang.StringUtils;
  * used in batch mode an instance should be created for the template and 
  * one of the export methods called. When used as a library the static methods
  * should be used and supplied with preloaded characters.  
+ * <p>
+ * A batch of characters can be exported with exportCharacters, in which case
+ * the data for the characters is loaded once and the character sheets are
+ * generated concurrently.
  *
  * <br>
  * 
@@ -153,6 +172,253 @@ public class BatchExporter
 		}
 	}
 
+	/**
+	 * Export character sheets for a batch of characters using the 
+	 * pre-registered template. The batch is either a directory, in which case 
+	 * every character file in the directory is exported, or a manifest file 
+	 * listing the character files one per line. Each character sheet is 
+	 * written to a default file next to the character file.
+	 * <p>
+	 * The characters are grouped by the sources they require, and the data 
+	 * for each group is loaded once. The characters in a group are then 
+	 * exported by a pool of worker threads, with the result of each export 
+	 * being logged as it completes.
+	 * 
+	 * @param batchSource The path to a directory of PCG files or a manifest file.
+	 * @param threads The maximum number of characters to export at once, or 
+	 * 0 or less to use one thread per processor.
+	 * @return true if every character was exported, false if any export failed.
+	 */
+	boolean exportCharacters(String batchSource, int threads)
+	{
+		List<File> characterFiles = getBatchCharacterFiles(new File(batchSource));
+		if (characterFiles == null)
+		{
+			return false;
+		}
+		int numThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+		int total = characterFiles.size();
+		Logging.log(Logging.INFO, "Started batch export of " + total
+			+ " characters from " + batchSource + " using "
+			+ exportTemplateFilename + " with " + numThreads + " threads");
+
+		// Group the characters by the sources they need
+		Map<String, SourceSelectionFacade> sourcesByKey = new HashMap<>();
+		Map<String, List<File>> filesBySources = new LinkedHashMap<>();
+		int failed = 0;
+		for (File file : characterFiles)
+		{
+			SourceSelectionFacade sources = null;
+			if (PCGFile.isPCGenCharacterFile(file))
+			{
+				sources = CharacterManager.getRequiredSourcesForCharacter(file, uiDelegate);
+			}
+			if (sources == null)
+			{
+				Logging.errorPrint("Batch export failed for " + file.getAbsolutePath()
+					+ ": not a readable character file");
+				failed++;
+				continue;
+			}
+			String key = getSourcesKey(sources);
+			if (!sourcesByKey.containsKey(key))
+			{
+				sourcesByKey.put(key, sources);
+				filesBySources.put(key, new ArrayList<>());
+			}
+			filesBySources.get(key).add(file);
+		}
+
+		File templateFile = new File(exportTemplateFilename);
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		try
+		{
+			int jobNumber = 0;
+			for (Map.Entry<String, List<File>> entry : filesBySources.entrySet())
+			{
+				SourceSelectionFacade sources = sourcesByKey.get(entry.getKey());
+				Logging.log(Logging.INFO, "Loading sources " + sources.getCampaigns()
+					+ " using game mode " + sources.getGameMode());
+				SourceFileLoader loader = new SourceFileLoader(sources, uiDelegate);
+				loader.execute();
+				DataSetFacade dataset = loader.getDataSetFacade();
+
+				List<Future<Boolean>> results = new ArrayList<>();
+				for (File file : entry.getValue())
+				{
+					int job = ++jobNumber;
+					results.add(executor.submit(() -> exportBatchCharacter(file,
+						dataset, templateFile, job, total)));
+				}
+				// The next sources replace these, so finish with them first
+				for (Future<Boolean> result : results)
+				{
+					if (!getBatchResult(result))
+					{
+						failed++;
+					}
+				}
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+
+		Logging.log(Logging.INFO, "Finished batch export: " + (total - failed)
+			+ " of " + total + " characters exported, " + failed + " failed");
+		return failed == 0;
+	}
+
+	/**
+	 * Export a single character of a batch. The character is closed once 
+	 * the export is complete.
+	 */
+	private boolean exportBatchCharacter(File file, DataSetFacade dataset,
+		File templateFile, int job, int total)
+	{
+		long start = System.currentTimeMillis();
+		String jobName = "Batch export [" + job + "/" + total + "] of "
+			+ file.getAbsolutePath();
+		if (dataset == null)
+		{
+			Logging.errorPrint(jobName + " failed: sources could not be loaded");
+			return false;
+		}
+
+		CharacterFacade character;
+		synchronized (CharacterManager.CHARACTER_LOAD_LOCK)
+		{
+			character = CharacterManager.openCharacter(file, uiDelegate, dataset);
+		}
+		if (character == null)
+		{
+			Logging.errorPrint(jobName + " failed: character could not be loaded");
+			return false;
+		}
+
+		File outFile = new File(generateOutputFilename(file.getAbsolutePath()));
+		boolean result;
+		try
+		{
+			if (isPdf)
+			{
+				result = exportCharacterToPDF(character, outFile, templateFile);
+			}
+			else
+			{
+				result = exportCharacterToNonPDF(character, outFile, templateFile);
+			}
+		}
+		finally
+		{
+			synchronized (CharacterManager.CHARACTER_LOAD_LOCK)
+			{
+				CharacterManager.closeCharacter(character);
+			}
+		}
+
+		long elapsed = System.currentTimeMillis() - start;
+		if (result)
+		{
+			Logging.log(Logging.INFO, jobName + " to " + outFile.getAbsolutePath()
+				+ " completed in " + elapsed + " ms");
+		}
+		else
+		{
+			Logging.errorPrint(jobName + " failed after " + elapsed + " ms");
+		}
+		return result;
+	}
+
+	private static boolean getBatchResult(Future<Boolean> result)
+	{
+		try
+		{
+			return result.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			Logging.errorPrint("Batch export interrupted", e);
+			return false;
+		}
+		catch (ExecutionException e)
+		{
+			Logging.errorPrint("Batch export failed", e.getCause());
+			return false;
+		}
+	}
+
+	/**
+	 * Identify the character files in a batch. The batch may be a directory, 
+	 * in which case all character files in the directory are included, or a 
+	 * manifest file listing the paths of the character files one per line. 
+	 * Blank lines and lines starting with # in a manifest are ignored, and 
+	 * relative paths are resolved against the folder holding the manifest.
+	 *  
+	 * @param batchSource The directory or manifest file.
+	 * @return The character files in the batch, or null if the batch could not be read.
+	 */
+	static List<File> getBatchCharacterFiles(File batchSource)
+	{
+		if (batchSource.isDirectory())
+		{
+			File[] files = batchSource.listFiles(PCGFile::isPCGenCharacterFile);
+			if (files == null)
+			{
+				Logging.errorPrint("Unable to read batch directory "
+					+ batchSource.getAbsolutePath());
+				return null;
+			}
+			Arrays.sort(files);
+			return Arrays.asList(files);
+		}
+
+		List<String> lines;
+		try
+		{
+			lines = Files.readAllLines(batchSource.toPath(), StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			Logging.errorPrint("Unable to read batch manifest "
+				+ batchSource.getAbsolutePath(), e);
+			return null;
+		}
+		List<File> files = new ArrayList<>(lines.size());
+		for (String line : lines)
+		{
+			String path = line.trim();
+			if (path.isEmpty() || path.startsWith("#"))
+			{
+				continue;
+			}
+			File file = new File(path);
+			if (!file.isAbsolute())
+			{
+				file = new File(batchSource.getAbsoluteFile().getParentFile(), path);
+			}
+			files.add(file);
+		}
+		return Collections.unmodifiableList(files);
+	}
+
+	/**
+	 * Build a key identifying a selection of sources, so that characters 
+	 * using the same sources can be exported with one load of the data.
+	 */
+	private static String getSourcesKey(SourceSelectionFacade sources)
+	{
+		StringBuilder key = new StringBuilder(100);
+		key.append(sources.getGameMode().get().getName());
+		for (CampaignFacade campaign : sources.getCampaigns())
+		{
+			key.append('|').append(campaign.getKeyName());
+		}
+		return key.toString();
+	}
+
 	/**
 	 * Export a party sheet for the party to the output file using the 
 	 * pre-registered template. If the output file is null then a default file 
@@ -72,6 +72,13 @@ import org.apache.commons.lang.StringUtils;
 public final class CharacterManager
 {
 
+	/**
+	 * Loading, copying and closing characters reads and updates state shared
+	 * by all characters, so characters exported from several threads at once
+	 * are only loaded, copied or closed while holding this lock.
+	 */
+	public static final Object CHARACTER_LOAD_LOCK = new Object();
+
 	private static final PartyFacadeImpl characters;
 	private static final RecentFileList recentCharacters;
 	private static final RecentFileList recentParties;
@@ -493,6 +500,18 @@ public final class CharacterManager
 				+ " - " + charFile.getAbsolutePath()); //$NON-NLS-1$
 	}
 
+	/**
+	 * Closes a character which was opened for a batch operation. Unlike
+	 * removeCharacter, the character is not added to the recent characters.
+	 * Note: this operation does not save the character!
+	 * @param character the character to be closed
+	 */
+	static void closeCharacter(CharacterFacade character)
+	{
+		characters.removeElement(character);
+		character.closeCharacter();
+	}
+
 	public static void removeAllCharacters()
 	{
 		for (final CharacterFacade characterFacade : characters)
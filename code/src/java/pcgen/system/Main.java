@@ -87,6 +87,8 @@ public final class Main
 	private static String partyFile;
 	private static String characterFile;
 	private static String outputFile;
+	private static String batchSource;
+	private static int batchThreads;
 	private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
 
@@ -218,6 +220,9 @@ public final class Main
 		partyFile = args.get("p");
 		characterFile = args.get("c");
 		outputFile = args.get("o");
+		batchSource = args.getString("batch");
+		Integer threads = args.getInt("threads");
+		batchThreads = threads == null ? 0 : threads;
 	}
 
 	private static void startupWithGUI()
@@ -236,10 +241,7 @@ public final class Main
 			splash = new SplashScreen();
 			splash.setVisible(true);
 		}
-		PCGenTaskExecutor executor = new PCGenTaskExecutor();
-		executor.addPCGenTask(createLoadPluginTask());
-		executor.addPCGenTask(new GameModeFileLoader());
-		executor.addPCGenTask(new CampaignFileLoader());
+		PCGenTaskExecutor executor = createStartupTaskExecutor();
 		if (splash != null)
 		{
 			executor.addPCGenTaskListener(splash);
@@ -387,6 +389,23 @@ public final class Main
 		defaultFactory.loadPropertyContexts();
 	}
 
+	/**
+	 * Create the tasks which load the plugins, game modes and campaigns. The
+	 * game modes and campaigns are loaded at the same time, once the plugins 
+	 * they are parsed with have been loaded.
+	 *
+	 * @return The executor for the startup tasks.
+	 */
+	private static PCGenTaskExecutor createStartupTaskExecutor()
+	{
+		PCGenTaskExecutor executor = new PCGenTaskExecutor();
+		PCGenTask pluginTask = createLoadPluginTask();
+		executor.addPCGenTask(pluginTask);
+		executor.addPCGenTask(new GameModeFileLoader(), pluginTask);
+		executor.addPCGenTask(new CampaignFileLoader(), pluginTask);
+		return executor;
+	}
+
 	/**
 	 * Create a task to load all system plugins.
 	 *
@@ -421,10 +440,7 @@ public final class Main
 		loadProperties(false);
 		validateEnvironment(false);
 
-		PCGenTaskExecutor executor = new PCGenTaskExecutor();
-		executor.addPCGenTask(createLoadPluginTask());
-		executor.addPCGenTask(new GameModeFileLoader());
-		executor.addPCGenTask(new CampaignFileLoader());
+		PCGenTaskExecutor executor = createStartupTaskExecutor();
 		executor.execute();
 
 		UIDelegate uiDelegate = new ConsoleUIDelegate();
@@ -442,6 +458,11 @@ public final class Main
 			result = exporter.exportCharacter(characterFile, outputFile);
 		}
 
+		if (batchSource != null)
+		{
+			result = exporter.exportCharacters(batchSource, batchThreads) && result;
+		}
+
 		return result;
 	}
 
@@ -566,6 +587,18 @@ public final class Main
 								.verifyIsFile()
 				);
 
+		parser.addArgument("-b", "--batch")
+				.help("directory of characters, or file listing characters, to export")
+				.type(
+						Arguments.fileType()
+								.verifyCanRead()
+								.verifyExists()
+				);
+
+		parser.addArgument("-t", "--threads")
+				.help("number of characters to export at once in a batch")
+				.type(Integer.class);
+
 		return parser;
 	}
 
@@ -20,55 +20,216 @@
  */
 package pcgen.system;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.apache.commons.lang.math.Fraction;
 
 /**
+ * A PCGenTaskExecutor runs a set of tasks as a single task. Each task may
+ * declare the tasks it depends on; a task is started as soon as all the tasks
+ * it depends on have finished, so independent tasks run at the same time.
+ * The progress of the executor is the combined progress of all its tasks.
  *
  * @author Connor Petty &lt;cpmeister@users.sourceforge.net&gt;
  */
 class PCGenTaskExecutor extends PCGenTask implements PCGenTaskListener
 {
 
-	private LinkedList<PCGenTask> tasks = new LinkedList<>();
-	private PCGenTask currentTask = null;
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	/**
+	 * The tasks to be run, in the order they were added, with the tasks each
+	 * one depends on.
+	 */
+	private final Map<PCGenTask, List<PCGenTask>> tasks = new LinkedHashMap<>();
+	private final Map<PCGenTask, Fraction> taskProgress = new IdentityHashMap<>();
 	private Fraction progressMultiplier = null;
-	private Fraction baseProgress = Fraction.ZERO;
 
+	/**
+	 * Adds a task which will be run after all the tasks added before it.
+	 *
+	 * @param task The task to be run.
+	 */
 	void addPCGenTask(PCGenTask task)
 	{
-		tasks.add(task);
+		addPCGenTask(task, tasks.keySet().toArray(new PCGenTask[tasks.size()]));
+	}
+
+	/**
+	 * Adds a task which will be run once the given tasks have finished. Tasks
+	 * which do not depend on each other may be run at the same time.
+	 *
+	 * @param task The task to be run.
+	 * @param dependencies The previously added tasks which must finish before
+	 *            the task is started.
+	 */
+	void addPCGenTask(PCGenTask task, PCGenTask... dependencies)
+	{
+		List<PCGenTask> dependsOn = new ArrayList<>(dependencies.length);
+		for (PCGenTask dependency : dependencies)
+		{
+			if (!tasks.containsKey(dependency))
+			{
+				throw new IllegalArgumentException(
+					"Dependency must be added before the tasks that depend on it");
+			}
+			dependsOn.add(dependency);
+		}
+		tasks.put(task, dependsOn);
 	}
 
-    @Override
+	@Override
 	public void execute()
 	{
+		if (tasks.isEmpty())
+		{
+			return;
+		}
 		progressMultiplier = Fraction.getFraction(1, tasks.size());
-		while (!tasks.isEmpty())
+		// Only as many threads are created as there are tasks ready to run
+		ExecutorService pool =
+				Executors.newCachedThreadPool(r ->
+					{
+						Thread thread =
+								new Thread(r, "Startup-task-thread-"
+									+ THREAD_COUNT.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+		CompletionService<PCGenTask> completion =
+				new ExecutorCompletionService<>(pool);
+		List<PCGenTask> waiting = new ArrayList<>(tasks.keySet());
+		List<PCGenTask> finished = new ArrayList<>(tasks.size());
+		try
+		{
+			int running = startReadyTasks(waiting, finished, completion);
+			while (running > 0)
+			{
+				Future<PCGenTask> future = completion.take();
+				running--;
+				finished.add(future.get());
+				running += startReadyTasks(waiting, finished, completion);
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (ExecutionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		tasks.clear();
+	}
+
+	/**
+	 * Starts each waiting task whose dependencies have all finished. As a
+	 * task can only depend on tasks added before it, some task is always
+	 * either running or ready to start until all have finished.
+	 *
+	 * @return The number of tasks started.
+	 */
+	private int startReadyTasks(List<PCGenTask> waiting,
+		List<PCGenTask> finished, CompletionService<PCGenTask> completion)
+	{
+		int started = 0;
+		for (int i = 0; i < waiting.size(); i++)
+		{
+			final PCGenTask task = waiting.get(i);
+			if (finished.containsAll(tasks.get(task)))
+			{
+				waiting.remove(i--);
+				started++;
+				completion.submit(() ->
+				{
+					runTask(task);
+					return task;
+				});
+			}
+		}
+		return started;
+	}
+
+	private void runTask(PCGenTask task)
+	{
+		synchronized (this)
+		{
+			taskProgress.put(task, Fraction.ZERO);
+			setValues(task.getMessage(), getTotalProgress());
+		}
+		task.addPCGenTaskListener(this);
+		try
+		{
+			task.execute();
+		}
+		finally
+		{
+			task.removePCGenTaskListener(this);
+			synchronized (this)
+			{
+				taskProgress.put(task, Fraction.ONE);
+				setValues(getMessage(), getTotalProgress());
+			}
+		}
+	}
+
+	private void setValues(String message, Fraction progress)
+	{
+		setValues(message, progress.getNumerator(), progress.getDenominator());
+	}
+
+	/**
+	 * Returns the combined progress of all tasks, each task making up an equal
+	 * share of the whole.
+	 */
+	private Fraction getTotalProgress()
+	{
+		Fraction total = Fraction.ZERO;
+		for (Fraction progress : taskProgress.values())
 		{
-			currentTask = tasks.poll();
-			setValues(currentTask.getMessage(), baseProgress.getNumerator(), baseProgress.getDenominator());
-			currentTask.addPCGenTaskListener(this);
-			currentTask.execute();
-			currentTask.removePCGenTaskListener(this);
-			baseProgress = baseProgress.add(progressMultiplier);
+			total = total.add(progress);
 		}
+		return total.multiplyBy(progressMultiplier);
 	}
 
-    @Override
-	public void progressChanged(PCGenTaskEvent event)
+	@Override
+	public synchronized void progressChanged(PCGenTaskEvent event)
 	{
-		if (currentTask.getMaximum() == 0)
+		PCGenTask task = event.getSource();
+		if (task.getMaximum() == 0 || !taskProgress.containsKey(task))
 		{
 			return;
 		}
-		Fraction progress = Fraction.getFraction(currentTask.getProgress(), currentTask.getMaximum());
-		progress = progress.multiplyBy(progressMultiplier);
-		progress = baseProgress.add(progress);
-		setValues(currentTask.getMessage(), progress.getNumerator(), progress.getDenominator());
+		taskProgress.put(task, Fraction.getFraction(
+			Math.min(task.getProgress(), task.getMaximum()), task.getMaximum()));
+		setValues(task.getMessage(), getTotalProgress());
 	}
 
-    @Override
+	@Override
 	public void errorOccurred(PCGenTaskEvent event)
 	{
 		sendErrorMessage(event.getErrorRecord());
@@ -28,10 +28,12 @@ import java.lang.reflect.Modifier;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -93,10 +95,17 @@ class PluginClassLoader extends PCGenTask
 		}
 	}
 
-	private void loadClasses(final File pluginJar) throws IOException
+	/**
+	 * Reads the class definitions from a plugin jar.
+	 *
+	 * @param pluginJar The plugin jar to read
+	 * @return The loader holding the class definitions, and the names of the
+	 *         classes read
+	 */
+	private static ReadJar readClasses(final File pluginJar) throws IOException
 	{
-		try (JarClassLoader loader = new JarClassLoader(pluginJar.toURI().toURL());
-		     ZipFile file = new ZipFile(pluginJar))
+		JarClassLoader loader = new JarClassLoader(pluginJar.toURI().toURL());
+		try (ZipFile file = new ZipFile(pluginJar))
 		{
 			final Collection<String> classList = new LinkedList<>();
 			Enumeration<? extends ZipEntry> entries = file.entries();
@@ -128,20 +137,32 @@ class PluginClassLoader extends PCGenTask
 				loader.storeClassDef(name, buffer);
 				classList.add(name);
 			}
-			file.close();
+			return new ReadJar(loader, classList);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			loader.close();
+			throw e;
+		}
+	}
+
+	private void loadClasses(final File pluginJar, final ReadJar jar)
+	{
 		/*
 		 * Loading files and loading classes can both be lengthy processes. This splits the tasks
 		 * so that class loading occurs in another thread thus allowing both processes to
 		 * operate at the same time.
 		 */
-			dispatcher.execute(new Runnable()
-			{
+		dispatcher.execute(new Runnable()
+		{
 
-				@Override
-				public void run()
+			@Override
+			public void run()
+			{
+				boolean pluginFound = false;
+				try (JarClassLoader loader = jar.loader)
 				{
-					boolean pluginFound = false;
-					for (final String string : classList)
+					for (final String string : jar.classList)
 					{
 						try
 						{
@@ -153,16 +174,21 @@ class PluginClassLoader extends PCGenTask
 									+ pluginJar.getName(), ex);
 						}
 					}
-					if (!pluginFound)
-					{
-						Logging.log(Logging.WARNING, "Plugin not found in " + pluginJar.getName());
-					}
-					progress++;
-					setProgress(progress);
 				}
+				catch (IOException ex)
+				{
+					Logging.errorPrint("Could not close plugin: "
+							+ pluginJar.getName(), ex);
+				}
+				if (!pluginFound)
+				{
+					Logging.log(Logging.WARNING, "Plugin not found in " + pluginJar.getName());
+				}
+				progress++;
+				setProgress(progress);
+			}
 
-			});
-		}
+		});
 	}
 
 	private boolean processClass(Class<?> clazz)
@@ -251,20 +277,64 @@ class PluginClassLoader extends PCGenTask
 		}
 	}
 
+	/**
+	 * Reads the plugin jars on several threads at once. The classes of each
+	 * jar are then loaded on the dispatcher thread in the order the jars were
+	 * found, so the plugins are registered in the same order every time.
+	 */
 	private void loadClasses()
 	{
-		while (!jarFiles.isEmpty())
+		ExecutorService readers = Executors.newFixedThreadPool(
+			Math.max(1, Math.min(jarFiles.size(), Runtime.getRuntime().availableProcessors())), r ->
 		{
-			File file = jarFiles.poll();
-			try
+			Thread thread = new Thread(r, "Plugin-reading-thread");
+			thread.setDaemon(true);
+			return thread;
+		});
+		try
+		{
+			List<Future<ReadJar>> reads = new ArrayList<>(jarFiles.size());
+			for (final File file : jarFiles)
 			{
-				loadClasses(file);
+				reads.add(readers.submit(() -> readClasses(file)));
 			}
-			catch (final IOException ex)
+			for (Future<ReadJar> read : reads)
 			{
-				Logging.errorPrint("Could not load classes from file: " + file.getAbsolutePath(), ex);
+				File file = jarFiles.poll();
+				try
+				{
+					loadClasses(file, read.get());
+				}
+				catch (final ExecutionException ex)
+				{
+					Logging.errorPrint("Could not load classes from file: " + file.getAbsolutePath(), ex.getCause());
+				}
+				catch (final InterruptedException ex)
+				{
+					Thread.currentThread().interrupt();
+					return;
+				}
 			}
 		}
+		finally
+		{
+			readers.shutdownNow();
+		}
+	}
+
+	/**
+	 * The class definitions read from a plugin jar.
+	 */
+	private static final class ReadJar
+	{
+		private final JarClassLoader loader;
+		private final Collection<String> classList;
+
+		private ReadJar(JarClassLoader loader, Collection<String> classList)
+		{
+			this.loader = loader;
+			this.classList = classList;
+		}
 	}
 
 	private static final class JarClassLoader extends URLClassLoader
@@ -680,12 +680,17 @@ public class Logging
 		Logger.getLogger("plugin").setLevel(level);
 	}
 
-	private static LinkedList<QueuedMessage> queuedMessages =
-            new LinkedList<>();
+	/**
+	 * The parse messages queued by each thread. Each thread parsing data 
+	 * replays or clears its own messages, so files may be parsed on several 
+	 * threads at once.
+	 */
+	private static final ThreadLocal<ParseMessageQueue> QUEUED_MESSAGES =
+			ThreadLocal.withInitial(ParseMessageQueue::new);
 
 	public static void addParseMessage(Level lvl, String msg)
 	{
-		queuedMessages.add(new QueuedMessage(lvl, msg));
+		QUEUED_MESSAGES.get().messages.add(new QueuedMessage(lvl, msg));
 	}
 
 	/*
@@ -695,29 +700,30 @@ public class Logging
 	public static void addParseMessage(Level lvl, String msg,
 		StackTraceElement[] stack)
 	{
-		queuedMessages.add(new QueuedMessage(lvl, msg, stack));
+		QUEUED_MESSAGES.get().messages.add(new QueuedMessage(lvl, msg, stack));
 	}
 
-	private static int queuedMessageMark = -1;
-
 	public static void markParseMessages()
 	{
-		queuedMessageMark = queuedMessages.size();
+		ParseMessageQueue queue = QUEUED_MESSAGES.get();
+		queue.mark = queue.messages.size();
 	}
 
 	public static void rewindParseMessages()
 	{
-		while (queuedMessageMark > -1
-			&& queuedMessages.size() > queuedMessageMark)
+		ParseMessageQueue queue = QUEUED_MESSAGES.get();
+		while (queue.mark > -1
+			&& queue.messages.size() > queue.mark)
 		{
-			queuedMessages.removeLast();
+			queue.messages.removeLast();
 		}
 	}
 
 	public static void replayParsedMessages()
 	{
 		Logger l = getLogger();
-		for (QueuedMessage msg : queuedMessages)
+		ParseMessageQueue queue = QUEUED_MESSAGES.get();
+		for (QueuedMessage msg : queue.messages)
 		{
 			if (l.isLoggable(msg.level))
 			{
@@ -725,13 +731,20 @@ public class Logging
 			}
 
 		}
-		queuedMessageMark = -1;
+		queue.mark = -1;
 	}
 
 	public static void clearParseMessages()
 	{
-		queuedMessageMark = -1;
-		queuedMessages.clear();
+		ParseMessageQueue queue = QUEUED_MESSAGES.get();
+		queue.mark = -1;
+		queue.messages.clear();
+	}
+
+	private static class ParseMessageQueue
+	{
+		private final LinkedList<QueuedMessage> messages = new LinkedList<>();
+		private int mark = -1;
 	}
 
 	private static class QueuedMessage
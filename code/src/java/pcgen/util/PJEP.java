@@ -23,14 +23,19 @@
 package pcgen.util;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Stack;
+import java.util.Vector;
 
 import org.nfunk.jep.ASTFunNode;
 import org.nfunk.jep.JEP;
 import org.nfunk.jep.Node;
 import org.nfunk.jep.ParseException;
+import org.nfunk.jep.SymbolTable;
 import org.nfunk.jep.function.PostfixMathCommand;
+import org.nfunk.jep.function.PostfixMathCommandI;
 
 import pcgen.core.PlayerCharacter;
 import pcgen.core.VariableProcessor;
@@ -50,11 +55,31 @@ import pcgen.system.PluginLoader;
  * Provides the following variables:
  *   FALSE, TRUE
  *
+ * Expressions parsed through parseCachedExpression are kept, so that an
+ * expression evaluated repeatedly by the same parser is only parsed once.
+ *
  */
 public final class PJEP extends JEP
 {
+	/**
+	 * The maximum number of parsed expressions kept by each parser.
+	 */
+	private static final int PARSE_CACHE_SIZE = 1000;
+
 	private Object parent;
 	private String variableSource;
+	private Node currentNode;
+	private ParsedExpression currentExpression;
+	private final Map<String, ParsedExpression> parseCache =
+			new LinkedHashMap<String, ParsedExpression>(64, 0.75f, true)
+			{
+				@Override
+				protected boolean removeEldestEntry(
+					Map.Entry<String, ParsedExpression> eldest)
+				{
+					return size() > PARSE_CACHE_SIZE;
+				}
+			};
 	private static List<Class<PCGenCommand>> commandList =
             new ArrayList<>();
 	private List<PCGenCommand> localCommandList = new ArrayList<>();
@@ -118,7 +143,85 @@ public final class PJEP extends JEP
 			initSymTab();
 		}
 
-		return super.parseExpression(expression_in);
+		currentExpression = null;
+		currentNode = super.parseExpression(expression_in);
+		return currentNode;
+	}
+
+	/**
+	 * Parse an expression, reusing the result of an earlier parse of the same
+	 * expression by this parser if there is one. The variables of a reused
+	 * expression keep the values they were last given, so every variable in
+	 * the symbol table should be set before the expression is evaluated.
+	 *
+	 * @param expression The expression to be parsed
+	 * @return The top node of the parsed expression, or null if the
+	 * expression could not be parsed.
+	 */
+	public Node parseCachedExpression(String expression)
+	{
+		ParsedExpression parsed = parseCache.get(expression);
+		if (parsed == null)
+		{
+			// Each parsed expression keeps its own symbol table
+			initSymTab();
+			parseExpression(expression);
+			parsed = new ParsedExpression(currentNode, symTab, errorList);
+			parseCache.put(expression, parsed);
+		}
+		else
+		{
+			// The nodes of the expression refer to the variables of the
+			// symbol table it was parsed with
+			symTab = parsed.symbolTable;
+			errorList = new Vector<>(parsed.errors);
+		}
+		currentExpression = parsed;
+		currentNode = parsed.node;
+		return currentNode;
+	}
+
+	@Override
+	public Node getTopNode()
+	{
+		return currentNode;
+	}
+
+	@Override
+	public Object getValueAsObject()
+	{
+		if (currentNode == null)
+		{
+			return null;
+		}
+		try
+		{
+			return evaluate(currentNode);
+		}
+		catch (ParseException e)
+		{
+			addError("Error during evaluation: " + e.getMessage());
+			return null;
+		}
+		catch (RuntimeException e)
+		{
+			addError(e.getClass().getName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Add an error to the error list. The list of JEP is a raw Vector, so it
+	 * is replaced by a typed copy rather than added to.
+	 *
+	 * @param error The error to be added
+	 */
+	private void addError(String error)
+	{
+		List<?> current = errorList;
+		Vector<Object> errors = new Vector<>(current);
+		errors.add(error);
+		errorList = errors;
 	}
 
 	/**
@@ -128,7 +231,10 @@ public final class PJEP extends JEP
 	 */
 	public boolean isResultCachable()
 	{
-
+		if (currentExpression != null)
+		{
+			return currentExpression.cachable;
+		}
 		return isResultCachable(getTopNode());
 	}
 
@@ -163,6 +269,41 @@ public final class PJEP extends JEP
 		return true;
 	}
 
+	/**
+	 * Identify if the current expression calls any function which reads the
+	 * character, rather than only combining the values of its variables.
+	 *
+	 * @return True if the expression calls a PCGen function.
+	 */
+	public boolean usesCharacterFunctions()
+	{
+		if (currentExpression != null)
+		{
+			return currentExpression.usesCharacter;
+		}
+		return currentNode != null && usesCharacterFunctions(currentNode);
+	}
+
+	private boolean usesCharacterFunctions(Node node)
+	{
+		if (node instanceof ASTFunNode)
+		{
+			PostfixMathCommandI command = ((ASTFunNode) node).getPFMC();
+			if (command instanceof PCGenCommand || command instanceof ClassLevel)
+			{
+				return true;
+			}
+		}
+		for (int i = 0; i < node.jjtGetNumChildren(); i++)
+		{
+			if (usesCharacterFunctions(node.jjtGetChild(i)))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private boolean updateVariables()
 	{
 		boolean updated = true;
@@ -325,4 +466,27 @@ public final class PJEP extends JEP
 		}
 	}
 
+	/**
+	 * The result of parsing an expression, along with the symbol table
+	 * holding the variables its nodes refer to.
+	 */
+	private final class ParsedExpression
+	{
+		private final Node node;
+		private final SymbolTable symbolTable;
+		private final List<Object> errors;
+		private final boolean cachable;
+		private final boolean usesCharacter;
+
+		private ParsedExpression(Node node, SymbolTable symbolTable,
+			List<?> errors)
+		{
+			this.node = node;
+			this.symbolTable = symbolTable;
+			this.errors = new ArrayList<>(errors);
+			cachable = node == null || isResultCachable(node);
+			usesCharacter = node != null && usesCharacterFunctions(node);
+		}
+	}
+
 }
@@ -20,14 +20,22 @@
  */
 package pcgen.util;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Stack;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 
+/**
+ * PjepPool holds the PJEP parsers which are not in use, so that parsers (and
+ * the expressions they have already parsed) can be reused. The pool does not
+ * lock, so parsers can be acquired and released by many threads at once.
+ */
 public final class PjepPool
 {
-	private Stack<PJEP> freeStack = new Stack<>();
-	private List<PJEP> usedList = new ArrayList<>();
+	private Deque<PJEP> freeStack = new ConcurrentLinkedDeque<>();
+	private Set<PJEP> usedList =
+			Collections.newSetFromMap(new ConcurrentHashMap<PJEP, Boolean>());
 	private static PjepPool instance = new PjepPool();
 
 	private PjepPool()
@@ -40,25 +48,23 @@ public final class PjepPool
 		return instance;
 	}
 
-	public synchronized void initialise()
+	public void initialise()
 	{
 		freeStack.push(new PJEP());
 	}
 
-	public synchronized PJEP aquire()
+	public PJEP aquire()
 	{
 		return aquire(null, "");
 	}
 
-	public synchronized PJEP aquire(final Object parent, String variableSource)
+	public PJEP aquire(final Object parent, String variableSource)
 	{
 		//System.out.println("aquireJep()");
-		PJEP jep;
-		if (freeStack.size() > 0)
-		{
-			jep = freeStack.pop();
-		}
-		else
+		// Most recently released first, as it is the most likely to have
+		// already parsed the expressions in use
+		PJEP jep = freeStack.poll();
+		if (jep == null)
 		{
 			jep = new PJEP();
 			//System.err.println("aquirePJep() - creating new parser");
@@ -71,14 +77,10 @@ public final class PjepPool
 		return jep;
 	}
 
-	public synchronized void release(PJEP interp)
+	public void release(PJEP interp)
 	{
 		//System.out.println("releaseJep( " + interp + " )");
-		if (usedList.contains(interp))
-		{
-			usedList.remove(interp);
-		}
-		else
+		if (!usedList.remove(interp))
 		{
 			System.err
 				.println("Tried to release a PJEP instance that we did not aquire...");
@@ -87,7 +89,7 @@ public final class PjepPool
 		freeStack.push(interp);
 	}
 
-	public synchronized void dumpStats()
+	public void dumpStats()
 	{
 		System.out.println("PJEP Pool: ");
 		System.out.println("    Currently Unused: " + freeStack.size());
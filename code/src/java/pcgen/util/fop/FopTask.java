@@ -26,9 +26,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.transform.ErrorListener;
 import javax.xml.transform.SourceLocator;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
@@ -57,16 +60,23 @@ import pcgen.util.Logging;
  * source of the task: files or inputstreams. The output of this task can either be an OutputStream
  * which you can point to a file, or a Renderer. The Renderer is used by print preview and for
  * direct printing.
+ * <p>
+ * Tasks may be run concurrently. They share a single FopFactory, and each xslt template is
+ * compiled once and reused until the template file is changed.
  *
  * @author Connor Petty &lt;cpmeister@users.sourceforge.net&gt;
  */
 public final class FopTask implements Runnable
 {
 	private static final FopFactory FOP_FACTORY = createFopFactory();
-	private static FOUserAgent userAgent;
 
 	private static final TransformerFactory TRANS_FACTORY = TransformerFactory.newInstance();
 
+	/**
+	 * The compiled xslt templates, keyed by the absolute path of the template file.
+	 */
+	private static final Map<String, CompiledTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
 	private static FopFactory createFopFactory()
 	{
 
@@ -101,32 +111,64 @@ public final class FopTask implements Runnable
 	}
 
 	private final StreamSource inputSource;
-	private final StreamSource xsltSource;
+	private final File xsltFile;
 	private final Renderer renderer;
 	private final OutputStream outputStream;
+	private final FOUserAgent userAgent;
 
 	private final StringBuilder errorBuilder = new StringBuilder(32);
 
-	private FopTask(StreamSource inputXml, StreamSource xsltSource, Renderer renderer, OutputStream outputStream)
+	private FopTask(StreamSource inputXml, File xsltFile, Renderer renderer, OutputStream outputStream,
+		FOUserAgent userAgent)
 	{
 		this.inputSource = inputXml;
-		this.xsltSource = xsltSource;
+		this.xsltFile = xsltFile;
 		this.renderer = renderer;
 		this.outputStream = outputStream;
+		this.userAgent = userAgent;
 	}
 
-	private static StreamSource createXsltStreamSource(File xsltFile) throws FileNotFoundException
+	private static void checkXsltFile(File xsltFile) throws FileNotFoundException
+	{
+		if (xsltFile != null && !xsltFile.exists())
+		{
+			throw new FileNotFoundException("xsl file "
+					+ xsltFile.getAbsolutePath() + " not found ");
+		}
+	}
+
+	/**
+	 * Creates a Transformer for the given xslt file, compiling the file only if it has not
+	 * already been compiled or it has changed since it was compiled.
+	 *
+	 * @param xsltFile the transform template file, if null then the identity transformer is used
+	 * @return a new Transformer
+	 * @throws TransformerException if the template could not be compiled
+	 */
+	private static Transformer newTransformer(File xsltFile) throws TransformerException
 	{
 		if (xsltFile == null)
 		{
-			return null;
+			synchronized (TRANS_FACTORY)
+			{
+				return TRANS_FACTORY.newTransformer();// identity transformer
+			}
 		}
-		if (!xsltFile.exists())
+		String path = xsltFile.getAbsolutePath();
+		long lastModified = xsltFile.lastModified();
+		CompiledTemplate compiled = TEMPLATES.get(path);
+		if (compiled == null || compiled.lastModified != lastModified)
 		{
-			throw new FileNotFoundException("xsl file "
-					+ xsltFile.getAbsolutePath() + " not found ");
+			Templates templates;
+			// TransformerFactory is not guaranteed to be thread safe, but Templates are
+			synchronized (TRANS_FACTORY)
+			{
+				templates = TRANS_FACTORY.newTemplates(new StreamSource(xsltFile));
+			}
+			compiled = new CompiledTemplate(templates, lastModified);
+			TEMPLATES.put(path, compiled);
 		}
-		return new StreamSource(xsltFile);
+		return compiled.templates.newTransformer();
 	}
 
 	public static FopFactory getFactory()
@@ -147,9 +189,9 @@ public final class FopTask implements Runnable
 	 */
 	public static FopTask newFopTask(InputStream inputXmlStream, File xsltFile, OutputStream outputPdf) throws FileNotFoundException
 	{
-		StreamSource xsltSource = createXsltStreamSource(xsltFile);
-		userAgent = FOP_FACTORY.newFOUserAgent();
-		return new FopTask(new StreamSource(inputXmlStream), xsltSource, null, outputPdf);
+		checkXsltFile(xsltFile);
+		return new FopTask(new StreamSource(inputXmlStream), xsltFile, null, outputPdf,
+			FOP_FACTORY.newFOUserAgent());
 	}
 
 	/**
@@ -165,9 +207,9 @@ public final class FopTask implements Runnable
 	 */
 	public static FopTask newFopTask(InputStream inputXmlStream, File xsltFile, Renderer renderer) throws FileNotFoundException
 	{
-		StreamSource xsltSource = createXsltStreamSource(xsltFile);
-		userAgent = renderer.getUserAgent();
-		return new FopTask(new StreamSource(inputXmlStream), xsltSource, renderer, null);
+		checkXsltFile(xsltFile);
+		return new FopTask(new StreamSource(inputXmlStream), xsltFile, renderer, null,
+			renderer.getUserAgent());
 	}
 
 	public String getErrorMessages()
@@ -211,15 +253,7 @@ public final class FopTask implements Runnable
 				fop = FOP_FACTORY.newFop(mimeType, userAgent);
 			}
 
-			Transformer transformer;
-			if (xsltSource != null)
-			{
-				transformer = TRANS_FACTORY.newTransformer(xsltSource);
-			}
-			else
-			{
-				transformer = TRANS_FACTORY.newTransformer();// identity transformer		
-			}
+			Transformer transformer = newTransformer(xsltFile);
 			transformer.setErrorListener(new FOPErrorListener());
 			transformer.transform(inputSource, new SAXResult(fop.getDefaultHandler()));
 		}
@@ -235,6 +269,22 @@ public final class FopTask implements Runnable
 		}
 	}
 
+	/**
+	 * An xslt template compiled from a file, along with the modification time of the file when
+	 * it was compiled.
+	 */
+	private static final class CompiledTemplate
+	{
+		private final Templates templates;
+		private final long lastModified;
+
+		private CompiledTemplate(Templates templates, long lastModified)
+		{
+			this.templates = templates;
+			this.lastModified = lastModified;
+		}
+	}
+
 	/**
 	 * The Class <code>FOPErrorListener</code> listens for notifications of issues when generating
 	 * PDF files and responds accordingly.
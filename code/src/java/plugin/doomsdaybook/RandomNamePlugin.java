@@ -22,10 +22,13 @@
 import java.awt.*;
 import java.awt.event.*;
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
 
 import gmgen.GMGenSystemView;
 import gmgen.pluginmgr.messages.AddMenuItemToGMGenToolsMenuMessage;
@@ -33,6 +36,7 @@ import gmgen.pluginmgr.messages.RequestAddTabToGMGenMessage;
 import pcgen.core.SettingsHandler;
 import pcgen.gui2.doomsdaybook.NameGenPanel;
 import pcgen.gui2.tools.Utility;
+import pcgen.pluginmgr.AsynchronousMessageHandler;
 import pcgen.pluginmgr.InteractivePlugin;
 import pcgen.pluginmgr.PCGenMessage;
 import pcgen.pluginmgr.PCGenMessageHandler;
@@ -42,7 +46,8 @@ import pcgen.system.LanguageBundle;
 /**
  * 
  */
-public class RandomNamePlugin implements InteractivePlugin
+public class RandomNamePlugin implements InteractivePlugin,
+		AsynchronousMessageHandler
 {
 	/** Log name */
 	public static final String LOG_NAME = "Random_Name_Generator";
@@ -110,6 +115,16 @@ public class RandomNamePlugin implements InteractivePlugin
 		return theView;
 	}
 
+	/**
+	 * Only a change of focus or state is of interest, to enable or disable the
+	 * menu item.
+	 */
+	@Override
+	public Collection<Class<? extends PCGenMessage>> getMessageTypes()
+	{
+		return Collections.singleton(FocusOrStateChangeOccurredMessage.class);
+	}
+
 	/**
 	 * listens to messages from the GMGen system, and handles them as needed
 	 * @param message the source of the event from the system
@@ -119,14 +134,9 @@ public class RandomNamePlugin implements InteractivePlugin
 	{
 		if (message instanceof FocusOrStateChangeOccurredMessage)
 		{
-			if (isActive())
-			{
-				nameToolsItem.setEnabled(false);
-			}
-			else
-			{
-				nameToolsItem.setEnabled(true);
-			}
+			// Advised on a thread of its own, so the menu is updated on the
+			// event dispatch thread
+			SwingUtilities.invokeLater(() -> nameToolsItem.setEnabled(!isActive()));
 		}
 	}
 
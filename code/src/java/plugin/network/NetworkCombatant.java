@@ -27,9 +27,6 @@ import gmgen.plugin.SystemAttribute;
 import gmgen.plugin.SystemHP;
 import gmgen.plugin.SystemInitiative;
 
-import java.io.BufferedOutputStream;
-import java.io.PrintStream;
-import java.net.Socket;
 import java.util.List;
 import java.util.StringTokenizer;
 import java.util.Vector;
@@ -51,18 +48,18 @@ public class NetworkCombatant extends Combatant
 	protected String htmlString = "";
 	protected float cr = 0;
 	protected int xp = 0;
-	protected Socket sock;
+	protected NetworkConnection connection;
 
 	/**
 	 *  Creates new Combatant
 	 * @param uid
-	 * @param sock
+	 * @param connection
 	 */
-	public NetworkCombatant(String uid, Socket sock)
+	public NetworkCombatant(String uid, NetworkConnection connection)
 	{
 		this.uid = uid;
-		this.sock = sock;
-		this.init = new NetworkInitiative(uid, sock);
+		this.connection = connection;
+		this.init = new NetworkInitiative(uid, connection);
 		this.hitPoints =
 				new SystemHP(new SystemAttribute("Constitution", 10), 1, 1);
 	}
@@ -424,19 +421,7 @@ public class NetworkCombatant extends Combatant
 
 	private void sendNetMessage(String message)
 	{
-		try
-		{
-			PrintStream os =
-					new PrintStream(new BufferedOutputStream(sock
-						.getOutputStream()), true, "UTF-8");
-			os.print("Pcg: " + uid + ":" + message + "\r\n");
-			os.flush();
-			//os.close();
-		}
-		catch (Exception e)
-		{
-			// TODO Handle this?
-		}
+		connection.sendMessage("Pcg", uid + ":" + message);
 	}
 
 	public void recieveNetMessage(String message)
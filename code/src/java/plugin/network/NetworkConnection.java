@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package plugin.network;
+
+/**
+ * A connection to a client of the network server, through which messages are
+ * sent to that client.
+ */
+public interface NetworkConnection
+{
+	/**
+	 * Queues a message to be sent to the client. This does not wait for the
+	 * message to be sent, and may be called from any thread.
+	 * 
+	 * @param type
+	 *            The type of message (e.g. "Pcg")
+	 * @param message
+	 *            The body of the message
+	 */
+	public void sendMessage(String type, String message);
+}
@@ -21,21 +21,18 @@
 
 import gmgen.plugin.SystemInitiative;
 
-import java.io.BufferedOutputStream;
-import java.io.PrintStream;
-import java.net.Socket;
 import java.util.StringTokenizer;
 
 public class NetworkInitiative extends SystemInitiative
 {
 	private String uid;
-	private Socket sock;
+	private NetworkConnection connection;
 
-	NetworkInitiative(String uid, Socket sock)
+	NetworkInitiative(String uid, NetworkConnection connection)
 	{
 		super();
 		this.uid = uid;
-		this.sock = sock;
+		this.connection = connection;
 	}
 
     @Override
@@ -54,19 +51,7 @@ public class NetworkInitiative extends SystemInitiative
 
 	private void sendNetMessage(String message)
 	{
-		try
-		{
-			PrintStream os =
-					new PrintStream(new BufferedOutputStream(sock
-						.getOutputStream()), true, "UTF-8");
-			os.print("Pcg: " + uid + ":" + message + "\r\n");
-			os.flush();
-			//os.close();
-		}
-		catch (Exception e)
-		{
-			// TODO Handle This?
-		}
+		connection.sendMessage("Pcg", uid + ":" + message);
 	}
 
 	void recieveNetMessage(String message)
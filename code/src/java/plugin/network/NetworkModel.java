@@ -122,7 +122,8 @@ public class NetworkModel
 		}
 	}
 
-	public void handlePcgMessage(String uid, String messagetext, Socket sock)
+	public void handlePcgMessage(String uid, String messagetext,
+		NetworkConnection connection)
 	{
 		if (recievedCombatants.containsKey(uid))
 		{
@@ -131,7 +132,7 @@ public class NetworkModel
 		}
 		else
 		{
-			NetworkCombatant cbt = new NetworkCombatant(uid, sock);
+			NetworkCombatant cbt = new NetworkCombatant(uid, connection);
 			cbt.recieveNetMessage(messagetext);
 			recievedCombatants.put(uid, cbt);
 			combat.add(cbt);
@@ -214,29 +215,7 @@ public class NetworkModel
 	{
 		if (server != null)
 		{
-			NetworkServer serverThread = null;
-			ThreadGroup tg = server.getThreadGroup();
-			// The Thread Group could be null if the server never started properly
-			if (tg != null)
-			{
-				Thread[] tl = new Thread[tg.activeCount()];
-				tg.enumerate(tl);
-				for (Thread t : tl)
-				{
-					if (t instanceof NetworkServer)
-					{
-						serverThread = (NetworkServer) t;
-					}
-					else if (t instanceof NetworkServer.Handler)
-					{
-						((NetworkServer.Handler) t).setRun(false);
-					}
-				}
-				if (serverThread != null)
-				{
-					serverThread.setRun(false);
-				}
-			}
+			server.setRun(false);
 		}
 		server = null;
 		log("Local", "Local", "Server Shut Down");
@@ -21,30 +21,90 @@
 
 import pcgen.core.SettingsHandler;
 import pcgen.util.Logging;
-import plugin.network.gui.NetworkView;
 
-import java.io.BufferedOutputStream;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.io.PrintStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.InetAddress;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
 import java.util.StringTokenizer;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The server of the network plugin. All clients are served by this one thread,
+ * which waits on a Selector for connections, incoming lines and room to write.
+ * 
+ * Messages may be sent to clients from any thread. Each client has a queue of
+ * outbound messages; sending a message only adds it to the queue(s), and a
+ * message sent to many clients is encoded once and shared between their
+ * queues. The server thread writes everything queued for a client in one
+ * write, so a burst of updates (such as a combatant being sent field by
+ * field) reaches the client together. A client which stops reading is
+ * disconnected once too much is queued for it, rather than holding up the
+ * others.
+ */
 public class NetworkServer extends Thread
 {
+	/**
+	 * The most that may be queued for a client before it is disconnected.
+	 */
+	private static final long MAX_QUEUED_BYTES = 4L * 1024 * 1024;
+
+	/**
+	 * The most queued messages written to a client in one write.
+	 */
+	private static final int MAX_BATCH = 64;
+
 	private NetworkModel model;
-	private static List<String> clients = new ArrayList<>();
-	boolean run = true;
-	protected ServerSocket sock;
+	private final int port;
+	private final List<String> clients = new ArrayList<>();
+	volatile boolean run = true;
+	protected ServerSocketChannel sock;
+	private Selector selector;
+	private volatile int localPort = -1;
+	private final CountDownLatch started = new CountDownLatch(1);
+	private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+	private final Queue<Connection> pendingWrites =
+			new ConcurrentLinkedQueue<>();
 
 	public NetworkServer(NetworkModel model)
 	{
+		this(model, SettingsHandler.getGMGenOption(NetworkPlugin.LOG_NAME
+			+ ".port", 80));
+	}
+
+	/**
+	 * Creates a server for the given port.
+	 * 
+	 * @param model
+	 *            The model to report to, or null to run without the GMGen
+	 *            view (as when load testing)
+	 * @param port
+	 *            The port to listen on, or 0 for any free port
+	 */
+	NetworkServer(NetworkModel model, int port)
+	{
+		super("NetworkServer"); //$NON-NLS-1$
 		this.model = model;
+		this.port = port;
 	}
 
     @Override
@@ -56,124 +116,225 @@ public class NetworkServer extends Thread
 		}
 		catch (UnknownHostException uhe)
 		{
-			model.getView().setConnectionText("Server Error",
-				"Cannot determine local address");
+			setStatus("Server Error", "Cannot determine local address");
 		}
 		catch (Exception e)
 		{
-			model.getView().setConnectionText("Server Error", e.getMessage());
+			setStatus("Server Error", e.getMessage());
+		}
+		finally
+		{
+			started.countDown();
 		}
 	}
 
 	public void startServer() throws Exception
 	{
-		Socket clientSocket;
-		NetworkView view = model.getView();
-		int port =
-				SettingsHandler.getGMGenOption(
-					NetworkPlugin.LOG_NAME + ".port", 80);
-		view.setConnectionText("Server Status", "Starting");
-		InetAddress inetadr = InetAddress.getLocalHost();
-		view.setLocalAddressText(inetadr.getHostAddress() + ":" + port);
-		run = true;
-
-		sock = new ServerSocket(port);
-		view.setConnectionText("Server Status", "Started");
-		while (run)
+		setStatus("Server Status", "Starting");
+		if (model != null)
 		{
-			try
+			InetAddress inetadr = InetAddress.getLocalHost();
+			model.getView().setLocalAddressText(
+				inetadr.getHostAddress() + ":" + port);
+		}
+
+		selector = Selector.open();
+		sock = ServerSocketChannel.open();
+		try
+		{
+			sock.bind(new InetSocketAddress(port));
+			sock.configureBlocking(false);
+			sock.register(selector, SelectionKey.OP_ACCEPT);
+			localPort = sock.socket().getLocalPort();
+			started.countDown();
+			setStatus("Server Status", "Started");
+			while (run)
 			{
-				clientSocket = sock.accept();
-				new Handler(clientSocket).start();
+				selector.select();
+				processPendingWrites();
+				Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+				while (it.hasNext())
+				{
+					SelectionKey key = it.next();
+					it.remove();
+					if (!key.isValid())
+					{
+						continue;
+					}
+					if (key.isAcceptable())
+					{
+						accept();
+					}
+					else
+					{
+						Connection conn = (Connection) key.attachment();
+						if (key.isReadable())
+						{
+							conn.read();
+						}
+						if (key.isValid() && key.isWritable())
+						{
+							conn.flush();
+						}
+					}
+				}
 			}
-			catch (Exception e)
+			// Send any goodbyes queued while stopping
+			processPendingWrites();
+		}
+		catch (ClosedSelectorException e)
+		{
+			// Stopped
+		}
+		finally
+		{
+			for (Connection conn : connections)
 			{
-				view.setConnectionText("Server Status", "Stopped");
+				conn.close();
 			}
+			sock.close();
+			selector.close();
+			setStatus("Server Status", "Stopped");
 		}
-		sock.close();
+	}
+
+	/**
+	 * Returns the port the server is listening on, waiting for the server to
+	 * start if necessary.
+	 * 
+	 * @param timeout
+	 *            The longest time to wait
+	 * @param unit
+	 *            The unit of the timeout
+	 * @return The port, or -1 if the server failed to start in time
+	 * @throws InterruptedException
+	 *             If interrupted while waiting
+	 */
+	int getLocalPort(long timeout, TimeUnit unit) throws InterruptedException
+	{
+		started.await(timeout, unit);
+		return localPort;
 	}
 
 	public void setRun(boolean run)
 	{
-		if (sock != null)
+		if (!run && this.run)
 		{
-			try
+			for (Connection conn : connections)
 			{
-				sock.close();
-				this.run = run;
+				conn.sendExitMessage();
 			}
-			catch (Exception e)
+			this.run = false;
+			if (selector != null)
 			{
-				// TODO Handle this?
+				selector.wakeup();
 			}
 		}
 	}
 
+	private void accept() throws IOException
+	{
+		SocketChannel channel = sock.accept();
+		if (channel == null)
+		{
+			return;
+		}
+		channel.configureBlocking(false);
+		channel.socket().setTcpNoDelay(true);
+		Connection conn = new Connection(channel);
+		conn.key = channel.register(selector, SelectionKey.OP_READ, conn);
+		connections.add(conn);
+		setStatus("Server Status", conn.user + " Connected.  "
+			+ clients.size() + " clients connected");
+	}
+
+	private void processPendingWrites()
+	{
+		Connection conn;
+		while ((conn = pendingWrites.poll()) != null)
+		{
+			conn.scheduled.set(false);
+			conn.flush();
+		}
+	}
+
+	private static ByteBuffer encode(String type, String message)
+	{
+		return ByteBuffer.wrap((type + ": " + message + "\r\n")
+			.getBytes(StandardCharsets.UTF_8));
+	}
+
 	public void sendRemoveUser(String user)
 	{
-		ThreadGroup tg = getThreadGroup();
-		Thread[] tl = new Thread[tg.activeCount()];
-		tg.enumerate(tl);
-		for (Thread t : tl)
+		ByteBuffer message = encode("RemoveUser", user);
+		for (Connection conn : connections)
 		{
-			if (t instanceof NetworkServer.Handler)
-			{
-				((NetworkServer.Handler) t).sendRemoveUser(user);
-			}
+			conn.enqueue(message);
 		}
 	}
 
+	/**
+	 * Tells the client which has just connected as the given user about every
+	 * connected user, and every other client about the new user.
+	 */
 	public void sendAllAddUser(String user)
 	{
-		ThreadGroup tg = getThreadGroup();
-		Thread[] tl = new Thread[tg.activeCount()];
-		tg.enumerate(tl);
-		for (Thread t : tl)
+		ByteBuffer message = encode("AddUser", user);
+		for (Connection conn : connections)
 		{
-			if (t instanceof NetworkServer.Handler)
+			if (user.equals(conn.user))
 			{
-				((NetworkServer.Handler) t).sendAddUser("GM");
+				conn.sendAddUser("GM");
 				for (String client : clients)
 				{
-					((NetworkServer.Handler) t).sendAddUser(client);
+					conn.sendAddUser(client);
 				}
 			}
+			else
+			{
+				conn.enqueue(message);
+			}
 		}
 	}
 
 	public void sendIM(String source, String target, String text)
 	{
-		ThreadGroup tg = getThreadGroup();
-		Thread[] tl = new Thread[tg.activeCount()];
-		tg.enumerate(tl);
-		for (Thread t : tl)
+		if (target.equals("Broadcast"))
 		{
-			if (t instanceof NetworkServer.Handler)
+			sendBroadcast(source, text);
+			return;
+		}
+		for (Connection conn : connections)
+		{
+			if (conn.getUser().equals(target))
 			{
-				if (target.equals("Broadcast"))
-				{
-					((NetworkServer.Handler) t).sendBroadcast(source, text);
-				}
-				else if (((NetworkServer.Handler) t).getUser().equals(target))
-				{
-					((NetworkServer.Handler) t).sendIM(source, text);
-				}
+				conn.sendIM(source, text);
 			}
 		}
 	}
 
 	public void sendBroadcast(String user, String text)
 	{
-		ThreadGroup tg = getThreadGroup();
-		Thread[] tl = new Thread[tg.activeCount()];
-		tg.enumerate(tl);
-		for (Thread t : tl)
+		ByteBuffer message = encode("Broadcast", user + "|" + text);
+		for (Connection conn : connections)
 		{
-			if (t instanceof NetworkServer.Handler)
-			{
-				((NetworkServer.Handler) t).sendBroadcast(user, text);
-			}
+			conn.enqueue(message);
+		}
+	}
+
+	private void setStatus(String title, String text)
+	{
+		if (model != null)
+		{
+			model.getView().setConnectionText(title, text);
+		}
+	}
+
+	private void log(String user, String owner, String message)
+	{
+		if (model != null)
+		{
+			model.log(user, owner, message);
 		}
 	}
 
@@ -190,27 +351,19 @@ public class NetworkServer extends Thread
 			}
 		}
 		clients.add(message);
-		sendAllAddUser(message);
-		model.addUser(message);
-		model.log(message, "Network", "Connected");
-		model.getView().setConnectionText("Server Status",
+		if (model != null)
+		{
+			model.addUser(message);
+		}
+		log(message, "Network", "Connected");
+		setStatus("Server Status",
 			message + " Connected.  " + clients.size() + " clients connected");
 		return message;
 	}
 
 	private void handleExitMessage(String user) throws Exception
 	{
-		model.log(user, "Network", "Disconnected");
-		for (String test : clients)
-		{
-			if (test.equals(user))
-			{
-				clients.remove(test);
-				break;
-			}
-			model.removeUser(user);
-			sendRemoveUser(user);
-		}
+		log(user, "Network", "Disconnected");
 		throw new Exception("");
 	}
 
@@ -227,7 +380,7 @@ public class NetworkServer extends Thread
 		{
 			log = st.nextToken();
 		}
-		model.log(user, owner, log);
+		log(user, owner, log);
 	}
 
 	private void handleIMMessage(String user, String message)
@@ -245,30 +398,37 @@ public class NetworkServer extends Thread
 		}
 		if (owner.equals("GM"))
 		{
-			model.log(user, log);
+			if (model != null)
+			{
+				model.log(user, log);
+			}
 		}
 		else
 		{
-			model.log(user, "(to " + owner + ")", log);
+			log(user, "(to " + owner + ")", log);
 			sendIM(user, owner, log);
 		}
 	}
 
 	private void handleBroadcastMessage(String user, String message)
 	{
-		model.log(user, "BROADCAST", message);
+		log(user, "BROADCAST", message);
 		sendBroadcast(user, message);
 	}
 
-	private void handlePcgMessage(String message, Socket socket)
+	private void handlePcgMessage(String message, NetworkConnection connection)
 	{
 		int num = message.indexOf(":");
 		String uid = message.substring(0, num);
 		String messagetext = message.substring(num + 1);
-		model.handlePcgMessage(uid, messagetext, socket);
+		if (model != null)
+		{
+			model.handlePcgMessage(uid, messagetext, connection);
+		}
 	}
 
-	public String handleMessage(String message, Socket socket) throws Exception
+	public String handleMessage(String message, NetworkConnection connection)
+		throws Exception
 	{
 		String user = "Client";
 		if (message.startsWith("User:"))
@@ -277,13 +437,13 @@ public class NetworkServer extends Thread
 		}
 		else
 		{
-			handleMessage(user, message, socket);
+			handleMessage(user, message, connection);
 		}
 		return user;
 	}
 
-	public String handleMessage(String user, String message, Socket socket)
-		throws Exception
+	public String handleMessage(String user, String message,
+		NetworkConnection connection) throws Exception
 	{
 		String retValue = "";
 		if (message.startsWith("Exit:"))
@@ -296,7 +456,7 @@ public class NetworkServer extends Thread
 		}
 		else if (message.startsWith("Pcg:"))
 		{
-			handlePcgMessage(message.substring(5), socket);
+			handlePcgMessage(message.substring(5), connection);
 		}
 		else if (message.startsWith("IM:"))
 		{
@@ -313,22 +473,33 @@ public class NetworkServer extends Thread
 		return retValue;
 	}
 
-	protected class Handler extends Thread
+	/**
+	 * A connected client. Reading, writing and closing happen on the server
+	 * thread; messages may be queued from any thread.
+	 */
+	protected class Connection implements NetworkConnection
 	{
-		Socket socket;
-		PrintStream os = null;
-		boolean isRun = true;
-		String user = "Client";
+		private final SocketChannel channel;
+		private SelectionKey key;
+		private volatile String user = "Client";
+		private final ByteBuffer in = ByteBuffer.allocate(8192);
+		private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+		private final Queue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+		private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();
+		private final AtomicLong queuedBytes = new AtomicLong();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		private volatile boolean closeWhenFlushed = false;
+		private boolean closed = false;
 
-		public Handler(Socket sock)
+		private Connection(SocketChannel channel)
 		{
-			this.socket = sock;
+			this.channel = channel;
 		}
 
-		private synchronized void sendMessage(String type, String message)
+		@Override
+		public void sendMessage(String type, String message)
 		{
-			os.print(type + ": " + message + "\r\n");
-			os.flush();
+			enqueue(encode(type, message));
 		}
 
 		public void sendIM(String source, String message)
@@ -356,108 +527,198 @@ public class NetworkServer extends Thread
 			sendMessage("Exit", "");
 		}
 
-        @Override
-		public void run()
+		public String getUser()
+		{
+			return user;
+		}
+
+		private void enqueue(ByteBuffer message)
 		{
-			NetworkView view = model.getView();
+			if (closed)
+			{
+				return;
+			}
+			if (queuedBytes.addAndGet(message.remaining()) > MAX_QUEUED_BYTES)
+			{
+				Logging.debugPrint("Network client " + user
+					+ " is not reading; disconnecting");
+				closeWhenFlushed = true;
+				outbound.clear();
+			}
+			else
+			{
+				outbound.add(message.duplicate());
+			}
+			if (!scheduled.getAndSet(true))
+			{
+				pendingWrites.add(this);
+				selector.wakeup();
+			}
+		}
+
+		private void read()
+		{
+			int count;
 			try
 			{
-				view.setConnectionText("Server Status", user + " Connected.  "
-					+ clients.size() + " clients connected");
-				BufferedReader is =
-						new BufferedReader(new InputStreamReader(socket
-							.getInputStream(), "UTF-8"));
-				os =
-						new PrintStream(new BufferedOutputStream(socket
-							.getOutputStream()), true, "UTF-8");
-				String line;
-				String disconnection = " Disconnected. ";
-				while ((line = is.readLine()) != null)
+				in.clear();
+				count = channel.read(in);
+			}
+			catch (IOException e)
+			{
+				setStatus("Server Error", "IO Error on socket");
+				close();
+				return;
+			}
+			if (count < 0)
+			{
+				close();
+				return;
+			}
+			in.flip();
+			while (in.hasRemaining() && !closeWhenFlushed)
+			{
+				byte b = in.get();
+				if (b == '\n')
 				{
-					String retString = "";
-					Logging.debugPrint("Network message from Client: " + line);
-					try
+					String text =
+							new String(line.toByteArray(),
+								StandardCharsets.UTF_8);
+					line.reset();
+					if (text.endsWith("\r"))
 					{
-						if (user.equals("Client"))
-						{
-							user = handleMessage(line, socket);
-						}
-						else
-						{
-							retString = handleMessage(user, line, socket);
-						}
-
-						if (!retString.equals(""))
-						{
-							os.print(retString + "\r\n");
-							os.flush();
-						}
-					}
-					catch (Exception e)
-					{
-						if (!e.getMessage().equals(""))
-						{
-							disconnection =
-									" Disconnected, " + e.getMessage() + ". ";
-							os.print("Error: " + e.getMessage());
-							os.flush();
-						}
-						break;
+						text = text.substring(0, text.length() - 1);
 					}
-					if (!isRun)
+					handleLine(text);
+				}
+				else
+				{
+					line.write(b);
+				}
+			}
+		}
+
+		private void handleLine(String text)
+		{
+			Logging.debugPrint("Network message from Client: " + text);
+			try
+			{
+				String retString = "";
+				if (user.equals("Client"))
+				{
+					user = handleMessage(text, this);
+					if (!user.equals("Client"))
 					{
-						break;
+						sendAllAddUser(user);
 					}
 				}
-				os.close();
-				is.close();
-				socket.close();
-				view.setConnectionText("Server Status", user + disconnection
-					+ clients.size() + " clients connected");
+				else
+				{
+					retString = handleMessage(user, text, this);
+				}
+				if (!retString.equals(""))
+				{
+					enqueue(ByteBuffer.wrap((retString + "\r\n")
+						.getBytes(StandardCharsets.UTF_8)));
+				}
 			}
 			catch (Exception e)
 			{
-				for (String test : clients)
+				String message = e.getMessage();
+				if (message != null && !message.equals(""))
 				{
-					if (test.equals(user))
+					enqueue(ByteBuffer.wrap(("Error: " + message)
+						.getBytes(StandardCharsets.UTF_8)));
+				}
+				closeWhenFlushed = true;
+				flush();
+			}
+		}
+
+		private void flush()
+		{
+			if (closed)
+			{
+				return;
+			}
+			ByteBuffer next;
+			while ((next = outbound.poll()) != null)
+			{
+				writing.add(next);
+			}
+			try
+			{
+				while (!writing.isEmpty())
+				{
+					ByteBuffer[] batch =
+							new ByteBuffer[Math.min(writing.size(), MAX_BATCH)];
+					Iterator<ByteBuffer> it = writing.iterator();
+					for (int i = 0; i < batch.length; i++)
+					{
+						batch[i] = it.next();
+					}
+					long written = channel.write(batch);
+					queuedBytes.addAndGet(-written);
+					while (!writing.isEmpty()
+						&& !writing.peek().hasRemaining())
+					{
+						writing.poll();
+					}
+					if (written == 0)
 					{
-						clients.remove(test);
 						break;
 					}
 				}
-				view.setConnectionText("Server Error", "IO Error on socket");
+			}
+			catch (IOException e)
+			{
+				close();
 				return;
 			}
+			if (writing.isEmpty())
+			{
+				if (closeWhenFlushed)
+				{
+					close();
+				}
+				else if (key.isValid())
+				{
+					key.interestOps(SelectionKey.OP_READ);
+				}
+			}
+			else if (key.isValid())
+			{
+				key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
 		}
 
-		public void setRun(boolean run)
-		{
-			sendExitMessage();
-		}
-
-		public Socket getSocket()
-		{
-			return socket;
-		}
-
-		public PrintStream getOutputStream()
-		{
-			return os;
-		}
-
-		public String getUser()
-		{
-			return user;
-		}
-
-		public void setOutputStream(PrintStream os)
-		{
-			this.os = os;
-		}
-
-		public void setUser(String user)
+		private void close()
 		{
-			this.user = user;
+			if (closed)
+			{
+				return;
+			}
+			closed = true;
+			connections.remove(this);
+			key.cancel();
+			try
+			{
+				channel.close();
+			}
+			catch (IOException e)
+			{
+				// Already gone
+			}
+			if (clients.remove(user))
+			{
+				if (model != null)
+				{
+					model.removeUser(user);
+				}
+				NetworkServer.this.sendRemoveUser(user);
+			}
+			setStatus("Server Status", user + " Disconnected. "
+				+ clients.size() + " clients connected");
 		}
 	}
 }
@@ -26,13 +26,17 @@ import gmgen.pluginmgr.messages.RequestAddTabToGMGenMessage;
 import java.awt.Component;
 import java.awt.event.ActionEvent;
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
 
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
 
 import pcgen.core.SettingsHandler;
 import pcgen.gui2.tools.Utility;
+import pcgen.pluginmgr.AsynchronousMessageHandler;
 import pcgen.pluginmgr.InteractivePlugin;
 import pcgen.pluginmgr.PCGenMessage;
 import pcgen.pluginmgr.PCGenMessageHandler;
@@ -48,7 +52,8 @@ import plugin.overland.gui.OverPanel;
  * @author  Expires 2003
  * @author Vincent Lhote
  */
-public class OverlandPlugin implements InteractivePlugin
+public class OverlandPlugin implements InteractivePlugin,
+		AsynchronousMessageHandler
 {
 	/** Log name / plugin id */
 	public static final String LOG_NAME = "Overland_Travel"; //$NON-NLS-1$
@@ -128,6 +133,16 @@ public class OverlandPlugin implements InteractivePlugin
 		return theView;
 	}
 
+	/**
+	 * Only a change of focus or state is of interest, to enable or disable the
+	 * menu item.
+	 */
+	@Override
+	public Collection<Class<? extends PCGenMessage>> getMessageTypes()
+	{
+		return Collections.singleton(FocusOrStateChangeOccurredMessage.class);
+	}
+
 	/**
 	 * listens to messages from the GMGen system, and handles them as needed
 	 * @param message the source of the event from the system
@@ -137,14 +152,9 @@ public class OverlandPlugin implements InteractivePlugin
 	{
 		if (message instanceof FocusOrStateChangeOccurredMessage)
 		{
-			if (isActive())
-			{
-				overToolsItem.setEnabled(false);
-			}
-			else
-			{
-				overToolsItem.setEnabled(true);
-			}
+			// Advised on a thread of its own, so the menu is updated on the
+			// event dispatch thread
+			SwingUtilities.invokeLater(() -> overToolsItem.setEnabled(!isActive()));
 		}
 	}
 
@@ -32,7 +32,6 @@ import pcgen.core.prereq.AbstractPrerequisiteTest;
 import pcgen.core.prereq.Prerequisite;
 import pcgen.core.prereq.PrerequisiteException;
 import pcgen.core.prereq.PrerequisiteTest;
-import pcgen.core.prereq.PrerequisiteTestFactory;
 
 /**
  * @author wardc
@@ -78,9 +77,7 @@ public class PreRuleTester extends AbstractPrerequisiteTest implements Prerequis
 
 		for (Prerequisite element : prereq.getPrerequisites())
 		{
-			final PrerequisiteTestFactory factory =
-					PrerequisiteTestFactory.getInstance();
-			final PrerequisiteTest test = factory.getTest(element.getKind());
+			final PrerequisiteTest test = element.getTest();
 			if (test != null)
 			{
 				runningTotal += test.passes(element, equipment, aPC);
@@ -115,11 +112,9 @@ public class PreRuleTester extends AbstractPrerequisiteTest implements Prerequis
 			runningTotal = 1;
 		}
 
-		final PrerequisiteTestFactory factory =
-				PrerequisiteTestFactory.getInstance();
 		for (Prerequisite element : prereq.getPrerequisites())
 		{
-			final PrerequisiteTest test = factory.getTest(element.getKind());
+			final PrerequisiteTest test = element.getTest();
 			if (test != null)
 			{
 				runningTotal += test.passes(element, character, source);
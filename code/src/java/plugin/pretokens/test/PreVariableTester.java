@@ -34,7 +34,6 @@ import pcgen.core.prereq.AbstractPrerequisiteTest;
 import pcgen.core.prereq.Prerequisite;
 import pcgen.core.prereq.PrerequisiteException;
 import pcgen.core.prereq.PrerequisiteTest;
-import pcgen.core.prereq.PrerequisiteTestFactory;
 import pcgen.core.utils.CoreUtility;
 
 /**
@@ -77,9 +76,7 @@ public class PreVariableTester extends AbstractPrerequisiteTest implements Prere
 		}
 		for (Prerequisite element : prereq.getPrerequisites())
 		{
-			final PrerequisiteTestFactory factory =
-					PrerequisiteTestFactory.getInstance();
-			final PrerequisiteTest test = factory.getTest(element.getKind());
+			final PrerequisiteTest test = element.getTest();
 			if (test != null)
 			{
 				// all of the tests must pass, so just
@@ -116,9 +113,7 @@ public class PreVariableTester extends AbstractPrerequisiteTest implements Prere
 		}
 		for (Prerequisite element : prereq.getPrerequisites())
 		{
-			final PrerequisiteTestFactory factory =
-					PrerequisiteTestFactory.getInstance();
-			final PrerequisiteTest test = factory.getTest(element.getKind());
+			final PrerequisiteTest test = element.getTest();
 
 			if (test != null)
 			{
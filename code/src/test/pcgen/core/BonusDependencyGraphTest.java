@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import pcgen.AbstractCharacterTestCase;
+import pcgen.core.bonus.Bonus;
+import pcgen.core.bonus.BonusObj;
+import pcgen.rules.context.LoadContext;
+
+/**
+ * BonusDependencyGraphTest checks that a BonusDependencyGraph orders bonuses
+ * after the bonuses they depend on, finding the same dependencies as testing
+ * every pair of bonuses.
+ */
+@SuppressWarnings("nls")
+public class BonusDependencyGraphTest extends AbstractCharacterTestCase
+{
+
+	/**
+	 * Verify each bonus follows every bonus it depends on, when the bonuses
+	 * are supplied in the reverse order.
+	 */
+	public void testEvaluationOrder()
+	{
+		LoadContext context = Globals.getContext();
+		BonusObj total = Bonus.newBonus(context, "VAR|Total|Middle+Other");
+		BonusObj middle = Bonus.newBonus(context, "VAR|Middle|Base");
+		BonusObj other = Bonus.newBonus(context, "VAR|Other|1");
+		BonusObj base = Bonus.newBonus(context, "VAR|Base|2");
+		BonusObj ac = Bonus.newBonus(context, "COMBAT|AC|Total|TYPE=Armor");
+		List<BonusObj> bonuses = Arrays.asList(ac, total, middle, other, base);
+
+		List<BonusObj> order =
+				new BonusDependencyGraph(bonuses).getEvaluationOrder();
+		assertEquals(bonuses.size(), order.size());
+		assertTrue(order.containsAll(bonuses));
+		for (BonusObj bonus : bonuses)
+		{
+			for (BonusObj dependency : scanDependencies(bonus, bonuses))
+			{
+				assertTrue(bonus + " evaluated before " + dependency,
+					order.indexOf(dependency) < order.indexOf(bonus));
+			}
+		}
+		assertEquals(Arrays.asList(base, middle, other, total, ac), order);
+	}
+
+	/**
+	 * Verify bonuses which depend on each other are each evaluated once.
+	 */
+	public void testLoop()
+	{
+		LoadContext context = Globals.getContext();
+		BonusObj alpha = Bonus.newBonus(context, "VAR|Alpha|Beta");
+		BonusObj beta = Bonus.newBonus(context, "VAR|Beta|Alpha");
+		List<BonusObj> order =
+				new BonusDependencyGraph(Arrays.asList(alpha, beta))
+					.getEvaluationOrder();
+		assertEquals(Arrays.asList(beta, alpha), order);
+	}
+
+	/**
+	 * Verify a graph is only reported as built for the same bonuses.
+	 */
+	public void testIsFor()
+	{
+		LoadContext context = Globals.getContext();
+		BonusObj first = Bonus.newBonus(context, "VAR|Base|2");
+		BonusObj second = Bonus.newBonus(context, "VAR|Base|2");
+		BonusDependencyGraph graph =
+				new BonusDependencyGraph(Collections.singletonList(first));
+		assertTrue(graph.isFor(Collections.singletonList(first)));
+		assertFalse(graph.isFor(Collections.singletonList(second)));
+		assertFalse(graph.isFor(Arrays.asList(first, second)));
+	}
+
+	/**
+	 * Find the dependencies of a bonus by testing it against every other
+	 * bonus, as the active bonus map was built before the graph was cached.
+	 */
+	private static List<BonusObj> scanDependencies(BonusObj bonus,
+		List<BonusObj> bonuses)
+	{
+		List<BonusObj> dependencies = new ArrayList<>();
+		for (BonusObj other : bonuses)
+		{
+			if (other != bonus
+				&& (bonus.getDependsOn(other.getUnparsedBonusInfoList())
+					|| bonus.getDependsOnBonusName(other.getBonusName())))
+			{
+				dependencies.add(other);
+			}
+		}
+		return dependencies;
+	}
+}
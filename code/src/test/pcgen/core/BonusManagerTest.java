@@ -24,7 +24,9 @@ package pcgen.core;
 
 
 import pcgen.AbstractCharacterTestCase;
+import pcgen.cdom.base.FormulaFactory;
 import pcgen.cdom.enumeration.ListKey;
+import pcgen.cdom.enumeration.VariableKey;
 import pcgen.core.bonus.Bonus;
 import pcgen.core.bonus.BonusObj;
 import pcgen.rules.context.LoadContext;
@@ -128,4 +130,42 @@ public class BonusManagerTest extends AbstractCharacterTestCase
 		}
 	}
 
+	/**
+	 * Validate that a bonus whose formula uses a variable bonused by another 
+	 * bonus follows that variable as bonuses are added and removed, so the 
+	 * cached dependency graph is rebuilt when the active bonuses change.
+	 */
+	@Test
+	public void testDependentBonuses()
+	{
+		LoadContext context = Globals.getContext();
+		PCTemplate testObj = TestHelper.makeTemplate("Dependent");
+		testObj.put(VariableKey.getConstant("Base"), FormulaFactory.ZERO);
+		testObj.put(VariableKey.getConstant("Middle"), FormulaFactory.ZERO);
+		// The dependent bonus is listed before the bonus it depends on
+		testObj.addToListFor(ListKey.BONUS,
+			Bonus.newBonus(context, "VAR|Middle|Base"));
+		testObj.addToListFor(ListKey.BONUS,
+			Bonus.newBonus(context, "VAR|Base|2"));
+		PCTemplate extraObj = TestHelper.makeTemplate("Extra");
+		extraObj.addToListFor(ListKey.BONUS,
+			Bonus.newBonus(context, "VAR|Base|3"));
+
+		PlayerCharacter pc = getCharacter();
+		pc.addTemplate(testObj);
+		pc.calcActiveBonuses();
+		assertEquals("Incorrect dependent value", 2.0,
+			pc.getVariableValue("Middle", "").doubleValue(), 0.0001);
+
+		pc.addTemplate(extraObj);
+		pc.calcActiveBonuses();
+		assertEquals("Incorrect dependent value after add", 5.0,
+			pc.getVariableValue("Middle", "").doubleValue(), 0.0001);
+
+		pc.removeTemplate(extraObj);
+		pc.calcActiveBonuses();
+		assertEquals("Incorrect dependent value after remove", 2.0,
+			pc.getVariableValue("Middle", "").doubleValue(), 0.0001);
+	}
+
 }
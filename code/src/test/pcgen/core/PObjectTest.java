@@ -44,7 +44,9 @@ import pcgen.cdom.enumeration.FactKey;
 import pcgen.cdom.enumeration.ListKey;
 import pcgen.cdom.enumeration.Nature;
 import pcgen.cdom.enumeration.ObjectKey;
+import pcgen.cdom.enumeration.Type;
 import pcgen.cdom.list.AbilityList;
+import pcgen.cdom.reference.CDOMGroupRef;
 import pcgen.cdom.reference.CDOMSingleRef;
 import pcgen.core.analysis.BonusAddition;
 import pcgen.core.bonus.Bonus;
@@ -55,7 +57,9 @@ import pcgen.persistence.lst.AbilityLoader;
 import pcgen.persistence.lst.CampaignSourceEntry;
 import pcgen.persistence.lst.GenericLoader;
 import pcgen.persistence.lst.PCClassLoader;
+import pcgen.rules.context.AbstractReferenceContext;
 import pcgen.rules.context.LoadContext;
+import pcgen.rules.context.RuntimeReferenceContext;
 
 /**
  * Test the PObject class.
@@ -350,6 +354,70 @@ public class PObjectTest extends AbstractCharacterTestCase
 			pc.getDescription(pobj));
 	}
 
+	/**
+	 * Tests type matching, including the forms of type string accepted.
+	 */
+	public void testIsType()
+	{
+		final PCTemplate pobj = new PCTemplate();
+		pobj.addToListFor(ListKey.TYPE, Type.WEAPON);
+		pobj.addToListFor(ListKey.TYPE, Type.getConstant("Martial"));
+
+		assertTrue(pobj.isType("Weapon"));
+		assertTrue(pobj.isType("weapon.MARTIAL"));
+		assertTrue(pobj.isType("TYPE=Martial.Weapon"));
+		assertTrue(pobj.isType("!Weapon"));
+		assertFalse(pobj.isType("Weapon.Exotic"));
+		assertFalse(pobj.isType(""));
+		assertEquals(2, pobj.getIndexableTypes().size());
+		assertTrue(pobj.getIndexableTypes().contains(Type.WEAPON));
+
+		final Equipment eq = new Equipment();
+		eq.addToListFor(ListKey.TYPE, Type.WEAPON);
+		assertEquals(1, eq.getIndexableTypes().size());
+		assertTrue(eq.getIndexableTypes().contains(Type.WEAPON));
+		assertEquals(Type.getConstantList("Weapon.Martial"),
+			PObject.getRequiredTypes("TYPE=weapon.MARTIAL"));
+	}
+
+	/**
+	 * Tests type references are resolved to the objects having all the types.
+	 */
+	public void testTypeReferenceResolution()
+	{
+		AbstractReferenceContext ref = new RuntimeReferenceContext();
+		PCTemplate martial = ref.constructCDOMObject(PCTemplate.class, "Martial");
+		martial.addToListFor(ListKey.TYPE, Type.WEAPON);
+		martial.addToListFor(ListKey.TYPE, Type.getConstant("Martial"));
+		PCTemplate simple = ref.constructCDOMObject(PCTemplate.class, "Simple");
+		simple.addToListFor(ListKey.TYPE, Type.WEAPON);
+		simple.addToListFor(ListKey.TYPE, Type.SIMPLE);
+		Equipment sword = ref.constructCDOMObject(Equipment.class, "Sword");
+		sword.addToListFor(ListKey.TYPE, Type.WEAPON);
+		sword.addToListFor(ListKey.TYPE, Type.getConstant("Martial"));
+
+		CDOMGroupRef<PCTemplate> weapons =
+				ref.getCDOMTypeReference(PCTemplate.class, "Weapon");
+		CDOMGroupRef<PCTemplate> martialWeapons =
+				ref.getCDOMTypeReference(PCTemplate.class, "Weapon", "Martial");
+		CDOMGroupRef<PCTemplate> dotted =
+				ref.getCDOMTypeReference(PCTemplate.class, "Martial.Weapon");
+		CDOMGroupRef<PCTemplate> exotic =
+				ref.getCDOMTypeReference(PCTemplate.class, "Exotic");
+		CDOMGroupRef<Equipment> martialEquipment =
+				ref.getCDOMTypeReference(Equipment.class, "Weapon", "Martial");
+		ref.resolveReferences(null);
+
+		assertEquals(2, weapons.getObjectCount());
+		assertEquals(1, martialWeapons.getObjectCount());
+		assertTrue(martialWeapons.contains(martial));
+		assertFalse(martialWeapons.contains(simple));
+		assertTrue(dotted.contains(martial));
+		assertEquals(1, dotted.getObjectCount());
+		assertEquals(0, exotic.getObjectCount());
+		assertTrue(martialEquipment.contains(sword));
+	}
+
 	/**
 	 * Test the definition and application of abilities. 
 	 * @throws PersistenceLayerException 
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import pcgen.AbstractCharacterTestCase;
+import pcgen.cdom.base.FormulaFactory;
+import pcgen.cdom.enumeration.VariableKey;
+import pcgen.system.PCGenSettings;
+
+/**
+ * TrackedVariableCacheTest checks that cached variable values are
+ * recalculated after a class level change when the inputs of cached values
+ * are tracked.
+ */
+@SuppressWarnings("nls")
+public class TrackedVariableCacheTest extends AbstractCharacterTestCase
+{
+
+	private PCClass fighter;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
+			PCGenSettings.OPTION_TRACK_CACHE_DEPENDENCIES, true);
+		super.setUp();
+		fighter = new PCClass();
+		fighter.setName("Fighter");
+		fighter.put(VariableKey.getConstant("FighterLevels"),
+			FormulaFactory.getFormulaFor("CL=Fighter"));
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		PCGenSettings.OPTIONS_CONTEXT.setBoolean(
+			PCGenSettings.OPTION_TRACK_CACHE_DEPENDENCIES, false);
+		super.tearDown();
+	}
+
+	/**
+	 * Verify values cached from the class levels of the character are
+	 * recalculated when a level is added and removed.
+	 */
+	public void testClassLevelChange()
+	{
+		PlayerCharacter pc = getCharacter();
+		pc.incrementClassLevel(1, fighter);
+		assertValues(pc, 1.0);
+		// The second read is answered from the cache
+		assertValues(pc, 1.0);
+
+		pc.incrementClassLevel(1, pc.getClassKeyed("Fighter"));
+		assertValues(pc, 2.0);
+
+		pc.incrementClassLevel(-1, pc.getClassKeyed("Fighter"));
+		assertValues(pc, 1.0);
+	}
+
+	private static void assertValues(PlayerCharacter pc, double level)
+	{
+		assertEquals("CL", level,
+			pc.getVariableValue("CL=Fighter", "").doubleValue(), 0.0001);
+		assertEquals("TL", level,
+			pc.getVariableValue("TL", "").doubleValue(), 0.0001);
+		assertEquals("FighterLevels", level,
+			pc.getVariableValue("FighterLevels", "").doubleValue(), 0.0001);
+	}
+}
@@ -98,4 +98,35 @@ public class PreReqHandlerTest extends PCGenTestCase
 			htmlString);
 		EnUsLocaleDependentTestCase.after();
 	}
+
+	/**
+	 * Test each prerequisite is bound to the test for its kind, that the
+	 * bound test is kept, and that it is replaced when the kind changes.
+	 * @throws Exception
+	 */
+	public void testBindTest() throws Exception
+	{
+		final PreParserFactory factory = PreParserFactory.getInstance();
+		final PrerequisiteTestFactory testFactory =
+				PrerequisiteTestFactory.getInstance();
+		final Prerequisite mult = factory.parse(
+			"PREMULT:1,[PRESKILL:1,Spellcraft=15],[PRERACE:1,Elf]");
+		mult.bindTest();
+
+		final PrerequisiteTest multTest = mult.getTest();
+		assertTrue(multTest instanceof PreMult);
+		assertSame(multTest, mult.getTest());
+		final List<Prerequisite> subreqs = mult.getPrerequisites();
+		assertEquals(2, subreqs.size());
+		for (Prerequisite subreq : subreqs)
+		{
+			assertSame(testFactory.getTest(subreq.getKind()), subreq.getTest());
+		}
+
+		final Prerequisite skill = subreqs.get(0);
+		assertSame(testFactory.getTest("SKILL"), skill.getTest());
+		skill.setKind("race");
+		assertSame(testFactory.getTest("RACE"), skill.getTest());
+		assertSame(skill.getTest(), skill.getTest());
+	}
 }
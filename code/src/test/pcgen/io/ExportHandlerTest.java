@@ -28,6 +28,8 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -60,6 +62,8 @@ import pcgen.core.character.EquipSet;
 import pcgen.rules.context.LoadContext;
 import pcgen.util.TestHelper;
 
+import freemarker.template.Configuration;
+
 /**
  * <code>SkillTokenTest</code> contains tests to verify that the
  * SKILL token and its subtokens are working correctly.
@@ -448,6 +452,95 @@ public class ExportHandlerTest extends AbstractCharacterTestCase
 			result);
 	}
 	
+	/**
+	 * Verify a template is reread once it has been changed, rather than the 
+	 * previously parsed version being reused.
+	 */
+	public void testChangedTemplate() throws Exception
+	{
+		File temp = File.createTempFile("testTemplate", ".txt");
+		temp.deleteOnExit();
+		PlayerCharacter pc = getCharacter();
+
+		writeTemplate(temp, "first");
+		assertEquals("Initial template", "first", evaluateTemplate(temp, pc)
+			.trim());
+		assertEquals("Reused template", "first", evaluateTemplate(temp, pc)
+			.trim());
+
+		writeTemplate(temp, "second version");
+		assertEquals("Changed template", "second version", evaluateTemplate(
+			temp, pc).trim());
+	}
+
+	/**
+	 * Verify a template which is not valid UTF-8 (e.g. one saved as Latin-1) 
+	 * is still exported, with the invalid bytes replaced.
+	 */
+	public void testNonUtf8Template() throws Exception
+	{
+		File temp = File.createTempFile("testTemplate", ".txt");
+		temp.deleteOnExit();
+		Files.write(temp.toPath(), "caf\u00e9 ok".getBytes( //$NON-NLS-1$
+			StandardCharsets.ISO_8859_1));
+		assertEquals("Latin-1 template", "caf\ufffd ok", evaluateTemplate(
+			temp, getCharacter()).trim());
+	}
+
+	/**
+	 * Verify characters exported through a FreeMarker template share the 
+	 * configuration of its directory, while the directives bound to each 
+	 * character only see that character.
+	 */
+	public void testFreemarkerSharedConfiguration() throws Exception
+	{
+		File temp = File.createTempFile("testTemplate", ".ftl");
+		temp.deleteOnExit();
+		writeTemplate(temp, "<@pcstring tag=\"STAT.1.STAT\"/>"); //$NON-NLS-1$
+		PlayerCharacter pc = getCharacter();
+		PlayerCharacter other = new PlayerCharacter();
+		String pcDex = evaluateToken("STAT.1.STAT", pc).trim();
+		String otherDex = evaluateToken("STAT.1.STAT", other).trim();
+		assertFalse("Characters should differ", pcDex.equals(otherDex));
+
+		ExportHandler export = new ExportHandler(temp);
+		assertEquals(pcDex, evaluateTemplate(export, pc).trim());
+		assertEquals(otherDex, evaluateTemplate(export, other).trim());
+		assertEquals(otherDex, evaluateTemplate(temp, other).trim());
+		assertEquals(pcDex, evaluateTemplate(temp, pc).trim());
+
+		Configuration cfg =
+				ExportHandler.getFreemarkerConfiguration(temp.getParentFile());
+		assertSame(cfg, ExportHandler.getFreemarkerConfiguration(temp
+			.getParentFile().getAbsoluteFile()));
+		assertNotNull(cfg.getSharedVariable("loop"));
+		assertNull("Character directives should not be shared",
+			cfg.getSharedVariable("pcstring"));
+	}
+
+	private void writeTemplate(File templateFile, String template)
+		throws IOException
+	{
+		BufferedWriter out = new BufferedWriter(new FileWriter(templateFile));
+		out.write(template);
+		out.close();
+	}
+
+	private String evaluateTemplate(File templateFile, PlayerCharacter pc)
+		throws ExportException
+	{
+		return evaluateTemplate(new ExportHandler(templateFile), pc);
+	}
+
+	private String evaluateTemplate(ExportHandler export, PlayerCharacter pc)
+		throws ExportException
+	{
+		StringWriter retWriter = new StringWriter();
+		BufferedWriter bufWriter = new BufferedWriter(retWriter);
+		export.write(pc, bufWriter);
+		return retWriter.toString();
+	}
+
 	private String evaluateToken(String token, PlayerCharacter pc)
 		throws IOException
 	{
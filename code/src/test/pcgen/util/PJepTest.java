@@ -248,6 +248,30 @@ public class PJepTest extends AbstractCharacterTestCase
 		assertEquals(-1, jep.getValue(), 0.1);
 	}
 
+	public void testCachedExpression()
+	{
+		final PJEP jep = new PJEP();
+
+		assertNotNull(jep.parseCachedExpression("if(MONKLVL<=4,-2,0)"));
+		jep.addVariable("MONKLVL", 3);
+		assertEquals(-2, jep.getValue(), 0.1);
+
+		jep.parseCachedExpression("floor(MONKLVL/2)");
+		jep.addVariable("MONKLVL", 7);
+		assertEquals(3, jep.getValue(), 0.1);
+
+		jep.initSymTab();
+		assertNotNull(jep.parseCachedExpression("if(MONKLVL<=4,-2,0)"));
+		assertEquals(1, jep.getSymbolTable().size());
+		jep.addVariable("MONKLVL", 5);
+		assertEquals(0, jep.getValue(), 0.1);
+
+		assertNull(jep.parseCachedExpression("if(MONKLVL<=4,"));
+		assertTrue(jep.hasError());
+		assertNull(jep.parseCachedExpression("if(MONKLVL<=4,"));
+		assertTrue(jep.hasError());
+	}
+
 	public void testIf10()
 	{
 		final PJEP jep = new PJEP();
@@ -466,6 +466,62 @@ public class WeightedCollectionTest
 		assertNull(o);
 	}
 
+	@Test
+	public void testGetRandomValueAfterChange() {
+		wc.add(I1, 2);
+		wc.add(I2, 0);
+		wc.add(I3, 1);
+		assertEquals(3, wc.size());
+		// Sampling builds the running total, which must follow later changes
+		assertValues(I1, I1, I3);
+		wc.add(I1, 5);
+		assertEquals(8, wc.size());
+		assertValues(I1, I1, I1, I1, I1, I1, I1, I3);
+		wc.remove(I1);
+		assertEquals(1, wc.size());
+		assertValues(I3);
+		assertEquals(I3, wc.getRandomValue());
+		wc.add(I2, 4);
+		assertEquals(5, wc.size());
+		assertValues(I3, I2, I2, I2, I2);
+		Iterator<Integer> it = wc.unweightedIterator();
+		it.next();
+		it.remove();
+		assertEquals(4, wc.size());
+		assertValues(I2, I2, I2, I2);
+		assertEquals(I2, wc.getRandomValue());
+		wc.clear();
+		assertEquals(0, wc.size());
+	}
+
+	@Test
+	public void testZeroWeightNeverSelected() {
+		Integer i4 = 4;
+		wc.add(I2, 0);
+		wc.add(I1, 2);
+		wc.add(i4, 0);
+		wc.add(I3, 1);
+		wc.add(99, 0);
+		assertValues(I1, I1, I3);
+		try {
+			wc.getValueAt(3);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+			// OK
+		}
+	}
+
+	/**
+	 * Checks the element selected by every index into the total weight.
+	 */
+	private void assertValues(Integer... expected) {
+		assertEquals(expected.length, wc.size());
+		for (int i = 0; i < expected.length; i++)
+		{
+			assertEquals("Index " + i, expected[i], wc.getValueAt(i));
+		}
+	}
+
 	@Test
 	public void testGetWeight() {
 		assertTrue(wc.isEmpty());
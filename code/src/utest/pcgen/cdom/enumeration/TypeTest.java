@@ -18,8 +18,16 @@
  */
 package pcgen.cdom.enumeration;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -54,4 +62,80 @@ public class TypeTest
 
 	}
 
+	/**
+	 * Test a constant is found regardless of the case of its name.
+	 */
+	@Test
+	public void testCaseInsensitive()
+	{
+		Type type = Type.getConstant("TypeTest Mixed");
+		assertSame(type, Type.getConstant("TYPETEST MIXED"));
+		assertSame(type, Type.valueOf("typetest mixed"));
+		assertEquals("TypeTest Mixed", type.toString());
+		try
+		{
+			Type.valueOf("TypeTest Undefined");
+			fail("Undefined type should not be found");
+		}
+		catch (IllegalArgumentException e)
+		{
+			// OK
+		}
+	}
+
+	/**
+	 * Test constants created by several threads at once are only created 
+	 * once, with a distinct ordinal each.
+	 */
+	@Test
+	public void testConcurrentCreation() throws Exception
+	{
+		final int threads = 8;
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<List<Type>>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++)
+			{
+				final boolean upper = (t % 2) == 0;
+				results.add(executor.submit(new Callable<List<Type>>()
+				{
+					@Override
+					public List<Type> call() throws Exception
+					{
+						start.await();
+						List<Type> types = new ArrayList<>();
+						for (int i = 0; i < 500; i++)
+						{
+							String name = "Concurrent" + i;
+							types.add(Type.getConstant(upper ? name
+								.toUpperCase() : name));
+						}
+						return types;
+					}
+				}));
+			}
+			start.countDown();
+			List<Type> first = results.get(0).get();
+			for (Future<List<Type>> result : results)
+			{
+				List<Type> types = result.get();
+				for (int i = 0; i < types.size(); i++)
+				{
+					assertSame(first.get(i), types.get(i));
+				}
+			}
+			Set<Integer> ordinals = new HashSet<>();
+			for (Type type : first)
+			{
+				assertTrue("Duplicate ordinal " + type.getOrdinal(),
+					ordinals.add(type.getOrdinal()));
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.cdom.facet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import pcgen.cdom.base.CDOMList;
+import pcgen.cdom.enumeration.DataSetID;
+import pcgen.cdom.helper.AvailableSpell;
+import pcgen.cdom.list.ClassSpellList;
+import pcgen.cdom.list.DomainSpellList;
+import pcgen.core.spell.Spell;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * MasterAvailableSpellFacetTest checks that the indexed lookups of
+ * MasterAvailableSpellFacet find the same spells as a scan of every
+ * AvailableSpell in the data set.
+ */
+public class MasterAvailableSpellFacetTest
+{
+
+	private MasterAvailableSpellFacet facet;
+	private DataSetID dsID;
+	private List<CDOMList<Spell>> lists;
+	private List<Spell> spells;
+
+	@Before
+	public void setUp()
+	{
+		facet = new MasterAvailableSpellFacet();
+		dsID = DataSetID.getID();
+		ClassSpellList wizard = new ClassSpellList();
+		wizard.setName("Wizard");
+		ClassSpellList cleric = new ClassSpellList();
+		cleric.setName("Cleric");
+		DomainSpellList fire = new DomainSpellList();
+		fire.setName("Fire");
+		lists = Arrays.asList(wizard, cleric, fire);
+		spells = new ArrayList<>();
+		for (String name : new String[]{"Fireball", "Light", "Bless", "Wish"})
+		{
+			Spell spell = new Spell();
+			spell.setName(name);
+			spells.add(spell);
+		}
+		add(wizard, "Fireball", 3);
+		add(wizard, "Light", 0);
+		add(wizard, "Wish", 9);
+		add(cleric, "Light", 0);
+		add(cleric, "Bless", 1);
+		add(fire, "Fireball", 4);
+		add(fire, "Fireball", 3);
+	}
+
+	private AvailableSpell add(CDOMList<Spell> list, String name, int level)
+	{
+		AvailableSpell as = new AvailableSpell(list, getSpell(name), level);
+		facet.add(dsID, as);
+		return as;
+	}
+
+	private Spell getSpell(String name)
+	{
+		for (Spell spell : spells)
+		{
+			if (spell.getKeyName().equals(name))
+			{
+				return spell;
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	@Test
+	public void testLookups()
+	{
+		assertLookupsMatchScan();
+		assertEquals(2, facet.getMatchingSpellsInList(lists.get(2), dsID,
+			getSpell("Fireball")).size());
+		assertTrue(facet.getAllSpellsInList(new ClassSpellList(), dsID).isEmpty());
+	}
+
+	@Test
+	public void testKeyCase()
+	{
+		Spell other = new Spell();
+		other.setName("FIREBALL");
+		assertEquals(scanBySpell(lists.get(0), other),
+			facet.getMatchingSpellsInList(lists.get(0), dsID, other));
+		assertEquals(1,
+			facet.getMatchingSpellsInList(lists.get(0), dsID, other).size());
+	}
+
+	@Test
+	public void testAfterChange()
+	{
+		assertLookupsMatchScan();
+		AvailableSpell bless = facet.getMatchingSpellsInList(lists.get(1), dsID,
+			getSpell("Bless")).get(0);
+		facet.remove(dsID, bless);
+		assertLookupsMatchScan();
+		assertTrue(facet.getMatchingSpellsInList(lists.get(1), dsID,
+			getSpell("Bless")).isEmpty());
+
+		facet.removeAll(dsID,
+			facet.getSpellsInListAtLevel(lists.get(2), dsID, 3));
+		assertLookupsMatchScan();
+		assertEquals(1, facet.getAllSpellsInList(lists.get(2), dsID).size());
+
+		add(lists.get(1), "Wish", 9);
+		assertLookupsMatchScan();
+		assertEquals(1, facet.getSpellsInListAtLevel(lists.get(1), dsID, 9).size());
+
+		facet.removeAll(dsID);
+		assertLookupsMatchScan();
+		assertTrue(facet.getAllSpellsInList(lists.get(0), dsID).isEmpty());
+	}
+
+	private void assertLookupsMatchScan()
+	{
+		for (CDOMList<Spell> list : lists)
+		{
+			assertEquals(scanByList(list), facet.getAllSpellsInList(list, dsID));
+			for (Spell spell : spells)
+			{
+				assertEquals(scanBySpell(list, spell),
+					facet.getMatchingSpellsInList(list, dsID, spell));
+			}
+			for (int level = 0; level <= 9; level++)
+			{
+				assertEquals(scanByLevel(list, level),
+					facet.getSpellsInListAtLevel(list, dsID, level));
+			}
+		}
+	}
+
+	private List<AvailableSpell> scanByList(CDOMList<Spell> list)
+	{
+		List<AvailableSpell> found = new ArrayList<>();
+		for (AvailableSpell as : facet.getSet(dsID))
+		{
+			if (as.getSpelllist().equals(list))
+			{
+				found.add(as);
+			}
+		}
+		return found;
+	}
+
+	private List<AvailableSpell> scanBySpell(CDOMList<Spell> list, Spell spell)
+	{
+		List<AvailableSpell> found = new ArrayList<>();
+		for (AvailableSpell as : facet.getSet(dsID))
+		{
+			if (as.getSpelllist().equals(list) && as.getSpell().equals(spell))
+			{
+				found.add(as);
+			}
+		}
+		return found;
+	}
+
+	private List<AvailableSpell> scanByLevel(CDOMList<Spell> list, int level)
+	{
+		List<AvailableSpell> found = new ArrayList<>();
+		for (AvailableSpell as : facet.getSet(dsID))
+		{
+			if (as.getSpelllist().equals(list) && as.getLevel() == level)
+			{
+				found.add(as);
+			}
+		}
+		return found;
+	}
+}
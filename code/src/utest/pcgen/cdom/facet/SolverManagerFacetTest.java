@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.cdom.facet;
+
+import pcgen.base.calculation.PCGenModifier;
+import pcgen.base.formula.base.VariableID;
+import pcgen.base.solver.AggressiveSolverManager;
+import pcgen.base.solver.SolverFactory;
+import pcgen.cdom.content.VarModifier;
+import pcgen.cdom.enumeration.CharID;
+import pcgen.cdom.formula.MonitorableVariableStore;
+import pcgen.cdom.formula.VariableChannel;
+import pcgen.output.channel.ChannelUtilities;
+import plugin.function.testsupport.AbstractFormulaTestCase;
+import plugin.modifier.number.AddModifierFactory;
+
+/**
+ * SolverManagerFacetTest checks that modifiers are held while solving is
+ * deferred, and that the held modifiers are applied before a result is read.
+ */
+public class SolverManagerFacetTest extends AbstractFormulaTestCase
+{
+
+	private static final String CHANNEL_NAME = "LIMBS";
+
+	private ScopeFacet scopeFacet = FacetLibrary.getFacet(ScopeFacet.class);
+	private VariableStoreFacet variableStoreFacet =
+			FacetLibrary.getFacet(VariableStoreFacet.class);
+	private SolverManagerFacet solverManagerFacet =
+			FacetLibrary.getFacet(SolverManagerFacet.class);
+	private SolverFactoryFacet solverFactoryFacet =
+			FacetLibrary.getFacet(SolverFactoryFacet.class);
+	private VariableLibraryFacet variableLibraryFacet =
+			FacetLibrary.getFacet(VariableLibraryFacet.class);
+	private CharID id;
+	private VariableID<Number> varID;
+
+	@Override
+	protected void setUp() throws Exception
+	{
+		super.setUp();
+		FacetLibrary.getFacet(FormulaSetupFacet.class).initialize(context);
+		solverFactoryFacet.initialize(context);
+		variableLibraryFacet.initialize(context);
+		id = CharID.getID(context.getDataSetID());
+		scopeFacet.set(id, getInstanceFactory());
+		variableStoreFacet.set(id,
+			(MonitorableVariableStore) getVariableStore());
+		SolverFactory solverFactory = solverFactoryFacet.get(id.getDatasetID());
+		solverManagerFacet.set(id, new AggressiveSolverManager(
+			getFormulaManager(), solverFactory, getVariableStore()));
+		String varName = ChannelUtilities.createVarName(CHANNEL_NAME);
+		getVariableLibrary().assertLegalVariableID(varName, getGlobalScope(),
+			numberManager);
+		varID = (VariableID<Number>) variableLibraryFacet.getVariableID(
+			id.getDatasetID(), scopeFacet.getGlobalScope(id), varName);
+	}
+
+	@Override
+	protected void tearDown() throws Exception
+	{
+		solverManagerFacet.resume(id);
+		super.tearDown();
+	}
+
+	private VarModifier<Number> getAdd(String value)
+	{
+		PCGenModifier<Number> modifier = new AddModifierFactory()
+			.getFixedModifier(100, numberManager, value);
+		return new VarModifier<>(ChannelUtilities.createVarName(CHANNEL_NAME),
+			getGlobalScope(), modifier);
+	}
+
+	private void add(VarModifier<Number> vm, Object source)
+	{
+		solverManagerFacet.addModifier(id, vm, ScopeFacet.GLOBAL_FACT, source);
+	}
+
+	private void remove(VarModifier<Number> vm, Object source)
+	{
+		solverManagerFacet.removeModifier(id, vm, ScopeFacet.GLOBAL_FACT,
+			source);
+	}
+
+	/**
+	 * Verify modifiers are applied at once when solving is not deferred.
+	 */
+	public void testImmediate()
+	{
+		add(getAdd("2"), this);
+		assertEquals(2, getVariableStore().get(varID).intValue());
+	}
+
+	/**
+	 * Verify modifiers are held while solving is deferred, and applied when
+	 * the outermost deferral is resumed.
+	 */
+	public void testResume()
+	{
+		solverManagerFacet.defer(id);
+		solverManagerFacet.defer(id);
+		add(getAdd("2"), this);
+		add(getAdd("3"), this);
+		assertNull(getVariableStore().get(varID));
+		solverManagerFacet.resume(id);
+		assertNull(getVariableStore().get(varID));
+		solverManagerFacet.resume(id);
+		assertEquals(5, getVariableStore().get(varID).intValue());
+	}
+
+	/**
+	 * Verify a modifier added and then removed while solving is deferred is
+	 * never applied, while a removal of a modifier added earlier is.
+	 */
+	public void testCancelled()
+	{
+		VarModifier<Number> kept = getAdd("2");
+		add(kept, this);
+		solverManagerFacet.defer(id);
+		VarModifier<Number> cancelled = getAdd("4");
+		add(cancelled, this);
+		remove(cancelled, this);
+		remove(kept, this);
+		add(getAdd("1"), this);
+		assertEquals(2, getVariableStore().get(varID).intValue());
+		solverManagerFacet.resume(id);
+		assertEquals(1, getVariableStore().get(varID).intValue());
+	}
+
+	/**
+	 * Verify reading a value through VariableStoreFacet applies the held
+	 * modifiers, without ending the deferral.
+	 */
+	public void testFlushOnRead()
+	{
+		solverManagerFacet.defer(id);
+		add(getAdd("2"), this);
+		assertEquals(2, variableStoreFacet.getValue(id, varID).intValue());
+		add(getAdd("3"), this);
+		assertEquals(2, getVariableStore().get(varID).intValue());
+		assertEquals(5, variableStoreFacet.getValue(id, varID).intValue());
+	}
+
+	/**
+	 * Verify reading a value through a VariableChannel applies the held
+	 * modifiers.
+	 */
+	public void testFlushOnChannelRead()
+	{
+		VariableChannel<?> channel =
+				ChannelUtilities.getGlobalChannel(id, CHANNEL_NAME);
+		solverManagerFacet.defer(id);
+		add(getAdd("2"), this);
+		assertNull(getVariableStore().get(varID));
+		assertEquals(2, ((Number) channel.get()).intValue());
+		channel.disconnect();
+	}
+}
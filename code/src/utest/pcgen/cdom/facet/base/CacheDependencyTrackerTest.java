@@ -0,0 +1,125 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.cdom.facet.base;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import pcgen.cdom.base.PCGenIdentifier;
+import pcgen.cdom.facet.base.CacheDependencyTracker.Dependencies;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * CacheDependencyTrackerTest checks that cached calculations are only expired
+ * by changes to the inputs they read.
+ */
+public class CacheDependencyTrackerTest
+{
+
+	private PCGenIdentifier id;
+	private PCGenIdentifier otherId;
+	private CacheDependencyTracker tracker;
+
+	@Before
+	public void setUp()
+	{
+		id = new PCGenIdentifier()
+		{
+		};
+		otherId = new PCGenIdentifier()
+		{
+		};
+		tracker = CacheDependencyTracker.register(id);
+	}
+
+	/**
+	 * Verify a calculation is only expired by a change to an input it read.
+	 */
+	@Test
+	public void testTrackedInputs()
+	{
+		Dependencies deps = tracker.begin(id);
+		CacheDependencyTracker.inputRead(id, "COMBAT.AC");
+		CacheDependencyTracker.facetRead(id, String.class, true);
+		tracker.end(deps);
+		assertTrue(tracker.isCurrent(deps));
+		tracker.inputChanged("COMBAT.BAB");
+		CacheDependencyTracker.facetChanged(id, Integer.class);
+		assertTrue(tracker.isCurrent(deps));
+		CacheDependencyTracker.facetChanged(id, String.class);
+		assertFalse(tracker.isCurrent(deps));
+	}
+
+	/**
+	 * Verify the inputs of a nested or reused calculation are also inputs of
+	 * the enclosing calculation.
+	 */
+	@Test
+	public void testNested()
+	{
+		Dependencies outer = tracker.begin(id);
+		Dependencies inner = tracker.begin(id);
+		CacheDependencyTracker.inputRead(id, "STAT.STR");
+		tracker.end(inner);
+		tracker.end(outer);
+		Dependencies reusing = tracker.begin(id);
+		CacheDependencyTracker.reuse(inner);
+		tracker.end(reusing);
+		tracker.inputChanged("STAT.STR");
+		assertFalse(tracker.isCurrent(outer));
+		assertFalse(tracker.isCurrent(reusing));
+	}
+
+	/**
+	 * Verify a calculation with an untracked read is expired by any change.
+	 */
+	@Test
+	public void testUntracked()
+	{
+		Dependencies facetDeps = tracker.begin(id);
+		CacheDependencyTracker.facetRead(id, String.class, false);
+		tracker.end(facetDeps);
+		Dependencies otherDeps = tracker.begin(id);
+		CacheDependencyTracker.inputRead(otherId, "COMBAT.AC");
+		tracker.end(otherDeps);
+		assertTrue(tracker.isCurrent(facetDeps));
+		assertTrue(tracker.isCurrent(otherDeps));
+		tracker.inputChanged("COMBAT.BAB");
+		assertFalse(tracker.isCurrent(facetDeps));
+		assertFalse(tracker.isCurrent(otherDeps));
+	}
+
+	/**
+	 * Verify a change which was not reported before the resource is marked
+	 * dirty expires every calculation.
+	 */
+	@Test
+	public void testMarkDirty()
+	{
+		Dependencies deps = tracker.begin(id);
+		CacheDependencyTracker.inputRead(id, "COMBAT.AC");
+		tracker.end(deps);
+		tracker.inputChanged("COMBAT.BAB");
+		tracker.markDirty();
+		assertTrue(tracker.isCurrent(deps));
+		tracker.markDirty();
+		assertFalse(tracker.isCurrent(deps));
+	}
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.cdom.facet.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import pcgen.cdom.base.PCGenIdentifier;
+
+import org.junit.Test;
+
+/**
+ * FacetCacheTest checks that facet contents are held separately for each
+ * resource and each facet class.
+ */
+public class FacetCacheTest
+{
+
+	private static PCGenIdentifier createID()
+	{
+		return new PCGenIdentifier()
+		{
+		};
+	}
+
+	/**
+	 * Verify contents are held per resource and per facet class.
+	 */
+	@Test
+	public void testPutGetRemove()
+	{
+		PCGenIdentifier id1 = createID();
+		PCGenIdentifier id2 = createID();
+		int stringOrdinal = FacetCache.getOrdinal(String.class);
+		int integerOrdinal = FacetCache.getOrdinal(Integer.class);
+		assertEquals(stringOrdinal, FacetCache.getOrdinal(String.class));
+		assertTrue(stringOrdinal != integerOrdinal);
+
+		assertNull(FacetCache.get(id1));
+		FacetCache cache1 = FacetCache.getOrCreate(id1);
+		assertSame(cache1, FacetCache.getOrCreate(id1));
+		assertNull(cache1.put(stringOrdinal, "A"));
+		assertEquals("A", cache1.put(stringOrdinal, "B"));
+		assertEquals("B", FacetCache.get(id1).get(stringOrdinal));
+		assertNull(cache1.get(integerOrdinal));
+		assertNull(FacetCache.get(id2));
+
+		Map<Class<?>, Object> view = cache1.asMap();
+		assertEquals(1, view.size());
+		assertEquals("B", view.get(String.class));
+		cache1.put(integerOrdinal, 1);
+		assertEquals(2, view.size());
+		assertEquals("B", cache1.remove(stringOrdinal));
+		assertEquals(1, view.size());
+		assertNull(view.get(String.class));
+	}
+
+	/**
+	 * Verify facet classes registered after a cache was created can be stored
+	 * in that cache.
+	 */
+	@Test
+	public void testGrowth()
+	{
+		FacetCache cache = FacetCache.getOrCreate(createID());
+		int ordinal = FacetCache.getOrdinal(FacetCacheTest.class);
+		for (int i = 0; i < 100; i++)
+		{
+			FacetCache.getOrdinal(new Object()
+			{
+			}.getClass());
+		}
+		int lastOrdinal = FacetCache.getOrdinal(Runnable.class);
+		cache.put(lastOrdinal, "Last");
+		cache.put(ordinal, "First");
+		assertEquals("Last", cache.get(lastOrdinal));
+		assertEquals("First", cache.get(ordinal));
+	}
+
+	/**
+	 * Verify the cache of each resource is still found after many resources
+	 * have been added.
+	 */
+	@Test
+	public void testManyResources()
+	{
+		List<PCGenIdentifier> ids = new ArrayList<>();
+		List<FacetCache> caches = new ArrayList<>();
+		for (int i = 0; i < 5000; i++)
+		{
+			PCGenIdentifier id = createID();
+			ids.add(id);
+			caches.add(FacetCache.getOrCreate(id));
+		}
+		for (int i = 0; i < ids.size(); i++)
+		{
+			assertSame(caches.get(i), FacetCache.get(ids.get(i)));
+			assertSame(caches.get(i), FacetCache.getOrCreate(ids.get(i)));
+		}
+	}
+
+	/**
+	 * Verify many resources can be updated from different threads at once.
+	 */
+	@Test
+	public void testConcurrentResources() throws Exception
+	{
+		final int ordinal = FacetCache.getOrdinal(Long.class);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try
+		{
+			List<Future<Boolean>> results = new ArrayList<>();
+			for (int t = 0; t < 8; t++)
+			{
+				results.add(executor.submit(new Callable<Boolean>()
+				{
+					@Override
+					public Boolean call()
+					{
+						for (int i = 0; i < 1000; i++)
+						{
+							PCGenIdentifier id = createID();
+							FacetCache.getOrCreate(id).put(ordinal, (long) i);
+							if (!Long.valueOf(i).equals(
+								FacetCache.get(id).get(ordinal)))
+							{
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results)
+			{
+				assertTrue(result.get());
+			}
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Verify peeking at the cache of a resource does not create the cache.
+	 */
+	@Test
+	public void testPeekDoesNotCreate()
+	{
+		PCGenIdentifier id = createID();
+		assertNull(AbstractStorageFacet.peekAtCache(id));
+		assertNull(FacetCache.get(id));
+		Map<Class<?>, Object> view = AbstractStorageFacet.createCache(id);
+		assertTrue(view.isEmpty());
+		FacetCache.get(id).put(FacetCache.getOrdinal(String.class), "A");
+		assertEquals("A", AbstractStorageFacet.peekAtCache(id).get(String.class));
+		assertEquals("A", view.get(String.class));
+	}
+}
@@ -28,6 +28,8 @@ import org.junit.Test;
 import pcgen.cdom.enumeration.CharID;
 import pcgen.cdom.enumeration.DataSetID;
 import pcgen.cdom.enumeration.IntegerKey;
+import pcgen.cdom.facet.base.CacheDependencyTracker;
+import pcgen.cdom.facet.base.CacheDependencyTracker.Dependencies;
 import pcgen.cdom.facet.event.DataFacetChangeEvent;
 import pcgen.cdom.facet.event.DataFacetChangeListener;
 import pcgen.cdom.facet.model.ClassFacet;
@@ -1062,4 +1064,29 @@ public class ClassFacetTest extends TestCase
 //		assertEventCount(2, 1, 0);
 	}
 
+	@Test
+	public void testLevelChangeExpiresTrackedValues()
+		throws CloneNotSupportedException
+	{
+		CacheDependencyTracker tracker = CacheDependencyTracker.register(id);
+		PCClass cl = new PCClass();
+		facet.addClass(id, cl);
+		facet.setLevel(id, cl, 1);
+		Dependencies deps = tracker.begin(id);
+		assertEquals(1, facet.getLevel(id, cl));
+		tracker.end(deps);
+		assertTrue(tracker.isCurrent(deps));
+		facet.setLevel(id, cl, 2);
+		assertFalse(tracker.isCurrent(deps));
+
+		deps = tracker.begin(id);
+		facet.getClassLevel(id, cl, 1);
+		tracker.end(deps);
+		assertTrue(tracker.isCurrent(deps));
+		PCClassLevel pcl = new PCClassLevel();
+		pcl.put(IntegerKey.LEVEL, 1);
+		facet.setClassLevel(id, cl, pcl);
+		assertFalse(tracker.isCurrent(deps));
+	}
+
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * BonusTableTest checks the totalling and matching rules of BonusTable.
+ */
+public class BonusTableTest
+{
+
+	private BonusTable table;
+
+	@Before
+	public void setUp()
+	{
+		table = new BonusTable();
+		table.put("COMBAT.AC", 1);
+		table.put("COMBAT.AC:LUCK", 2);
+		table.put("COMBAT.AC:ARMOR", 4);
+		table.put("COMBAT.AC:ARMOR.REPLACE", 6);
+		table.put("COMBAT.AC:DODGE.STACK", 3);
+		table.put("COMBAT.ACCHECK", -2);
+	}
+
+	/**
+	 * Verify totals include every type of the bonus, but not other bonuses
+	 * which share the same prefix.
+	 */
+	@Test
+	public void testSum()
+	{
+		assertEquals(1 + 2 + 6 + 3, table.sum("COMBAT.AC"), 0.0001);
+		assertEquals(2, table.sum("COMBAT.AC:LUCK"), 0.0001);
+		assertEquals(-2, table.sum("COMBAT.ACCHECK"), 0.0001);
+		assertEquals(0, table.sum("COMBAT.AC:LUCKY"), 0.0001);
+		assertEquals(0, table.sum("COMBAT.BAB"), 0.0001);
+	}
+
+	/**
+	 * Verify the .REPLACE value only replaces a lower value, and the .STACK
+	 * value is always added.
+	 */
+	@Test
+	public void testReplaceAndStack()
+	{
+		table.put("COMBAT.AC:ARMOR", 8);
+		assertEquals(8, table.sum("COMBAT.AC:ARMOR"), 0.0001);
+		table.put("COMBAT.AC:DODGE", 1);
+		assertEquals(4, table.sum("COMBAT.AC:DODGE"), 0.0001);
+		table.put("COMBAT.AC:DEFLECTION.REPLACE", -1);
+		assertEquals(-1, table.sum("COMBAT.AC:DEFLECTION"), 0.0001);
+	}
+
+	/**
+	 * Verify individual values are held against their full key.
+	 */
+	@Test
+	public void testGet()
+	{
+		assertEquals(4, table.get("COMBAT.AC:ARMOR", 0), 0.0001);
+		assertEquals(6, table.get("COMBAT.AC:ARMOR.REPLACE", 0), 0.0001);
+		assertEquals(-7, table.get("COMBAT.AC:ARMOR.STACK", -7), 0.0001);
+		assertEquals(-7, table.get("COMBAT.AC:NATURAL", -7), 0.0001);
+	}
+
+	/**
+	 * Verify the values can be retrieved by prefix and the type of a bonus
+	 * identified.
+	 */
+	@Test
+	public void testGetValuesAndType()
+	{
+		assertEquals(Arrays.asList("COMBAT.AC:ARMOR", "COMBAT.AC:ARMOR.REPLACE",
+			"COMBAT.AC:DODGE.STACK", "COMBAT.AC:LUCK"), new ArrayList<>(table
+			.getValues("COMBAT.AC:").keySet()));
+		assertEquals(6, table.getValues("").size());
+		assertEquals("", table.getType("COMBAT.ACCHECK"));
+		BonusTable typed = new BonusTable();
+		typed.put("CASTERLEVEL.WIZARD:DODGE.STACK", 1);
+		assertEquals("DODGE.STACK", typed.getType("CASTERLEVEL.WIZARD"));
+		assertEquals("", typed.getType("CASTERLEVEL.CLERIC"));
+	}
+
+	/**
+	 * Verify tables are equal only when they hold the same values.
+	 */
+	@Test
+	public void testEquals()
+	{
+		BonusTable copy = new BonusTable();
+		copy.putAll(table);
+		assertTrue(table.equals(copy));
+		copy.put("COMBAT.AC:LUCK.STACK", 1);
+		assertFalse(table.equals(copy));
+	}
+}
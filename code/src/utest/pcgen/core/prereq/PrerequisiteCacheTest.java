@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.core.prereq;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import pcgen.cdom.base.PCGenIdentifier;
+import pcgen.cdom.facet.base.CacheDependencyTracker;
+import pcgen.cdom.facet.base.CacheDependencyTracker.Dependencies;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * PrerequisiteCacheTest checks when cached prerequisite results are reused and
+ * that hits and misses are counted.
+ */
+public class PrerequisiteCacheTest
+{
+
+	private PCGenIdentifier id;
+	private Prerequisite prereq;
+	private Object caller;
+
+	@Before
+	public void setUp()
+	{
+		id = new PCGenIdentifier()
+		{
+		};
+		prereq = new Prerequisite();
+		caller = new Object();
+	}
+
+	/**
+	 * Verify results are reused until the serial of the character changes
+	 * when inputs are not tracked.
+	 */
+	@Test
+	public void testSerial()
+	{
+		PrerequisiteCache cache = new PrerequisiteCache(id, null);
+		assertNull(cache.get(prereq, caller, 1));
+		store(cache, prereq, caller, 1, true);
+		assertEquals(Boolean.TRUE, cache.get(prereq, caller, 1));
+		assertNull(cache.get(prereq, new Object(), 1));
+		assertNull(cache.get(new Prerequisite(), caller, 1));
+		assertNull(cache.get(prereq, caller, 2));
+		assertEquals(1, cache.getHits());
+		assertEquals(4, cache.getMisses());
+	}
+
+	/**
+	 * Verify results are expired when an input read by the test changes, as
+	 * well as when the serial changes, when inputs are tracked.
+	 */
+	@Test
+	public void testTracked()
+	{
+		CacheDependencyTracker tracker = CacheDependencyTracker.register(id);
+		PrerequisiteCache cache = new PrerequisiteCache(id, tracker);
+		Dependencies dependencies = cache.begin();
+		CacheDependencyTracker.inputRead(id, "FEAT");
+		cache.end(dependencies);
+		cache.put(prereq, caller, 2, dependencies, false);
+
+		assertEquals(Boolean.FALSE, cache.get(prereq, caller, 2));
+		tracker.inputChanged("SKILL");
+		assertEquals(Boolean.FALSE, cache.get(prereq, caller, 2));
+		tracker.inputChanged("FEAT");
+		assertNull(cache.get(prereq, caller, 2));
+
+		store(cache, prereq, caller, 2, true);
+		assertEquals(Boolean.TRUE, cache.get(prereq, caller, 2));
+		assertNull(cache.get(prereq, caller, 3));
+		assertEquals(3, cache.getHits());
+		assertEquals(2, cache.getMisses());
+	}
+
+	/**
+	 * Verify results which can no longer be current are discarded rather than
+	 * held, when inputs are tracked.
+	 */
+	@Test
+	public void testTrackedDiscarded()
+	{
+		CacheDependencyTracker tracker = CacheDependencyTracker.register(id);
+		PrerequisiteCache cache = new PrerequisiteCache(id, tracker);
+		for (int i = 0; i < 10; i++)
+		{
+			store(cache, new Prerequisite(), caller, 1, true);
+		}
+		Dependencies dependencies = cache.begin();
+		CacheDependencyTracker.inputRead(id, "FEAT");
+		cache.end(dependencies);
+		cache.put(prereq, caller, 1, dependencies, false);
+		assertEquals(11, cache.size());
+
+		tracker.inputChanged("FEAT");
+		assertNull(cache.get(prereq, caller, 1));
+		assertEquals(10, cache.size());
+		assertNull(cache.get(prereq, caller, 2));
+		assertEquals(0, cache.size());
+	}
+
+	/**
+	 * Verify prerequisites which depend on the settings, or which contain
+	 * such a prerequisite, are not cached.
+	 */
+	@Test
+	public void testCachable()
+	{
+		prereq.setKind("class");
+		assertTrue(PrerequisiteCache.isCachable(prereq));
+		Prerequisite rule = new Prerequisite();
+		rule.setKind("rule");
+		assertFalse(PrerequisiteCache.isCachable(rule));
+		Prerequisite mult = new Prerequisite();
+		mult.setKind(null);
+		mult.addPrerequisite(prereq);
+		assertTrue(PrerequisiteCache.isCachable(mult));
+		mult.addPrerequisite(rule);
+		assertFalse(PrerequisiteCache.isCachable(mult));
+	}
+
+	private static void store(PrerequisiteCache cache, Prerequisite prereq,
+		Object caller, int serial, boolean passes)
+	{
+		Dependencies dependencies = cache.begin();
+		cache.end(dependencies);
+		cache.put(prereq, caller, serial, dependencies, passes);
+	}
+}
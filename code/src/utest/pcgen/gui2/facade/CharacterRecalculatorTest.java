@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.facade;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * CharacterRecalculatorTest checks that requests to recalculate a character
+ * made together are served by a single recalculation.
+ */
+public class CharacterRecalculatorTest
+{
+
+	private AtomicInteger recalculations;
+	private AtomicInteger refreshes;
+	private Runnable refresh;
+	private CharacterRecalculator recalculator;
+
+	@Before
+	public void setUp()
+	{
+		recalculations = new AtomicInteger();
+		refreshes = new AtomicInteger();
+		refresh = refreshes::incrementAndGet;
+		recalculator = new CharacterRecalculator(recalculations::incrementAndGet);
+	}
+
+	/**
+	 * Verify requests made together on the event dispatch thread are served
+	 * by one recalculation, once they stop arriving.
+	 */
+	@Test
+	public void testCoalescing() throws Exception
+	{
+		recalculator.setSynchronous(false);
+		SwingUtilities.invokeAndWait(() -> {
+			recalculator.recalculate(refresh);
+			recalculator.recalculate(null);
+			recalculator.recalculate(refresh);
+			assertEquals(0, recalculations.get());
+		});
+		Thread.sleep(CharacterRecalculator.DELAY * 4);
+		// Let the timer's event be processed
+		SwingUtilities.invokeAndWait(() -> {
+		});
+		assertEquals(1, recalculations.get());
+		assertEquals(1, refreshes.get());
+	}
+
+	/**
+	 * Verify a waiting request is served by flush, and not again later.
+	 */
+	@Test
+	public void testFlush() throws Exception
+	{
+		recalculator.setSynchronous(false);
+		SwingUtilities.invokeAndWait(() -> {
+			recalculator.recalculate(refresh);
+			recalculator.flush();
+			assertEquals(1, recalculations.get());
+			recalculator.flush();
+		});
+		Thread.sleep(CharacterRecalculator.DELAY * 4);
+		SwingUtilities.invokeAndWait(() -> {
+		});
+		assertEquals(1, recalculations.get());
+		assertEquals(1, refreshes.get());
+	}
+
+	/**
+	 * Verify requests made away from the event dispatch thread are served at
+	 * once.
+	 */
+	@Test
+	public void testOtherThread()
+	{
+		recalculator.setSynchronous(false);
+		recalculator.recalculate(refresh);
+		recalculator.recalculate(refresh);
+		assertEquals(2, recalculations.get());
+		assertEquals(2, refreshes.get());
+	}
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.gui2.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * SearchIndexTest checks that a SearchIndex matches the same elements as a
+ * plain search of their text as the query grows, shrinks and changes.
+ */
+public class SearchIndexTest
+{
+
+	private List<String> elements;
+	private int reads;
+	private SearchIndex index;
+
+	@Before
+	public void setUp()
+	{
+		elements = new ArrayList<>();
+		elements.add("Longsword");
+		elements.add("Short Sword");
+		elements.add("Greatsword");
+		elements.add("Longbow");
+		elements.add("Dagger");
+		elements.add("Sw");
+		reads = 0;
+		index = new SearchIndex(e -> {
+			reads++;
+			return e.toString().toLowerCase(Locale.ENGLISH);
+		});
+	}
+
+	/**
+	 * Verify the matches for each query as it is typed, deleted and replaced.
+	 */
+	@Test
+	public void testMatches()
+	{
+		String[] queries =
+				{"s", "sw", "swo", "swor", "sword", "swor", "long", "longb",
+					"", "ag", "dagger!", "er"};
+		for (String query : queries)
+		{
+			index.setQuery(query);
+			for (String element : elements)
+			{
+				assertEquals(query + " in " + element,
+					element.toLowerCase(Locale.ENGLISH).contains(query),
+					index.matches(element));
+			}
+		}
+	}
+
+	/**
+	 * Verify the text of an element is only read once while searching, and
+	 * read again once the search is cleared.
+	 */
+	@Test
+	public void testTextRead()
+	{
+		index.setQuery("s");
+		elements.forEach(index::matches);
+		index.setQuery("sw");
+		elements.forEach(index::matches);
+		index.setQuery("swo");
+		elements.forEach(index::matches);
+		assertEquals(elements.size(), reads);
+
+		index.setQuery("");
+		assertTrue(index.matches("Dagger"));
+		index.setQuery("d");
+		assertTrue(index.matches("Dagger"));
+		assertEquals(elements.size() + 1, reads);
+	}
+
+	/**
+	 * Verify elements first seen after the trigram candidates were found are
+	 * still matched.
+	 */
+	@Test
+	public void testLateElement()
+	{
+		index.setQuery("swo");
+		assertTrue(index.matches("Longsword"));
+		assertFalse(index.matches("Dagger"));
+		assertTrue(index.matches("Bastard Sword"));
+		index.setQuery("swor");
+		assertTrue(index.matches("Bastard Sword"));
+	}
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.output.publish;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import pcgen.cdom.enumeration.CharID;
+import pcgen.output.base.ModelFactory;
+
+import freemarker.template.Configuration;
+import freemarker.template.DefaultObjectWrapperBuilder;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.TemplateCollectionModel;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelIterator;
+import freemarker.template.TemplateScalarModel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * LazyDataModelTest checks that a LazyDataModel only generates the models
+ * which are read, generates each once, and records the keys read.
+ */
+public class LazyDataModelTest
+{
+
+	private CountingFactory race;
+	private CountingFactory skills;
+	private CountingFactory allEquipment;
+	private LazyDataModel model;
+
+	@Before
+	public void setUp()
+	{
+		race = new CountingFactory("Elf");
+		skills = new CountingFactory("Climb");
+		allEquipment = new CountingFactory("Dagger");
+		Map<String, Object> equipment = new HashMap<>();
+		equipment.put("all", allEquipment);
+		equipment.put("equipped", new CountingFactory("Rope"));
+		Map<String, Object> entries = new HashMap<>();
+		entries.put("race", race);
+		entries.put("skills", skills);
+		entries.put("equipment", equipment);
+		ObjectWrapper wrapper =
+				new DefaultObjectWrapperBuilder(Configuration.VERSION_2_3_20)
+					.build();
+		model = new LazyDataModel(null, wrapper, entries);
+	}
+
+	/**
+	 * Verify a model is only generated when first read.
+	 */
+	@Test
+	public void testGeneratedOnRead() throws Exception
+	{
+		assertEquals(0, race.count);
+		TemplateModel first = model.get("race");
+		assertSame(first, model.get("race"));
+		assertEquals("Elf", ((TemplateScalarModel) first).getAsString());
+		assertEquals(1, race.count);
+		assertEquals(0, skills.count);
+		assertNull(model.get("unknown"));
+		assertEquals(3, model.size());
+	}
+
+	/**
+	 * Verify nested models are generated on read and the keys read are
+	 * recorded with their full names.
+	 */
+	@Test
+	public void testNested() throws Exception
+	{
+		TemplateHashModel equipment = (TemplateHashModel) model.get("equipment");
+		assertEquals(0, allEquipment.count);
+		equipment.get("all");
+		assertEquals(1, allEquipment.count);
+		assertEquals("[equipment, equipment.all]",
+			model.getAccessedKeys().toString());
+		assertEquals(0, race.count);
+	}
+
+	/**
+	 * Verify the keys are wrapped by the given ObjectWrapper, and the values
+	 * are generated when they are listed.
+	 */
+	@Test
+	public void testKeysAndValues() throws Exception
+	{
+		Set<String> keys = new TreeSet<>();
+		for (TemplateModelIterator it = model.keys().iterator(); it.hasNext();)
+		{
+			keys.add(((TemplateScalarModel) it.next()).getAsString());
+		}
+		assertEquals("[equipment, race, skills]", keys.toString());
+		assertEquals(0, race.count);
+
+		TemplateCollectionModel values = model.values();
+		assertEquals(1, race.count);
+		assertEquals(1, skills.count);
+		int count = 0;
+		for (TemplateModelIterator it = values.iterator(); it.hasNext(); it.next())
+		{
+			count++;
+		}
+		assertEquals(3, count);
+		assertSame(model.get("race"), model.get("race"));
+		assertEquals(1, race.count);
+	}
+
+	private static final class CountingFactory implements ModelFactory
+	{
+		private final String value;
+		private int count;
+
+		private CountingFactory(String value)
+		{
+			this.value = value;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T extends TemplateModel & Iterable<?>> T generate(CharID id)
+		{
+			count++;
+			return (T) new ValueModel(value);
+		}
+	}
+
+	private static final class ValueModel
+			implements TemplateScalarModel, Iterable<Object>
+	{
+		private final String value;
+
+		private ValueModel(String value)
+		{
+			this.value = value;
+		}
+
+		@Override
+		public String getAsString()
+		{
+			return value;
+		}
+
+		@Override
+		public Iterator<Object> iterator()
+		{
+			return Collections.emptyIterator();
+		}
+	}
+}
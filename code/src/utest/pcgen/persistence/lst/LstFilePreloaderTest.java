@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.persistence.lst;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * LstFilePreloaderTest checks that files read ahead by the LstFilePreloader
+ * are served to LstFileLoader unchanged and in any order.
+ */
+public class LstFilePreloaderTest
+{
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final List<URI> uris = new ArrayList<>();
+	private LstFilePreloader preloader;
+
+	@Before
+	public void setUp() throws IOException
+	{
+		for (int i = 0; i < 40; i++)
+		{
+			File file = folder.newFile("file" + i + ".lst");
+			Files.write(file.toPath(), ("Line " + i + "\tTYPE:Test\r\n")
+				.getBytes(StandardCharsets.UTF_8));
+			uris.add(file.toURI());
+		}
+		preloader = new LstFilePreloader(uris, 2);
+		LstFileLoader.setPreloader(preloader);
+	}
+
+	@After
+	public void tearDown()
+	{
+		LstFileLoader.setPreloader(null);
+		preloader.shutdown();
+	}
+
+	/**
+	 * Verify files requested in the preload order are read correctly.
+	 */
+	@Test
+	public void testInOrder() throws Exception
+	{
+		for (int i = 0; i < uris.size(); i++)
+		{
+			assertEquals("Line " + i + "\tTYPE:Test\r\n", LstFileLoader
+				.readFromURI(uris.get(i)).toString());
+		}
+	}
+
+	/**
+	 * Verify files requested out of order are still read correctly, and are
+	 * not served a second time by the preloader.
+	 */
+	@Test
+	public void testOutOfOrder() throws Exception
+	{
+		for (int i = uris.size() - 1; i >= 0; i--)
+		{
+			assertEquals("Line " + i + "\tTYPE:Test\r\n", LstFileLoader
+				.readFromURI(uris.get(i)).toString());
+		}
+		assertNull(preloader.take(uris.get(0)));
+		assertEquals("Line 0\tTYPE:Test\r\n", LstFileLoader.readFromURI(
+			uris.get(0)).toString());
+	}
+
+	/**
+	 * Verify files which are never requested do not stop the files after them
+	 * from being read ahead.
+	 */
+	@Test
+	public void testSkippedFiles() throws Exception
+	{
+		assertNull(preloader.take(uris.get(20)));
+		for (int i = 21; i < uris.size(); i++)
+		{
+			StringBuilder contents = preloader.take(uris.get(i));
+			assertNotNull("File " + i + " was not preloaded", contents);
+			assertEquals("Line " + i + "\tTYPE:Test\r\n", contents.toString());
+		}
+		assertNull(preloader.take(uris.get(0)));
+	}
+}
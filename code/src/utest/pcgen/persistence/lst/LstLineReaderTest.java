@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.persistence.lst;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * LstLineReaderTest checks that LstLineReader splits LST data into the same
+ * lines as the previous regular expression based processing.
+ */
+public class LstLineReaderTest
+{
+
+	/**
+	 * Verify each of the line terminators is recognised.
+	 */
+	@Test
+	public void testLineTerminators() throws IOException
+	{
+		assertEquals(Arrays.asList("A", "B", "C", "", "D"),
+			readAll("A\r\nB\rC\n\nD", false));
+		assertEquals(Arrays.asList("A", "B"), readAll("A\nB\n", false));
+		assertEquals(Arrays.asList(), readAll("", false));
+	}
+
+	/**
+	 * Verify a byte order mark at the start of the data is removed.
+	 */
+	@Test
+	public void testByteOrderMark() throws IOException
+	{
+		assertEquals(Arrays.asList("A", "\uFEFFB"),
+			readAll("\uFEFFA\n\uFEFFB", false));
+	}
+
+	/**
+	 * Verify continuation lines are joined only when requested, and match the
+	 * behaviour of replacing \r?\n\t with \t.
+	 */
+	@Test
+	public void testContinuations() throws IOException
+	{
+		String data = "A\tB:1\n\tC:2\r\n\tD:3\r\tE:4\nF";
+		assertEquals(Arrays.asList("A\tB:1", "\tC:2", "\tD:3", "\tE:4", "F"),
+			readAll(data, false));
+		assertEquals(Arrays.asList(data.replaceAll("\r?\n\t", "\t").split(
+			LstFileLoader.LINE_SEPARATOR_REGEXP)), readAll(data, true));
+	}
+
+	/**
+	 * Verify line numbers refer to the line on which a joined line started.
+	 */
+	@Test
+	public void testLineNumbers() throws IOException
+	{
+		LstLineReader reader =
+				new LstLineReader("A\n\tB\n\tC\nD\r\n\r\nE", true);
+		assertEquals("A\tB\tC", reader.readLine());
+		assertEquals(1, reader.getLineNumber());
+		assertEquals("D", reader.readLine());
+		assertEquals(4, reader.getLineNumber());
+		assertEquals("", reader.readLine());
+		assertEquals(5, reader.getLineNumber());
+		assertEquals("E", reader.readLine());
+		assertEquals(6, reader.getLineNumber());
+		assertNull(reader.readLine());
+	}
+
+	private static List<String> readAll(String data, boolean join)
+		throws IOException
+	{
+		List<String> lines = new ArrayList<>();
+		try (LstLineReader reader = new LstLineReader(data, join))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				lines.add(line);
+			}
+		}
+		return lines;
+	}
+}
@@ -27,6 +27,16 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import pcgen.pluginmgr.messages.FocusOrStateChangeOccurredMessage;
+
 import org.junit.Test;
 
 /**
@@ -173,6 +183,176 @@ public class MessageHandlerManagerTest
 			firstMr.lastMessageOrder > secondMr.lastMessageOrder);
 	}
 
+	/**
+	 * Check that an asynchronous handler is advised of the messages it 
+	 * subscribes to, on its own thread, without holding up the sender.
+	 */
+	@Test
+	public void testAsynchronousDelivery() throws InterruptedException
+	{
+		MessageHandlerManager cor = new MessageHandlerManager();
+		AsyncRecorder async = new AsyncRecorder(FocusOrStateChangeOccurredMessage.class);
+		MessageRecorder syncMr = new MessageRecorder();
+		cor.addMember(async);
+		cor.addMember(syncMr);
+
+		// The sender is not held up by the blocked handler
+		PCGenMessage first = new FocusOrStateChangeOccurredMessage(this, null);
+		cor.getPostbox().handleMessage(first);
+		cor.getPostbox().handleMessage(new PCGenMessage(this));
+		assertTrue("Asynchronous handler should have started",
+			async.started.await(10, TimeUnit.SECONDS));
+		assertEquals("Synchronous handler should not wait", 3, syncMr.messageCount);
+		assertEquals(3, cor.getStatistics(syncMr).getDelivered());
+
+		async.release.countDown();
+		cor.removeMember(async);
+		async.worker.join(10000);
+		assertEquals("Only the subscribed message expected",
+			Collections.singletonList(first), async.received);
+		assertTrue("Asynchronous handler should be advised on its own thread",
+			async.worker != Thread.currentThread());
+		assertNull("Statistics should be dropped for a removed handler",
+			cor.getStatistics(async));
+	}
+
+	/**
+	 * Check that an asynchronous handler is only advised of a message if it 
+	 * was not consumed by a handler ahead of it.
+	 */
+	@Test
+	public void testAsynchronousConsumption() throws InterruptedException
+	{
+		MessageHandlerManager cor = new MessageHandlerManager();
+		AsyncRecorder before = new AsyncRecorder(PCGenMessage.class);
+		AsyncRecorder after = new AsyncRecorder(PCGenMessage.class);
+		before.release.countDown();
+		after.release.countDown();
+		cor.addMember(before);
+		cor.addMember(new MessageConsumer());
+		cor.addMember(after);
+
+		PCGenMessage msg = new PCGenMessage(this);
+		cor.getPostbox().handleMessage(msg);
+		assertTrue("Asynchronous handler should have started",
+			before.started.await(10, TimeUnit.SECONDS));
+		cor.removeMember(before);
+		before.worker.join(10000);
+		assertTrue("Handler ahead of the consumer should be advised",
+			before.received.contains(msg));
+		assertTrue("Handler after the consumer should not be advised",
+			after.received.isEmpty());
+	}
+
+	/**
+	 * Check that a state change waiting for an asynchronous handler is 
+	 * replaced by a later change from the same source.
+	 */
+	@Test
+	public void testCoalescing() throws InterruptedException
+	{
+		MessageHandlerManager cor = new MessageHandlerManager();
+		AsyncRecorder async = new AsyncRecorder(FocusOrStateChangeOccurredMessage.class);
+		cor.addMember(async);
+
+		PCGenMessage first = new FocusOrStateChangeOccurredMessage(this, null);
+		cor.getPostbox().handleMessage(first);
+		assertTrue("Asynchronous handler should have started",
+			async.started.await(10, TimeUnit.SECONDS));
+		PCGenMessage other = new FocusOrStateChangeOccurredMessage(cor, null);
+		cor.getPostbox().handleMessage(new FocusOrStateChangeOccurredMessage(this, null));
+		cor.getPostbox().handleMessage(other);
+		PCGenMessage last = new FocusOrStateChangeOccurredMessage(this, null);
+		cor.getPostbox().handleMessage(last);
+		MessageHandlerManager.HandlerStatistics stats = cor.getStatistics(async);
+		assertEquals(1, stats.getCoalesced());
+
+		async.release.countDown();
+		cor.removeMember(async);
+		async.worker.join(10000);
+		assertEquals(Arrays.asList(first, other, last), async.received);
+		assertEquals(3, stats.getDelivered());
+		assertTrue(stats.getMaximumLatency() >= stats.getAverageLatency());
+	}
+
+	/**
+	 * Check that waiting messages are delivered highest priority first, and 
+	 * in the order they were sent within a priority.
+	 */
+	@Test
+	public void testPriority() throws InterruptedException
+	{
+		MessageHandlerManager cor = new MessageHandlerManager();
+		AsyncRecorder async = new AsyncRecorder(PriorityMessage.class);
+		cor.addMember(async);
+		PCGenMessage first =
+				new PriorityMessage(this, PCGenMessage.NORMAL_PRIORITY);
+		cor.getPostbox().handleMessage(first);
+		assertTrue("Asynchronous handler should have started",
+			async.started.await(10, TimeUnit.SECONDS));
+
+		PCGenMessage low =
+				new PriorityMessage(this, PCGenMessage.LOW_PRIORITY);
+		PCGenMessage normal =
+				new PriorityMessage(this, PCGenMessage.NORMAL_PRIORITY);
+		PCGenMessage urgent =
+				new PriorityMessage(this, PCGenMessage.HIGH_PRIORITY);
+		PCGenMessage laterUrgent =
+				new PriorityMessage(this, PCGenMessage.HIGH_PRIORITY);
+		cor.getPostbox().handleMessage(low);
+		cor.getPostbox().handleMessage(normal);
+		cor.getPostbox().handleMessage(urgent);
+		cor.getPostbox().handleMessage(laterUrgent);
+
+		async.release.countDown();
+		cor.removeMember(async);
+		async.worker.join(10000);
+		assertEquals(Arrays.asList(first, urgent, laterUrgent, normal, low),
+			async.received);
+	}
+
+	/**
+	 * Check that the sender does not wait for a full queue, and that the 
+	 * oldest of the lowest priority messages are discarded instead.
+	 */
+	@Test
+	public void testFullQueue() throws InterruptedException
+	{
+		MessageHandlerManager cor = new MessageHandlerManager();
+		AsyncRecorder async = new AsyncRecorder(PriorityMessage.class);
+		cor.addMember(async);
+		PCGenMessage first =
+				new PriorityMessage(this, PCGenMessage.NORMAL_PRIORITY);
+		cor.getPostbox().handleMessage(first);
+		assertTrue("Asynchronous handler should have started",
+			async.started.await(10, TimeUnit.SECONDS));
+
+		PCGenMessage urgent =
+				new PriorityMessage(this, PCGenMessage.HIGH_PRIORITY);
+		cor.getPostbox().handleMessage(urgent);
+		List<PCGenMessage> sent = new ArrayList<>();
+		for (int i = 0; i < MessageHandlerManager.QUEUE_CAPACITY + 2; i++)
+		{
+			PCGenMessage msg =
+					new PriorityMessage(this, PCGenMessage.NORMAL_PRIORITY);
+			sent.add(msg);
+			cor.getPostbox().handleMessage(msg);
+		}
+		MessageHandlerManager.HandlerStatistics stats = cor.getStatistics(async);
+		assertEquals(3, stats.getDropped());
+		assertEquals(MessageHandlerManager.QUEUE_CAPACITY,
+			stats.getMaximumQueued());
+
+		async.release.countDown();
+		cor.removeMember(async);
+		async.worker.join(10000);
+		List<PCGenMessage> expected = new ArrayList<>();
+		expected.add(first);
+		expected.add(urgent);
+		expected.addAll(sent.subList(3, sent.size()));
+		assertEquals(expected, async.received);
+	}
+
 	/**
 	 * The Class <code>MessageRecorder</code> is a message handler that
 	 * simply tracks the messages is receives, allowing testing of message distribution.
@@ -214,4 +394,67 @@ public class MessageHandlerManagerTest
 			msg.consume();
 		}
 	}
+
+	/**
+	 * The Class <code>PriorityMessage</code> is a message of a given priority.
+	 */
+	@SuppressWarnings("serial")
+	private static class PriorityMessage extends PCGenMessage
+	{
+		private final int priority;
+
+		PriorityMessage(Object source, int priority)
+		{
+			super(source);
+			this.priority = priority;
+		}
+
+		@Override
+		public int getPriority()
+		{
+			return priority;
+		}
+	}
+
+	/**
+	 * The Class <code>AsyncRecorder</code> is an asynchronous handler which 
+	 * records the messages it receives, holding up its thread on the first 
+	 * message until it is released.
+	 */
+	private static class AsyncRecorder implements AsynchronousMessageHandler
+	{
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<PCGenMessage> received =
+				Collections.synchronizedList(new ArrayList<>());
+		final Class<? extends PCGenMessage> type;
+		volatile Thread worker;
+
+		AsyncRecorder(Class<? extends PCGenMessage> type)
+		{
+			this.type = type;
+		}
+
+		@Override
+		public Collection<Class<? extends PCGenMessage>> getMessageTypes()
+		{
+			return Collections.singleton(type);
+		}
+
+		@Override
+		public void handleMessage(PCGenMessage msg)
+		{
+			worker = Thread.currentThread();
+			started.countDown();
+			try
+			{
+				release.await(10, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			received.add(msg);
+		}
+	}
 }
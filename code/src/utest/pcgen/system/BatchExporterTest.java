@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * BatchExporterTest checks the identification of the characters in a batch
+ * export.
+ */
+public class BatchExporterTest
+{
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Verify a directory batch includes only the character files, in name
+	 * order.
+	 */
+	@Test
+	public void testDirectoryBatch() throws Exception
+	{
+		File second = folder.newFile("b.pcg");
+		File first = folder.newFile("a.pcg");
+		folder.newFile("party.pcp");
+		folder.newFolder("folder.pcg");
+		List<File> files =
+				BatchExporter.getBatchCharacterFiles(folder.getRoot());
+		assertEquals(Arrays.asList(first, second), files);
+	}
+
+	/**
+	 * Verify a manifest batch skips comments and blank lines, and resolves
+	 * relative paths against the manifest's folder.
+	 */
+	@Test
+	public void testManifestBatch() throws Exception
+	{
+		File absolute = folder.newFile("absolute.pcg");
+		File manifest = folder.newFile("batch.txt");
+		Files.write(manifest.toPath(), Arrays.asList("# Nightly sheets", "",
+			"  relative.pcg ", absolute.getAbsolutePath()),
+			StandardCharsets.UTF_8);
+		List<File> files = BatchExporter.getBatchCharacterFiles(manifest);
+		assertEquals(Arrays.asList(new File(folder.getRoot(), "relative.pcg"),
+			absolute), files);
+		assertNull(BatchExporter.getBatchCharacterFiles(new File(folder
+			.getRoot(), "missing.txt")));
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package pcgen.system;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * PCGenTaskExecutorTest checks the ordering and progress reporting of
+ * PCGenTaskExecutor.
+ */
+public class PCGenTaskExecutorTest
+{
+
+	/**
+	 * Verify tasks added without dependencies run one after another.
+	 */
+	@Test
+	public void testSequentialTasks()
+	{
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		PCGenTaskExecutor executor = new PCGenTaskExecutor();
+		executor.addPCGenTask(new RecordingTask("a", order, null));
+		executor.addPCGenTask(new RecordingTask("b", order, null));
+		executor.addPCGenTask(new RecordingTask("c", order, null));
+		executor.execute();
+		assertEquals("[a, b, c]", order.toString());
+	}
+
+	/**
+	 * Verify tasks which only share a dependency run at the same time, after
+	 * the dependency has finished, and that the progress reaches the end.
+	 */
+	@Test
+	public void testIndependentTasks()
+	{
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		// Each of the two independent tasks waits for the other to start
+		CountDownLatch bothStarted = new CountDownLatch(2);
+		PCGenTaskExecutor executor = new PCGenTaskExecutor();
+		PCGenTask first = new RecordingTask("first", order, null);
+		executor.addPCGenTask(first);
+		executor.addPCGenTask(new RecordingTask("x", order, bothStarted), first);
+		executor.addPCGenTask(new RecordingTask("y", order, bothStarted), first);
+		executor.execute();
+		assertEquals("first", order.get(0));
+		assertEquals(3, order.size());
+		assertTrue(order.containsAll(Arrays.asList("x", "y")));
+		assertEquals(executor.getMaximum(), executor.getProgress());
+	}
+
+	private static final class RecordingTask extends PCGenTask
+	{
+		private final String name;
+		private final List<String> order;
+		private final CountDownLatch latch;
+
+		private RecordingTask(String name, List<String> order,
+			CountDownLatch latch)
+		{
+			this.name = name;
+			this.order = order;
+			this.latch = latch;
+		}
+
+		@Override
+		public void execute()
+		{
+			setMaximum(2);
+			setProgress(1);
+			if (latch != null)
+			{
+				latch.countDown();
+				try
+				{
+					assertTrue("Tasks did not run at the same time",
+						latch.await(10, TimeUnit.SECONDS));
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}
+			order.add(name);
+			setProgress(2);
+		}
+	}
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2016 (C) PCGen Open Source Team
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+ */
+package plugin.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * NetworkServerTest runs a NetworkServer without the GMGen view and connects
+ * clients to it over the loopback interface, including a load test with
+ * hundreds of clients connected at once.
+ */
+public class NetworkServerTest
+{
+
+	/**
+	 * The number of clients connected by the load test.
+	 */
+	private static final int CLIENTS = 200;
+
+	private NetworkServer server;
+	private int port;
+	private final List<Client> clients = new ArrayList<>();
+
+	@Before
+	public void setUp() throws Exception
+	{
+		server = new NetworkServer(null, 0);
+		server.start();
+		port = server.getLocalPort(10, TimeUnit.SECONDS);
+		assertTrue("Server did not start", port > 0);
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+		server.setRun(false);
+		server.join(10000);
+		for (Client client : clients)
+		{
+			client.socket.close();
+		}
+	}
+
+	/**
+	 * Verify every client learns of every user and receives a broadcast, and
+	 * that each is told to exit when the server stops.
+	 */
+	@Test
+	public void testManyClients() throws Exception
+	{
+		for (int i = 0; i < CLIENTS; i++)
+		{
+			connect().send("User: user" + i);
+		}
+		// Wait for the last client to be announced to the first, so all are in
+		Client first = clients.get(0);
+		first.readUntil("AddUser: user" + (CLIENTS - 1));
+		first.send("Broadcast: hello");
+		for (Client client : clients)
+		{
+			client.readUntil("Broadcast: user0|hello");
+		}
+
+		Client last = clients.get(CLIENTS - 1);
+		last.send("IM: user0|psst");
+		first.readUntil("IM: user" + (CLIENTS - 1) + "|psst");
+
+		server.setRun(false);
+		for (Client client : clients)
+		{
+			client.readUntil("Exit: ");
+		}
+	}
+
+	/**
+	 * Verify a second client with the name of a connected user is refused
+	 * and disconnected, and that a departing user is announced.
+	 */
+	@Test
+	public void testDuplicateUser() throws Exception
+	{
+		Client first = connect();
+		first.send("User: player");
+		first.readUntil("AddUser: player");
+		Client second = connect();
+		second.send("User: player");
+		String line = second.reader.readLine();
+		assertTrue(line, line.startsWith("Error: User with the name of player"));
+		assertNull(second.reader.readLine());
+
+		Client third = connect();
+		third.send("User: other");
+		first.readUntil("AddUser: other");
+		third.send("Exit: ");
+		first.readUntil("RemoveUser: other");
+	}
+
+	private Client connect() throws IOException
+	{
+		Client client = new Client(new Socket(InetAddress.getLoopbackAddress(),
+			port));
+		clients.add(client);
+		return client;
+	}
+
+	private static final class Client
+	{
+		private final Socket socket;
+		private final BufferedReader reader;
+		private final OutputStream out;
+
+		private Client(Socket socket) throws IOException
+		{
+			this.socket = socket;
+			socket.setSoTimeout(10000);
+			reader = new BufferedReader(new InputStreamReader(
+				socket.getInputStream(), StandardCharsets.UTF_8));
+			out = socket.getOutputStream();
+		}
+
+		private void send(String line) throws IOException
+		{
+			out.write((line + "\r\n").getBytes(StandardCharsets.UTF_8));
+			out.flush();
+		}
+
+		private void readUntil(String expected) throws IOException
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				if (line.equals(expected))
+				{
+					return;
+				}
+			}
+			assertEquals(expected, line);
+		}
+	}
+}